@@ -0,0 +1,55 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.file;
+
+import scala.concurrent.duration.FiniteDuration;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * The outcome of transferring a file: the number of bytes transferred and how long the transfer took.
+ */
+public final class FileTransferResult {
+
+  private final Path source;
+  private final long bytes;
+  private final FiniteDuration duration;
+
+  public FileTransferResult(Path source, long bytes, FiniteDuration duration) {
+    this.source = source;
+    this.bytes = bytes;
+    this.duration = duration;
+  }
+
+  public Path source() {
+    return source;
+  }
+
+  public long bytes() {
+    return bytes;
+  }
+
+  public FiniteDuration duration() {
+    return duration;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof FileTransferResult)) return false;
+    final FileTransferResult that = (FileTransferResult) o;
+    return bytes == that.bytes && source.equals(that.source) && duration.equals(that.duration);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(source, bytes, duration);
+  }
+
+  @Override
+  public String toString() {
+    return "FileTransferResult(" + source + "," + bytes + "," + duration + ")";
+  }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.file;
+
+import akka.util.ByteString;
+
+import java.nio.file.Path;
+import java.util.Objects;
+
+/**
+ * A chunk of bytes read from a tailed file, with the offset in the file of its first byte.
+ *
+ * The file at a path is replaced when it is rotated, and its offsets restart at 0 when it is truncated. Every time
+ * this happens the generation of the chunks read from the path is incremented, so that chunks of the new contents can
+ * be told apart from chunks of the old ones: the offsets of a generation only refer to that generation's contents.
+ * Generations are counted from 0 for the file at the path when the stream starts, so only offsets of the latest
+ * generation of a path can be used as its starting position when the stream is started again, and only as long as
+ * the file has not been rotated in the meantime.
+ */
+public final class TailedChunk {
+
+  private final Path path;
+  private final int generation;
+  private final long offset;
+  private final ByteString bytes;
+
+  public TailedChunk(Path path, int generation, long offset, ByteString bytes) {
+    this.path = path;
+    this.generation = generation;
+    this.offset = offset;
+    this.bytes = bytes;
+  }
+
+  public Path path() {
+    return path;
+  }
+
+  /**
+   * The number of times the file at {@link #path()} has been rotated or truncated since the stream was started.
+   */
+  public int generation() {
+    return generation;
+  }
+
+  public long offset() {
+    return offset;
+  }
+
+  public ByteString bytes() {
+    return bytes;
+  }
+
+  /**
+   * The offset to continue tailing the file from after this chunk.
+   */
+  public long endOffset() {
+    return offset + bytes.size();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof TailedChunk)) return false;
+    final TailedChunk that = (TailedChunk) o;
+    return generation == that.generation && offset == that.offset && path.equals(that.path) && bytes.equals(that.bytes);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(path, generation, offset, bytes);
+  }
+
+  @Override
+  public String toString() {
+    return "TailedChunk(" + path + "," + generation + "," + offset + "," + bytes + ")";
+  }
+}
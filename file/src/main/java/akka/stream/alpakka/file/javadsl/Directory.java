@@ -4,6 +4,7 @@
 package akka.stream.alpakka.file.javadsl;
 
 import akka.NotUsed;
+import akka.japi.Pair;
 import akka.stream.javadsl.Source;
 import akka.stream.javadsl.StreamConverters;
 import scala.None;
@@ -13,6 +14,7 @@ import scala.collection.immutable.Nil$;
 import java.nio.file.FileVisitOption;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 
 public final class Directory {
 
@@ -38,4 +40,27 @@ public final class Directory {
   public static Source<Path, NotUsed> walk(Path directory, int maxDepth, FileVisitOption... options) {
     return StreamConverters.fromJavaStream(() -> Files.walk(directory, maxDepth, options));
   }
+
+  /**
+   * Recursively list files and directories in the given directory, listing up to {@code parallelism} directories at
+   * the same time on the blocking IO dispatcher. This pays off where listing a directory takes a round trip, like on
+   * network file systems. Symbolic links are not followed.
+   *
+   * @param parallelism Maximum number of directories listed at the same time
+   * @param maxDepth Limits the depth of the directory structure to walk through
+   * @param ordered Whether to emit depth first like {@link #walk(Path)}, or as soon as a directory has been listed
+   */
+  public static Source<Path, NotUsed> walkParallel(Path directory, int parallelism, int maxDepth, boolean ordered) {
+    return akka.stream.alpakka.file.scaladsl.Directory.walkParallel(directory, parallelism, maxDepth, ordered).asJava();
+  }
+
+  /**
+   * Same as {@link #walkParallel(Path, int, int, boolean)}, but emits the attributes of every path as well, which are
+   * read while listing anyway.
+   */
+  public static Source<Pair<Path, BasicFileAttributes>, NotUsed> walkParallelWithAttributes(Path directory, int parallelism, int maxDepth, boolean ordered) {
+    return akka.stream.alpakka.file.scaladsl.Directory.walkParallelWithAttributes(directory, parallelism, maxDepth, ordered)
+      .asJava()
+      .map(t -> Pair.create(t._1(), t._2()));
+  }
 }
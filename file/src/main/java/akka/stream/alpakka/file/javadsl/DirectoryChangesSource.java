@@ -11,6 +11,7 @@ import akka.stream.SourceShape;
 import akka.stream.alpakka.file.DirectoryChange;
 import akka.stream.javadsl.Source;
 import akka.stream.stage.AbstractOutHandler;
+import akka.stream.stage.AsyncCallback;
 import akka.stream.stage.GraphStage;
 import akka.stream.stage.GraphStageLogic;
 import akka.stream.stage.TimerGraphStageLogic;
@@ -18,10 +19,19 @@ import com.sun.nio.file.SensitivityWatchEventModifier;
 import scala.concurrent.duration.FiniteDuration;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.nio.file.*;
 import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Queue;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static java.nio.file.StandardWatchEventKinds.*;
 
@@ -29,6 +39,20 @@ import static java.nio.file.StandardWatchEventKinds.*;
  * Watches a file system directory and streams change events from it.
  *
  * Note that the JDK watcher is notoriously slow on some platform (up to 1s after event actually happened on OSX for example)
+ *
+ * The source either polls its own watch service, or, when created without a poll interval, is notified of changes by
+ * a watch service shared by all event driven sources on the same file system, which blocks a single thread while
+ * nothing happens.
+ *
+ * A recursive source watches every directory of a tree with one watch service, watches directories created in the tree
+ * as soon as their creation is seen and emits the entries found in them as created. When the watch service reports
+ * that it missed changes of a directory, every entry of the directory is emitted as modified and its subdirectories
+ * are searched for directories that are not watched yet, instead of failing the stage.
+ *
+ * With a coalescing window, the changes of a path are held back for the window after its first change, and all of its
+ * changes within the window are emitted as a single one: repeated modifications as one modification, a creation
+ * followed by modifications as a creation, and a creation followed by a deletion not at all. Bursts of changes then
+ * only take buffer space per changed path.
  */
 public final class DirectoryChangesSource<T> extends GraphStage<SourceShape<T>> {
 
@@ -36,8 +60,12 @@ public final class DirectoryChangesSource<T> extends GraphStage<SourceShape<T>>
   private final static Attributes DEFAULT_ATTRIBUTES = Attributes.name("DirectoryChangesSource");
 
   private final Path directoryPath;
+  // null when event driven
   private final FiniteDuration pollInterval;
   private final int maxBufferSize;
+  private final boolean recursive;
+  // null when changes are not coalesced
+  private final FiniteDuration coalesceWindow;
   private final BiFunction<Path, DirectoryChange, T> combiner;
   public final Outlet<T> out = Outlet.create("DirectoryChangesSource.out");
   private final SourceShape<T> shape = SourceShape.of(out);
@@ -50,12 +78,52 @@ public final class DirectoryChangesSource<T> extends GraphStage<SourceShape<T>>
    * @param combiner A function that combines a Path and a DirectoryChange into an element that will be emitted downstream
    */
   public DirectoryChangesSource(Path directoryPath, FiniteDuration pollInterval, int maxBufferSize, BiFunction<Path, DirectoryChange, T> combiner) {
+    this(directoryPath, pollInterval, maxBufferSize, false, combiner);
+  }
+
+  /**
+   * @param directoryPath Directory to watch
+   * @param pollInterval Interval between polls to the JDK watch service when a push comes in and there was no changes,
+   *                     or null to be notified by the watch service shared by all event driven sources
+   * @param maxBufferSize Maximum number of buffered directory changes before the stage fails
+   * @param recursive Whether to watch all subdirectories of the directory as well
+   * @param combiner A function that combines a Path and a DirectoryChange into an element that will be emitted downstream
+   */
+  public DirectoryChangesSource(Path directoryPath, FiniteDuration pollInterval, int maxBufferSize, boolean recursive, BiFunction<Path, DirectoryChange, T> combiner) {
+    this(directoryPath, pollInterval, maxBufferSize, recursive, null, combiner);
+  }
+
+  /**
+   * @param directoryPath Directory to watch
+   * @param pollInterval Interval between polls to the JDK watch service when a push comes in and there was no changes,
+   *                     or null to be notified by the watch service shared by all event driven sources
+   * @param maxBufferSize Maximum number of buffered directory changes, or changed paths when coalescing, before the
+   *                      stage fails
+   * @param recursive Whether to watch all subdirectories of the directory as well
+   * @param coalesceWindow Time for which the changes of a path are coalesced into one, or null to emit every change
+   * @param combiner A function that combines a Path and a DirectoryChange into an element that will be emitted downstream
+   */
+  public DirectoryChangesSource(Path directoryPath, FiniteDuration pollInterval, int maxBufferSize, boolean recursive, FiniteDuration coalesceWindow, BiFunction<Path, DirectoryChange, T> combiner) {
     this.directoryPath = directoryPath;
     this.pollInterval = pollInterval;
     this.maxBufferSize = maxBufferSize;
+    this.recursive = recursive;
+    this.coalesceWindow = coalesceWindow;
     this.combiner = combiner;
   }
 
+  /**
+   * Creates an event driven source, which is notified by a watch service shared with all other event driven sources
+   * on the same file system instead of polling one of its own.
+   *
+   * @param directoryPath Directory to watch
+   * @param maxBufferSize Maximum number of buffered directory changes before the stage fails
+   * @param combiner A function that combines a Path and a DirectoryChange into an element that will be emitted downstream
+   */
+  public DirectoryChangesSource(Path directoryPath, int maxBufferSize, BiFunction<Path, DirectoryChange, T> combiner) {
+    this(directoryPath, null, maxBufferSize, false, combiner);
+  }
+
   @Override
   public SourceShape<T> shape() {
     return shape;
@@ -73,13 +141,17 @@ public final class DirectoryChangesSource<T> extends GraphStage<SourceShape<T>>
 
     return new TimerGraphStageLogic(shape) {
       private final Queue<T> buffer = new ArrayDeque<>();
-      private final WatchService service = directoryPath.getFileSystem().newWatchService();
-      private final WatchKey watchKey = directoryPath.register(
-        service,
-        new WatchEvent.Kind<?>[] { ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE, OVERFLOW },
-        // this is com.sun internal, but the service is useless on OSX without it
-        SensitivityWatchEventModifier.HIGH
-      );
+      private final boolean eventDriven = pollInterval == null;
+      // the watched directory of every key
+      private final Map<WatchKey, Path> directories = new HashMap<>();
+      // the key of every watched directory, a directory that has been deleted and recreated needs a new one
+      private final Map<Path, WatchKey> watched = new HashMap<>();
+      // changes held back while coalescing, in the order of the first change of each path
+      private final LinkedHashMap<Path, PendingChange> pending = new LinkedHashMap<>();
+      private WatchService service;
+      private WatchServiceDriver driver;
+      // the same instance must be passed to the driver when registering and cancelling
+      private Consumer<WatchServiceDriver.Signal> signalled;
 
       {
         setHandler(out, new AbstractOutHandler(){
@@ -88,7 +160,7 @@ public final class DirectoryChangesSource<T> extends GraphStage<SourceShape<T>>
           public void onPull() throws Exception {
             if (!buffer.isEmpty()) {
               pushHead();
-            } else {
+            } else if (!eventDriven) {
               doPoll();
               if (!buffer.isEmpty()) {
                 pushHead();
@@ -100,12 +172,31 @@ public final class DirectoryChangesSource<T> extends GraphStage<SourceShape<T>>
         });
       }
 
+      @Override
+      public void preStart() throws Exception {
+        if (eventDriven) {
+          final AsyncCallback<WatchServiceDriver.Signal> callback = createAsyncCallback(signal -> {
+            handle(signal.key, signal.events, signal.valid);
+            if (isAvailable(out)) pushHead();
+          });
+          signalled = callback::invoke;
+          driver = WatchServiceDriver.acquire(directoryPath.getFileSystem());
+        } else {
+          service = directoryPath.getFileSystem().newWatchService();
+        }
+        if (recursive) registerTree(directoryPath, false);
+        else register(directoryPath);
+      }
+
       @Override
       public void onTimer(Object timerKey) {
-        if (!isClosed(out)) {
+        if (COALESCE_TIMER.equals(timerKey)) {
+          releaseCoalesced();
+          if (isAvailable(out)) pushHead();
+        } else if (!isClosed(out)) {
           doPoll();
           if (!buffer.isEmpty()) {
-            pushHead();
+            if (isAvailable(out)) pushHead();
           } else {
             schedulePoll();
           }
@@ -115,8 +206,15 @@ public final class DirectoryChangesSource<T> extends GraphStage<SourceShape<T>>
       @Override
       public void postStop() {
         try {
-          if (watchKey.isValid()) watchKey.cancel();
-          service.close();
+          if (eventDriven) {
+            if (driver != null) {
+              for (WatchKey key: directories.keySet()) driver.cancel(key, signalled);
+              driver.release();
+            }
+          } else if (service != null) {
+            for (WatchKey key: directories.keySet()) key.cancel();
+            service.close();
+          }
         } catch (Exception ex) {
           // Remove when #21168 is in a release
           throw new RuntimeException(ex);
@@ -134,39 +232,166 @@ public final class DirectoryChangesSource<T> extends GraphStage<SourceShape<T>>
         scheduleOnce("poll", pollInterval);
       }
 
+      private void register(Path directory) throws IOException {
+        final WatchKey key;
+        if (eventDriven) {
+          key = driver.register(directory, signalled);
+        } else {
+          key = directory.register(
+            service,
+            new WatchEvent.Kind<?>[] { ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE, OVERFLOW },
+            // this is com.sun internal, but the service is useless on OSX without it
+            SensitivityWatchEventModifier.HIGH
+          );
+        }
+        directories.put(key, directory);
+        watched.put(directory, key);
+      }
+
+      // registers every directory of a tree that is not watched yet, entries found in them may have been created
+      // before they were watched, so they are emitted as creations if asked to
+      private void registerTree(Path root, boolean emitCreations) {
+        try (Stream<Path> tree = Files.walk(root)) {
+          tree.forEach(path -> {
+            try {
+              if (Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS) && !isWatched(path)) {
+                register(path);
+                if (emitCreations) {
+                  try (Stream<Path> entries = Files.list(path)) {
+                    entries.forEach(entry -> enqueue(entry, DirectoryChange.Creation));
+                  }
+                }
+              }
+            } catch (IOException ex) {
+              throw new UncheckedIOException(ex);
+            }
+          });
+        } catch (IOException | UncheckedIOException ex) {
+          // the tree has been deleted while walking it, its deletion will be reported by the watched parent
+        }
+      }
+
+      private boolean isWatched(Path directory) {
+        final WatchKey key = watched.get(directory);
+        return key != null && key.isValid();
+      }
+
+      // stops watching a deleted directory, as its key may only become invalid after it has been recreated
+      private void unwatch(Path directory) {
+        final WatchKey key = watched.remove(directory);
+        if (key != null) {
+          directories.remove(key);
+          if (eventDriven) driver.cancel(key, signalled);
+          else key.cancel();
+        }
+      }
+
       private void doPoll() {
+        WatchKey key;
+        while ((key = service.poll()) != null) {
+          drain(key);
+        }
+      }
+
+      private void drain(WatchKey key) {
+        final List<WatchEvent<?>> events = key.pollEvents();
+        handle(key, events, key.reset());
+      }
+
+      // handles the events polled from a key, which has been reset already and may no longer be valid
+      private void handle(WatchKey key, List<WatchEvent<?>> events, boolean valid) {
+        final Path directory = directories.get(key);
+        if (directory == null) return;
         try {
-          for (WatchEvent<?> event: watchKey.pollEvents()) {
+          for (WatchEvent<?> event: events) {
             final WatchEvent.Kind<?> kind = event.kind();
 
             if (OVERFLOW.equals(kind)) {
-              // overflow means that some file system change events may have been missed,
-              // that may be ok for some scenarios but to make sure it does not pass unnoticed we fail the stage
-              failStage(new RuntimeException("Overflow from watch service: '" + directoryPath + "'"));
+              if (recursive) {
+                // some changes have been missed, report every entry as modified and watch subdirectories that
+                // may have been missed
+                try (Stream<Path> entries = Files.list(directory)) {
+                  entries.forEach(entry -> enqueue(entry, DirectoryChange.Modification));
+                } catch (IOException ex) {
+                  // the directory has been deleted, its key will be invalid
+                }
+                registerTree(directory, true);
+              } else {
+                // overflow means that some file system change events may have been missed,
+                // that may be ok for some scenarios but to make sure it does not pass unnoticed we fail the stage
+                failStage(new RuntimeException("Overflow from watch service: '" + directory + "'"));
+              }
 
             } else {
               // if it's not an overflow it must be a Path event
               @SuppressWarnings("unchecked")
               final Path path = (Path) event.context();
-              final Path absolutePath = directoryPath.resolve(path);
+              final Path absolutePath = directory.resolve(path);
               final DirectoryChange change = kindToChange(kind);
 
-              buffer.add(combiner.apply(absolutePath, change));
-              if (buffer.size() > maxBufferSize) {
-                failStage(new RuntimeException("Max event buffer size " +
-                  maxBufferSize + " reached for $path"));
+              enqueue(absolutePath, change);
+              if (recursive && change == DirectoryChange.Deletion) {
+                unwatch(absolutePath);
+              } else if (recursive && change == DirectoryChange.Creation && Files.isDirectory(absolutePath, LinkOption.NOFOLLOW_LINKS)) {
+                registerTree(absolutePath, true);
               }
             }
 
           }
         } finally {
-          if (!watchKey.reset()) {
-            // directory no longer accessible
-            completeStage();
+          if (!valid) {
+            watched.remove(directories.remove(key), key);
+            if (directory.equals(directoryPath)) {
+              // directory no longer accessible
+              completeStage();
+            }
           }
         }
       }
 
+      private void enqueue(Path path, DirectoryChange change) {
+        if (coalesceWindow == null) {
+          buffer.add(combiner.apply(path, change));
+        } else {
+          coalesce(path, change);
+        }
+        if (buffer.size() + pending.size() > maxBufferSize) {
+          failStage(new RuntimeException("Max event buffer size " +
+            maxBufferSize + " reached for " + path));
+        }
+      }
+
+      private void coalesce(Path path, DirectoryChange change) {
+        final PendingChange previous = pending.get(path);
+        if (previous == null) {
+          pending.put(path, new PendingChange(change, System.nanoTime() + coalesceWindow.toNanos()));
+          if (!isTimerActive(COALESCE_TIMER)) scheduleOnce(COALESCE_TIMER, coalesceWindow);
+        } else {
+          final DirectoryChange merged = merge(previous.change, change);
+          if (merged == null) {
+            pending.remove(path);
+          } else {
+            previous.change = merged;
+          }
+        }
+      }
+
+      // moves the changes whose window has passed to the buffer, and waits for the window of the next one
+      private void releaseCoalesced() {
+        final long now = System.nanoTime();
+        final Iterator<Map.Entry<Path, PendingChange>> it = pending.entrySet().iterator();
+        while (it.hasNext()) {
+          final Map.Entry<Path, PendingChange> entry = it.next();
+          final long remaining = entry.getValue().deadline - now;
+          if (remaining > 0) {
+            scheduleOnce(COALESCE_TIMER, FiniteDuration.create(remaining, TimeUnit.NANOSECONDS));
+            return;
+          }
+          buffer.add(combiner.apply(entry.getKey(), entry.getValue().change));
+          it.remove();
+        }
+      }
+
 
 
       // convert from the parametrized API to our much nicer API enum
@@ -189,6 +414,30 @@ public final class DirectoryChangesSource<T> extends GraphStage<SourceShape<T>>
     };
   }
 
+  private static final String COALESCE_TIMER = "coalesce";
+
+  private static final class PendingChange {
+    DirectoryChange change;
+    final long deadline;
+
+    PendingChange(DirectoryChange change, long deadline) {
+      this.change = change;
+      this.deadline = deadline;
+    }
+  }
+
+  // the change with the same effect as two consecutive changes of a path, or null if they cancel each other out
+  private static DirectoryChange merge(DirectoryChange previous, DirectoryChange next) {
+    if (previous == DirectoryChange.Creation) {
+      return next == DirectoryChange.Deletion ? null : DirectoryChange.Creation;
+    } else if (next == DirectoryChange.Deletion) {
+      return DirectoryChange.Deletion;
+    } else {
+      // modified, or deleted and created again
+      return DirectoryChange.Modification;
+    }
+  }
+
   @Override
   public String toString() {
     return "DirectoryChangesSource(" + directoryPath + ')';
@@ -210,6 +459,83 @@ public final class DirectoryChangesSource<T> extends GraphStage<SourceShape<T>>
     return Source.fromGraph(new DirectoryChangesSource(directoryPath, pollInterval, maxBufferSize, Pair::apply));
   }
 
+  /**
+   * Java API: Watches a directory without polling, notified of changes by a watch service shared with all other
+   * event driven sources on the same file system.
+   *
+   * @param directoryPath Directory to watch
+   * @param maxBufferSize Maximum number of buffered directory changes before the stage fails
+   */
+  @SuppressWarnings("unchecked")
+  public static Source<Pair<Path, DirectoryChange>, NotUsed> create(Path directoryPath, int maxBufferSize) {
+    return Source.fromGraph(new DirectoryChangesSource(directoryPath, maxBufferSize, Pair::apply));
+  }
 
+  /**
+   * Java API: Same as {@link #create(Path, FiniteDuration, int)}, but coalesces the changes of every path within
+   * {@code coalesceWindow} after its first change into a single change.
+   *
+   * @param directoryPath Directory to watch
+   * @param pollInterval Interval between polls to the JDK watch service when a push comes in and there was no changes, if
+   *                     the JDK implementation is slow, it will not help lowering this
+   * @param maxBufferSize Maximum number of buffered changed paths before the stage fails
+   * @param coalesceWindow Time for which the changes of a path are coalesced
+   */
+  @SuppressWarnings("unchecked")
+  public static Source<Pair<Path, DirectoryChange>, NotUsed> create(Path directoryPath, FiniteDuration pollInterval, int maxBufferSize, FiniteDuration coalesceWindow) {
+    return Source.fromGraph(new DirectoryChangesSource(directoryPath, pollInterval, maxBufferSize, false, coalesceWindow, Pair::apply));
+  }
+
+  /**
+   * Java API: Same as {@link #create(Path, int)}, but coalesces the changes of every path within
+   * {@code coalesceWindow} after its first change into a single change.
+   *
+   * @param directoryPath Directory to watch
+   * @param maxBufferSize Maximum number of buffered changed paths before the stage fails
+   * @param coalesceWindow Time for which the changes of a path are coalesced
+   */
+  @SuppressWarnings("unchecked")
+  public static Source<Pair<Path, DirectoryChange>, NotUsed> create(Path directoryPath, int maxBufferSize, FiniteDuration coalesceWindow) {
+    return Source.fromGraph(new DirectoryChangesSource(directoryPath, null, maxBufferSize, false, coalesceWindow, Pair::apply));
+  }
+
+  /**
+   * Java API: Watches a directory and all of its subdirectories with a single watch service, including directories
+   * created after the stream has been started.
+   *
+   * @param root Root of the directory tree to watch
+   * @param pollInterval Interval between polls to the JDK watch service when a push comes in and there was no changes, if
+   *                     the JDK implementation is slow, it will not help lowering this
+   * @param maxBufferSize Maximum number of buffered directory changes before the stage fails
+   */
+  @SuppressWarnings("unchecked")
+  public static Source<Pair<Path, DirectoryChange>, NotUsed> recursive(Path root, FiniteDuration pollInterval, int maxBufferSize) {
+    return Source.fromGraph(new DirectoryChangesSource(root, pollInterval, maxBufferSize, true, Pair::apply));
+  }
+
+  /**
+   * Java API: Watches a directory and all of its subdirectories without polling, notified of changes by the watch
+   * service shared with all other event driven sources on the same file system.
+   *
+   * @param root Root of the directory tree to watch
+   * @param maxBufferSize Maximum number of buffered directory changes before the stage fails
+   */
+  @SuppressWarnings("unchecked")
+  public static Source<Pair<Path, DirectoryChange>, NotUsed> recursive(Path root, int maxBufferSize) {
+    return Source.fromGraph(new DirectoryChangesSource(root, null, maxBufferSize, true, Pair::apply));
+  }
+
+  /**
+   * Java API: Same as {@link #recursive(Path, int)}, but coalesces the changes of every path within
+   * {@code coalesceWindow} after its first change into a single change.
+   *
+   * @param root Root of the directory tree to watch
+   * @param maxBufferSize Maximum number of buffered changed paths before the stage fails
+   * @param coalesceWindow Time for which the changes of a path are coalesced
+   */
+  @SuppressWarnings("unchecked")
+  public static Source<Pair<Path, DirectoryChange>, NotUsed> recursive(Path root, int maxBufferSize, FiniteDuration coalesceWindow) {
+    return Source.fromGraph(new DirectoryChangesSource(root, null, maxBufferSize, true, coalesceWindow, Pair::apply));
+  }
 
 }
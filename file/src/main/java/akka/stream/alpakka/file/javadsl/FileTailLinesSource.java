@@ -0,0 +1,177 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.file.javadsl;
+
+import akka.stream.Attributes;
+import akka.stream.Outlet;
+import akka.stream.SourceShape;
+import akka.stream.scaladsl.Framing;
+import akka.stream.stage.*;
+import akka.util.ByteString;
+import scala.concurrent.duration.FiniteDuration;
+import scala.util.Try;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.function.BiFunction;
+
+/**
+ * Read the entire contents of a file as lines, and then when the end is reached, keep reading newly appended lines.
+ * Like {@link FileTailSource} followed by framing, but the delimiter is searched for directly in the buffer the file is
+ * read into, and every line is emitted together with the offset in the file right after its delimiter, so that
+ * tailing can be restarted exactly at the next line by using that offset as starting position.
+ *
+ * Lines are emitted without their delimiter, and only once their delimiter has been read. If a line is longer than
+ * {@code maxLineSize} the stream fails.
+ *
+ * To use the stage from Scala see the factory methods in {@link akka.stream.alpakka.file.scaladsl.FileTailSource}
+ */
+public final class FileTailLinesSource<T> extends GraphStage<SourceShape<T>> {
+
+  private final Path path;
+  private final int maxLineSize;
+  private final long startingPosition;
+  private final FiniteDuration pollingInterval;
+  private final ByteString delimiter;
+  private final BiFunction<ByteString, Long, T> combiner;
+  private final Outlet<T> out = Outlet.create("FileTailLinesSource.out");
+  private final SourceShape<T> shape = SourceShape.of(out);
+
+  /**
+   * @param path a file path to tail
+   * @param maxLineSize The max size of a line, excluding the delimiter
+   * @param startingPosition Offset into the file to start reading, must be the start of a line
+   * @param pollingInterval When the end has been reached, look for new content with this interval
+   * @param delimiter The bytes separating lines
+   * @param combiner A function that combines a line and the offset right after it into an element that will be emitted downstream
+   */
+  public FileTailLinesSource(Path path, int maxLineSize, long startingPosition, FiniteDuration pollingInterval, ByteString delimiter, BiFunction<ByteString, Long, T> combiner) {
+    if (delimiter.isEmpty()) throw new IllegalArgumentException("delimiter must not be empty");
+    this.path = path;
+    this.maxLineSize = maxLineSize;
+    this.startingPosition = startingPosition;
+    this.pollingInterval = pollingInterval;
+    this.delimiter = delimiter;
+    this.combiner = combiner;
+  }
+
+  @Override
+  public SourceShape<T> shape() {
+    return shape;
+  }
+
+  @Override
+  public GraphStageLogic createLogic(Attributes inheritedAttributes) throws IOException {
+    if (!Files.exists(path)) throw new IllegalArgumentException("Path '" + path + "' does not exist");
+    if (Files.isDirectory(path)) throw new IllegalArgumentException("Path '" + path + "' cannot be tailed, it is a directory");
+    if (!Files.isReadable(path)) throw new IllegalArgumentException("No read permission for '" + path + "'");
+
+    return new TimerGraphStageLogic(shape) {
+      private final AsynchronousFileChannel channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
+      private final byte[] separator = delimiter.toArray();
+
+      // a line of the maximum size and its delimiter must fit
+      private final ByteBuffer buffer = ByteBuffer.allocate(maxLineSize + separator.length);
+      // offset in the file of the first byte in the buffer
+      private long bufferOffset = startingPosition;
+      // where to continue searching for the delimiter, everything before it belongs to emitted lines or the current one
+      private int scanned = 0;
+      private final ArrayDeque<T> lines = new ArrayDeque<>();
+      private boolean reading = false;
+      private AsyncCallback<Try<Integer>> chunkCallback;
+
+      {
+        setHandler(out, new AbstractOutHandler() {
+          @Override
+          public void onPull() throws Exception {
+            doPull();
+          }
+        });
+      }
+
+      @Override
+      public void preStart() {
+        chunkCallback = createAsyncCallback((tryInteger) -> {
+          reading = false;
+          if (tryInteger.isSuccess()) {
+            int readBytes = tryInteger.get();
+            if (readBytes > 0) {
+              splitLines();
+              if (isAvailable(out)) doPull();
+            } else {
+              // hit end, try again in a while
+              scheduleOnce("poll", pollingInterval);
+            }
+          } else {
+            failStage(tryInteger.failed().get());
+          }
+        });
+      }
+
+      @Override
+      public void onTimer(Object timerKey) {
+        read();
+      }
+
+      private void doPull() {
+        if (!lines.isEmpty()) push(out, lines.poll());
+        // read ahead while the pushed line is processed downstream
+        if (lines.isEmpty() && !reading && !isTimerActive("poll")) read();
+      }
+
+      private void read() {
+        reading = true;
+        channel.read(buffer, bufferOffset + buffer.position(), chunkCallback, FileTailSource.completionHandler);
+      }
+
+      private void splitLines() {
+        final byte[] array = buffer.array();
+        final int filled = buffer.position();
+        int lineStart = 0;
+        int i = scanned;
+        while (i + separator.length <= filled) {
+          if (isSeparatorAt(array, i)) {
+            final int lineEnd = i + separator.length;
+            lines.add(combiner.apply(ByteString.fromArray(array, lineStart, i - lineStart), bufferOffset + lineEnd));
+            lineStart = lineEnd;
+            i = lineEnd;
+          } else {
+            i += 1;
+          }
+        }
+        // move the incomplete line to the start of the buffer
+        System.arraycopy(array, lineStart, array, 0, filled - lineStart);
+        buffer.position(filled - lineStart);
+        bufferOffset += lineStart;
+        scanned = i - lineStart;
+        if (!buffer.hasRemaining()) {
+          failStage(new Framing.FramingException(
+            "Read " + buffer.position() + " bytes which is more than " + maxLineSize + " without seeing a line terminator"));
+        }
+      }
+
+      private boolean isSeparatorAt(byte[] array, int index) {
+        for (int j = 0; j < separator.length; j++) {
+          if (array[index + j] != separator[j]) return false;
+        }
+        return true;
+      }
+
+      @Override
+      public void postStop() {
+        try {
+          if (channel.isOpen()) channel.close();
+        } catch(Exception ex) {
+          // Remove when #21168 is fixed
+          throw new RuntimeException(ex);
+        }
+      }
+    };
+  }
+}
@@ -4,10 +4,11 @@
 package akka.stream.alpakka.file.javadsl;
 
 import akka.NotUsed;
+import akka.japi.Pair;
 import akka.stream.Attributes;
 import akka.stream.Outlet;
 import akka.stream.SourceShape;
-import akka.stream.javadsl.Framing;
+import akka.stream.alpakka.file.TailedChunk;
 import akka.stream.javadsl.Source;
 import akka.stream.stage.*;
 import akka.util.ByteString;
@@ -25,6 +26,8 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.Collections;
+import java.util.Map;
 
 /**
  * Read the entire contents of a file, and then when the end is reached, keep reading
@@ -44,7 +47,7 @@ public final class FileTailSource extends GraphStage<SourceShape<ByteString>> {
   private final SourceShape<ByteString> shape = SourceShape.of(out);
 
   // this is stateless, so can be shared among instances
-  private static final CompletionHandler<Integer, AsyncCallback<Try<Integer>>> completionHandler = new CompletionHandler<Integer, AsyncCallback<Try<Integer>>>() {
+  static final CompletionHandler<Integer, AsyncCallback<Try<Integer>>> completionHandler = new CompletionHandler<Integer, AsyncCallback<Try<Integer>>>() {
     @Override
     public void completed(Integer result, AsyncCallback<Try<Integer>> attachment) {
       attachment.invoke(new Success<>(result));
@@ -75,10 +78,12 @@ public final class FileTailSource extends GraphStage<SourceShape<ByteString>> {
     if (!Files.isReadable(path)) throw new IllegalArgumentException("No read permission for '" + path + "'");
 
     return new TimerGraphStageLogic(shape) {
-      private final ByteBuffer buffer = ByteBuffer.allocate(maxChunkSize);
       private final AsynchronousFileChannel channel = AsynchronousFileChannel.open(path, StandardOpenOption.READ);
 
+      private ByteBuffer buffer = ByteBuffer.allocate(maxChunkSize);
       private long position = startingPosition;
+      private boolean reading = false;
+      private ByteString prefetched = null;
       private AsyncCallback<Try<Integer>> chunkCallback;
 
       {
@@ -93,13 +98,13 @@ public final class FileTailSource extends GraphStage<SourceShape<ByteString>> {
       @Override
       public void preStart() {
         chunkCallback = createAsyncCallback((tryInteger) -> {
+          reading = false;
           if (tryInteger.isSuccess()) {
             int readBytes = tryInteger.get();
             if (readBytes > 0) {
-              buffer.flip();
-              push(out, ByteString.fromByteBuffer(buffer));
               position += readBytes;
-              buffer.clear();
+              prefetched = takeChunk(readBytes);
+              if (isAvailable(out)) doPull();
             } else {
               // hit end, try again in a while
               scheduleOnce("poll", pollingInterval);
@@ -114,14 +119,39 @@ public final class FileTailSource extends GraphStage<SourceShape<ByteString>> {
 
       @Override
       public void onTimer(Object timerKey) {
-        doPull();
+        read();
       }
 
 
       private void doPull() {
+        if (prefetched != null) {
+          push(out, prefetched);
+          prefetched = null;
+          // read the next chunk while the pushed one is processed downstream
+          read();
+        } else if (!reading && !isTimerActive("poll")) {
+          read();
+        }
+      }
+
+      private void read() {
+        reading = true;
+        buffer.clear();
         channel.read(buffer, position, chunkCallback, completionHandler);
       }
 
+      private ByteString takeChunk(int readBytes) {
+        if (readBytes < maxChunkSize / 2) {
+          // small reads, like appends at the end of the file, are copied so that the buffer can be read into again
+          return ByteString.fromArray(buffer.array(), 0, readBytes);
+        } else {
+          // the buffer is handed over to the chunk without copying, the next chunk is read into a new one
+          final ByteString chunk = ByteString.fromArrayUnsafe(buffer.array()).take(readBytes);
+          buffer = ByteBuffer.allocate(maxChunkSize);
+          return chunk;
+        }
+      }
+
       @Override
       public void postStop() {
         try {
@@ -154,6 +184,50 @@ public final class FileTailSource extends GraphStage<SourceShape<ByteString>> {
     return Source.fromGraph(new FileTailSource(path, maxChunkSize, startingPosition, pollingInterval));
   }
 
+  /**
+   * Java API: Tail a file that is rotated, emitting the path, the generation, the offset into the file and the bytes
+   * of every chunk read. When the path has been moved away and a new file created in its place, the rest of the moved
+   * file is read before the new file is tailed from its beginning. When the file has been truncated, it is tailed from
+   * its beginning again. Both start a new generation of the path, see {@link TailedChunk}. Files are checked for
+   * rotation every {@code pollingInterval}.
+   *
+   * @param path a file path to tail
+   * @param maxChunkSize The max emitted size of the `ByteString`s
+   * @param startingPosition Offset into the file present when the stream starts to start reading
+   * @param pollingInterval Interval between checks for new content and rotation
+   */
+  public static Source<TailedChunk, NotUsed> tailRotating(Path path, int maxChunkSize, long startingPosition, FiniteDuration pollingInterval) {
+    return akka.stream.alpakka.file.scaladsl.FileTailSource.tailRotating(path, maxChunkSize, startingPosition, pollingInterval).asJava();
+  }
+
+  /**
+   * Java API: Tail all files in a directory with names matching a glob pattern, like {@code *.log}, including files
+   * created after the stream has been started. All files are read concurrently and checked for rotation with a
+   * single timer every {@code pollingInterval}, rotated files are handled like with
+   * {@link #tailRotating(Path, int, long, FiniteDuration)}.
+   *
+   * @param directory Directory containing the files to tail
+   * @param glob Pattern the file names must match, see {@link java.nio.file.FileSystem#getPathMatcher(String)}
+   * @param maxChunkSize The max emitted size of the `ByteString`s
+   * @param pollingInterval Interval between checks for new content, new files and rotation
+   * @param startingPositions Offsets into the files present when the stream starts to start reading, by path
+   */
+  public static Source<TailedChunk, NotUsed> tailRotating(Path directory, String glob, int maxChunkSize, FiniteDuration pollingInterval, Map<Path, Long> startingPositions) {
+    scala.collection.immutable.Map<Path, Object> positions = new scala.collection.immutable.HashMap<>();
+    for (Map.Entry<Path, Long> position : startingPositions.entrySet()) {
+      positions = positions.updated(position.getKey(), position.getValue());
+    }
+    return akka.stream.alpakka.file.scaladsl.FileTailSource.tailRotating(directory, glob, maxChunkSize, pollingInterval, positions).asJava();
+  }
+
+  /**
+   * Java API: Same as {@link #tailRotating(Path, String, int, FiniteDuration, Map)} reading all files from their
+   * beginning.
+   */
+  public static Source<TailedChunk, NotUsed> tailRotating(Path directory, String glob, int maxChunkSize, FiniteDuration pollingInterval) {
+    return tailRotating(directory, glob, maxChunkSize, pollingInterval, Collections.emptyMap());
+  }
+
   /**
    * Java API: Read the entire contents of a file as text lines, and then when the end is reached, keep reading
    * newly appended data. Like the unix command `tail -f`.
@@ -169,11 +243,29 @@ public final class FileTailSource extends GraphStage<SourceShape<ByteString>> {
    * @param charset The charset of the file
    */
   public static Source<String, NotUsed> createLines(Path path, int maxLineSize, FiniteDuration pollingInterval, String lf, Charset charset) {
-    return create(path, maxLineSize, 0, pollingInterval)
-      .via(Framing.delimiter(ByteString.fromString(lf, charset.name()), maxLineSize))
+    return Source.fromGraph(new FileTailLinesSource<ByteString>(path, maxLineSize, 0, pollingInterval, ByteString.fromString(lf, charset.name()), (line, offset) -> line))
       .map(bytes -> bytes.decodeString(charset));
   }
 
+  /**
+   * Java API: Read the entire contents of a file as lines of bytes, and then when the end is reached, keep reading
+   * newly appended lines. Every line is emitted without its delimiter together with the offset in the file right after
+   * the delimiter, tailing can be restarted at the next line by passing that offset as {@code startingPosition}.
+   *
+   * The delimiter is searched for in the buffer the file is read into, so no separate framing stage is needed. If a
+   * line is longer than {@code maxLineSize} the stream will fail.
+   *
+   * @param path a file path to tail
+   * @param maxLineSize The max emitted size of the `ByteString`s
+   * @param startingPosition Offset into the file to start reading, must be the start of a line
+   * @param pollingInterval When the end has been reached, look for new content with this interval
+   * @param lf The character or characters used as line separator
+   * @param charset The charset of the file, used to encode the line separator
+   */
+  public static Source<Pair<ByteString, Long>, NotUsed> createLinesWithOffsets(Path path, int maxLineSize, long startingPosition, FiniteDuration pollingInterval, String lf, Charset charset) {
+    return Source.fromGraph(new FileTailLinesSource<Pair<ByteString, Long>>(path, maxLineSize, startingPosition, pollingInterval, ByteString.fromString(lf, charset.name()), Pair::create));
+  }
+
   /**
    * Java API: Same as {@link #createLines(Path, int, FiniteDuration, String, Charset)} but using the OS default line
    * separator and UTF-8 for charset
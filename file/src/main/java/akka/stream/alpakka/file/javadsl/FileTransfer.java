@@ -0,0 +1,53 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.file.javadsl;
+
+import akka.NotUsed;
+import akka.japi.Pair;
+import akka.stream.alpakka.file.FileTransferResult;
+import akka.stream.javadsl.Flow;
+
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Java API: Factory methods for flows transferring whole files with {@link java.nio.channels.FileChannel#transferTo},
+ * so that the bytes are copied by the operating system and never enter the JVM heap.
+ */
+public final class FileTransfer {
+
+  /**
+   * Transfer the file at the first path of every element to the channel, like a socket, in the second. Up to
+   * {@code parallelism} transfers run at the same time on the blocking IO dispatcher and their results are emitted
+   * in the order they complete. The channels must be in blocking mode and are not closed.
+   */
+  public static Flow<Pair<Path, WritableByteChannel>, FileTransferResult, NotUsed> toChannel(int parallelism) {
+    return Flow.<Pair<Path, WritableByteChannel>>create()
+      .map(Pair::toScala)
+      .via(akka.stream.alpakka.file.scaladsl.FileTransfer.toChannel(parallelism));
+  }
+
+  /**
+   * Transfer the file at the first path of every element to the second path, which is created or truncated. Up to
+   * {@code parallelism} transfers run at the same time on the blocking IO dispatcher and their results are emitted
+   * in the order they complete.
+   */
+  public static Flow<Pair<Path, Path>, FileTransferResult, NotUsed> toPath(int parallelism) {
+    return toPath(parallelism, new HashSet<>(Arrays.asList(StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)));
+  }
+
+  /**
+   * Same as {@link #toPath(int)} opening the target files with the given options.
+   */
+  public static Flow<Pair<Path, Path>, FileTransferResult, NotUsed> toPath(int parallelism, Set<OpenOption> options) {
+    return Flow.<Pair<Path, Path>>create()
+      .map(Pair::toScala)
+      .via(akka.stream.alpakka.file.scaladsl.FileTransfer.toPath(parallelism, scala.collection.JavaConverters.asScalaSetConverter(options).asScala().toSet()));
+  }
+}
@@ -0,0 +1,148 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.file.javadsl;
+
+import com.sun.nio.file.SensitivityWatchEventModifier;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+/**
+ * One {@link WatchService} per file system, shared by all event driven directory watches on it. A single daemon
+ * thread blocks on {@link WatchService#take()}, polls the events of every signalled key, resets it and hands the events
+ * to all listeners registered for the key, so idle watches cost neither timers nor wakeups.
+ *
+ * Registering a directory that is watched already returns the same key, so several listeners may share a key, and
+ * the key is only cancelled once the last of them has been removed. Listeners are called on the driver thread and
+ * must only hand the signal over, e.g. to an async callback of a stage.
+ */
+final class WatchServiceDriver {
+
+  /**
+   * The events of a signalled key, and whether the key is still valid after they have been polled. Listeners of a key
+   * that is no longer valid are removed after they have been called.
+   */
+  static final class Signal {
+    final WatchKey key;
+    final List<WatchEvent<?>> events;
+    final boolean valid;
+
+    Signal(WatchKey key, List<WatchEvent<?>> events, boolean valid) {
+      this.key = key;
+      this.events = events;
+      this.valid = valid;
+    }
+  }
+
+  private static final Map<FileSystem, WatchServiceDriver> drivers = new HashMap<>();
+
+  /**
+   * Returns the driver of the given file system, starting it if needed. Every call must be matched by a call to
+   * {@link #release()} once the caller has cancelled all of its keys.
+   */
+  static WatchServiceDriver acquire(FileSystem fileSystem) throws IOException {
+    synchronized (drivers) {
+      WatchServiceDriver driver = drivers.get(fileSystem);
+      if (driver == null) {
+        driver = new WatchServiceDriver(fileSystem);
+        drivers.put(fileSystem, driver);
+      }
+      driver.users += 1;
+      return driver;
+    }
+  }
+
+  private final FileSystem fileSystem;
+  private final WatchService service;
+  private final Map<WatchKey, List<Consumer<Signal>>> listeners = new HashMap<>();
+  // guarded by drivers
+  private int users = 0;
+
+  private WatchServiceDriver(FileSystem fileSystem) throws IOException {
+    this.fileSystem = fileSystem;
+    this.service = fileSystem.newWatchService();
+    final Thread thread = new Thread(this::run, "alpakka-file-watch-service-driver");
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Watches a directory for created, modified and deleted entries, calling {@code listener} whenever its key is signalled.
+   */
+  WatchKey register(Path directory, Consumer<Signal> listener) throws IOException {
+    synchronized (listeners) {
+      final WatchKey key = directory.register(
+        service,
+        new WatchEvent.Kind<?>[] { ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE, OVERFLOW },
+        // this is com.sun internal, but the service is useless on OSX without it
+        SensitivityWatchEventModifier.HIGH
+      );
+      listeners.computeIfAbsent(key, k -> new ArrayList<>()).add(listener);
+      return key;
+    }
+  }
+
+  /**
+   * Removes a listener of a key, and cancels the key if no other listener is left.
+   */
+  void cancel(WatchKey key, Consumer<Signal> listener) {
+    synchronized (listeners) {
+      final List<Consumer<Signal>> keyListeners = listeners.get(key);
+      if (keyListeners != null) {
+        keyListeners.remove(listener);
+        if (keyListeners.isEmpty()) {
+          listeners.remove(key);
+          key.cancel();
+        }
+      }
+    }
+  }
+
+  /**
+   * Closes the watch service, and with it stops the driver thread, once the last user has released it.
+   */
+  void release() throws IOException {
+    synchronized (drivers) {
+      users -= 1;
+      if (users == 0) {
+        drivers.remove(fileSystem);
+        service.close();
+      }
+    }
+  }
+
+  private void run() {
+    try {
+      while (true) {
+        final WatchKey key = service.take();
+        final List<WatchEvent<?>> events = key.pollEvents();
+        final boolean valid = key.reset();
+        final List<Consumer<Signal>> keyListeners;
+        synchronized (listeners) {
+          // keys without listeners have been cancelled in the meantime
+          final List<Consumer<Signal>> registered = valid ? listeners.get(key) : listeners.remove(key);
+          if (registered == null) continue;
+          keyListeners = new ArrayList<>(registered);
+        }
+        final Signal signal = new Signal(key, events, valid);
+        for (Consumer<Signal> listener: keyListeners) listener.accept(signal);
+      }
+    } catch (ClosedWatchServiceException | InterruptedException ex) {
+      // released by all users
+    }
+  }
+
+}
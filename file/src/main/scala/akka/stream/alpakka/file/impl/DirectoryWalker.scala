@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.file.impl
+
+import java.nio.file.attribute.BasicFileAttributes
+import java.nio.file.{Files, LinkOption, Path}
+import java.util
+
+import akka.stream.stage.{AsyncCallback, GraphStage, GraphStageLogic, OutHandler}
+import akka.stream.{ActorMaterializer, Attributes, Outlet, SourceShape}
+
+import scala.collection.JavaConverters._
+import scala.collection.immutable
+import scala.concurrent.{ExecutionContext, Future}
+import scala.util.{Failure, Success, Try}
+
+/**
+ * Walks a directory tree, listing up to `parallelism` directories at the same time on the blocking IO dispatcher.
+ *
+ * Directories are listed ahead of emission as long as less than `MaxBufferedEntries` listed entries wait for demand.
+ * Unordered, entries are emitted as soon as the listing of their directory has completed. Ordered, entries are emitted
+ * depth first, in the same order as `Files.walk`, and the directories needed next are listed first.
+ */
+private[file] final class DirectoryWalker(root: Path, parallelism: Int, maxDepth: Int, ordered: Boolean)
+    extends GraphStage[SourceShape[(Path, BasicFileAttributes)]] {
+  import DirectoryWalker._
+
+  require(parallelism > 0, "parallelism must be at least 1")
+
+  val out = Outlet[(Path, BasicFileAttributes)]("DirectoryWalker.out")
+  override val shape = SourceShape(out)
+
+  override protected def initialAttributes: Attributes = Attributes.name("DirectoryWalker")
+
+  override def createLogic(inheritedAttributes: Attributes): GraphStageLogic =
+    new GraphStageLogic(shape) with OutHandler {
+      // unordered: a queue of listed entries, ordered: a stack of the entries and listings still to emit
+      private val pending = new util.ArrayDeque[Pending]()
+      // listings that have not been started yet, the ones to start first at the head
+      private val unstarted = new util.ArrayDeque[Listing]()
+      private var buffered = 0
+      private var inFlight = 0
+      private var listed: AsyncCallback[(Listing, Try[immutable.Seq[Entry]])] = _
+      private implicit var ec: ExecutionContext = _
+
+      override def preStart(): Unit = {
+        ec = materializer match {
+          case m: ActorMaterializer => m.system.dispatchers.lookup("akka.stream.default-blocking-io-dispatcher")
+          case x => throw new IllegalArgumentException(s"Stage only works with the ActorMaterializer, was: $x")
+        }
+        listed = getAsyncCallback[(Listing, Try[immutable.Seq[Entry]])] {
+          case (listing, Success(entries)) =>
+            inFlight -= 1
+            if (ordered) listing.entries = entries
+            else entries.foreach(pending.add)
+            buffered += entries.size
+            entries.reverseIterator.foreach(enqueue)
+            startListings()
+            if (isAvailable(out)) emitNext()
+          case (_, Failure(ex)) =>
+            failStage(ex)
+        }
+        val entry = new Entry(root, Files.readAttributes(root, classOf[BasicFileAttributes]), 0)
+        pending.push(entry)
+        enqueue(entry)
+        startListings()
+      }
+
+      override def onPull(): Unit = emitNext()
+
+      private def enqueue(entry: Entry): Unit =
+        if (entry.attributes.isDirectory && entry.depth < maxDepth) {
+          entry.listing = new Listing(entry.path, entry.depth + 1)
+          unstarted.addFirst(entry.listing)
+        }
+
+      private def startListings(): Unit = {
+        while (inFlight < parallelism && !unstarted.isEmpty && buffered < MaxBufferedEntries) {
+          start(unstarted.poll())
+        }
+        // the listing needed next in depth first order is started even if many entries are buffered already
+        if (ordered && inFlight < parallelism) pending.peek() match {
+          case listing: Listing => start(listing)
+          case _ =>
+        }
+      }
+
+      private def start(listing: Listing): Unit =
+        if (!listing.started) {
+          listing.started = true
+          inFlight += 1
+          Future(list(listing)).onComplete(result => listed.invoke((listing, result)))
+        }
+
+      private def emitNext(): Unit =
+        pending.peek() match {
+          case null =>
+            if (inFlight == 0 && unstarted.isEmpty) completeStage()
+          case entry: Entry =>
+            pending.pop()
+            if (entry.depth > 0) buffered -= 1
+            if (ordered && entry.listing != null) pending.push(entry.listing)
+            push(out, (entry.path, entry.attributes))
+            startListings()
+          case listing: Listing =>
+            if (listing.entries != null) {
+              pending.pop()
+              listing.entries.reverseIterator.foreach(pending.push)
+              emitNext()
+            } else startListings()
+        }
+
+      setHandler(out, this)
+    }
+}
+
+private[file] object DirectoryWalker {
+  val MaxBufferedEntries = 10000
+
+  private sealed trait Pending
+
+  private final class Entry(val path: Path, val attributes: BasicFileAttributes, val depth: Int) extends Pending {
+    // the listing of this directory, if it is to be listed
+    var listing: Listing = _
+  }
+
+  private final class Listing(val directory: Path, val depth: Int) extends Pending {
+    var started = false
+    var entries: immutable.Seq[Entry] = _
+  }
+
+  private def list(listing: Listing): immutable.Seq[Entry] = {
+    val stream = Files.list(listing.directory)
+    try {
+      stream.iterator.asScala.map { path =>
+        val attributes = Files.readAttributes(path, classOf[BasicFileAttributes], LinkOption.NOFOLLOW_LINKS)
+        new Entry(path, attributes, listing.depth)
+      }.toVector
+    } finally stream.close()
+  }
+}
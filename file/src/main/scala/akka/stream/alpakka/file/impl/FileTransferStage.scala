@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.file.impl
+
+import java.nio.channels.{FileChannel, WritableByteChannel}
+import java.nio.file.{OpenOption, Path, StandardOpenOption}
+import java.util
+
+import akka.stream.alpakka.file.FileTransferResult
+import akka.stream.stage.{AsyncCallback, GraphStage, GraphStageLogic, InHandler, OutHandler}
+import akka.stream.{ActorMaterializer, Attributes, FlowShape, Inlet, Outlet}
+
+import scala.concurrent.duration._
+import scala.concurrent.{ExecutionContext, Future}
+import scala.util.{Failure, Success, Try}
+
+/**
+ * Runs up to `parallelism` transfers at the same time on the blocking IO dispatcher, emitting their results in the
+ * order they complete.
+ */
+private[file] final class FileTransferStage[T](parallelism: Int, transfer: T => FileTransferResult)
+    extends GraphStage[FlowShape[T, FileTransferResult]] {
+
+  require(parallelism > 0, "parallelism must be at least 1")
+
+  val in = Inlet[T]("FileTransferStage.in")
+  val out = Outlet[FileTransferResult]("FileTransferStage.out")
+  override val shape = FlowShape(in, out)
+
+  override protected def initialAttributes: Attributes = Attributes.name("FileTransferStage")
+
+  override def createLogic(inheritedAttributes: Attributes): GraphStageLogic =
+    new GraphStageLogic(shape) with InHandler with OutHandler {
+      private val completed = new util.ArrayDeque[FileTransferResult]()
+      private var inFlight = 0
+      private var transferred: AsyncCallback[Try[FileTransferResult]] = _
+      private implicit var ec: ExecutionContext = _
+
+      override def preStart(): Unit = {
+        ec = materializer match {
+          case m: ActorMaterializer => m.system.dispatchers.lookup("akka.stream.default-blocking-io-dispatcher")
+          case x => throw new IllegalArgumentException(s"Stage only works with the ActorMaterializer, was: $x")
+        }
+        transferred = getAsyncCallback[Try[FileTransferResult]] {
+          case Success(result) =>
+            inFlight -= 1
+            if (isAvailable(out)) push(out, result)
+            else completed.add(result)
+            pullIfNeeded()
+            completeIfDone()
+          case Failure(ex) =>
+            failStage(ex)
+        }
+        pullIfNeeded()
+      }
+
+      override def onPush(): Unit = {
+        val element = grab(in)
+        inFlight += 1
+        Future(transfer(element)).onComplete(transferred.invoke)
+        pullIfNeeded()
+      }
+
+      override def onPull(): Unit =
+        if (!completed.isEmpty) {
+          push(out, completed.poll())
+          pullIfNeeded()
+          completeIfDone()
+        }
+
+      override def onUpstreamFinish(): Unit = completeIfDone()
+
+      private def pullIfNeeded(): Unit =
+        if (inFlight + completed.size < parallelism && !hasBeenPulled(in) && !isClosed(in)) pull(in)
+
+      private def completeIfDone(): Unit =
+        if (isClosed(in) && inFlight == 0 && completed.isEmpty) completeStage()
+
+      setHandlers(in, out, this)
+    }
+}
+
+private[file] object FileTransferStage {
+
+  /**
+   * Transfers the whole file to the channel with `FileChannel.transferTo`, which lets the operating system copy the
+   * bytes without them passing through the JVM, e.g. with `sendfile` for sockets. The channel must be in blocking mode.
+   */
+  def toChannel(source: Path, target: WritableByteChannel): FileTransferResult = {
+    val start = System.nanoTime()
+    val channel = FileChannel.open(source, StandardOpenOption.READ)
+    try {
+      var size = channel.size()
+      var position = 0L
+      while (position < size) {
+        val transferred = channel.transferTo(position, size - position, target)
+        // nothing is transferred beyond the end of a file that has been truncated in the meantime
+        if (transferred == 0 && channel.size() <= position) size = position
+        else position += transferred
+      }
+      new FileTransferResult(source, position, (System.nanoTime() - start).nanos)
+    } finally channel.close()
+  }
+
+  /**
+   * Transfers the whole file to the target path, opened with `options`.
+   */
+  def toPath(source: Path, target: Path, options: Set[OpenOption]): FileTransferResult = {
+    val channel = FileChannel.open(target, options.toArray: _*)
+    try toChannel(source, channel)
+    finally channel.close()
+  }
+}
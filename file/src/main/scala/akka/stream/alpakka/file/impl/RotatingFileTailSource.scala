@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.file.impl
+
+import java.nio.ByteBuffer
+import java.nio.channels.FileChannel
+import java.nio.file.attribute.BasicFileAttributes
+import java.nio.file.{Files, NoSuchFileException, Path, StandardOpenOption}
+
+import akka.stream.alpakka.file.TailedChunk
+import akka.stream.stage.{GraphStage, GraphStageLogic, OutHandler, TimerGraphStageLogic}
+import akka.stream.{ActorAttributes, Attributes, Outlet, SourceShape}
+import akka.util.ByteString
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable
+import scala.concurrent.duration.FiniteDuration
+
+/**
+ * Tails every file of `directory` whose name is accepted by `matches`, emitting a [[TailedChunk]] for every chunk read.
+ *
+ * All files are checked with a single timer every `pollingInterval`, for new matching files and for rotation: when a
+ * path refers to another file than the one being tailed, the old file is read up to its end before the new one is
+ * tailed from its beginning, and when a file has become shorter than the position read up to, it is tailed from its
+ * beginning again. Both start a new generation of the path. Rotation by renaming is recognized by the file key, where
+ * the file system provides one, which also keeps a rotated file that still matches from being tailed again under its
+ * new name.
+ *
+ * @param startingPositions Offsets to start reading the files present when the stream starts at, 0 by default
+ */
+private[file] final class RotatingFileTailSource(directory: Path,
+                                                 matches: Path => Boolean,
+                                                 maxChunkSize: Int,
+                                                 startingPositions: Map[Path, Long],
+                                                 pollingInterval: FiniteDuration)
+    extends GraphStage[SourceShape[TailedChunk]] {
+  import RotatingFileTailSource._
+
+  require(Files.isDirectory(directory), s"Path must be a directory, $directory isn't")
+
+  val out = Outlet[TailedChunk]("RotatingFileTailSource.out")
+  override val shape = SourceShape(out)
+
+  override protected def initialAttributes: Attributes =
+    Attributes
+      .name("RotatingFileTailSource")
+      .and(ActorAttributes.dispatcher("akka.stream.default-blocking-io-dispatcher"))
+
+  override def createLogic(inheritedAttributes: Attributes): GraphStageLogic =
+    new TimerGraphStageLogic(shape) with OutHandler {
+      private val tailed = mutable.LinkedHashMap.empty[Path, Tailed]
+      private val chunks = mutable.Queue.empty[TailedChunk]
+      private val buffer = ByteBuffer.allocate(maxChunkSize)
+      // the last generation of every path whose rotated file has been read up to its end
+      private val generations = mutable.Map.empty[Path, Int]
+      // file keys of rotated files that have been read up to their end, while they are still in the directory
+      private var drained = Set.empty[AnyRef]
+
+      override def preStart(): Unit = {
+        scan(startingPositions)
+        schedulePeriodically("poll", pollingInterval)
+      }
+
+      override def onPull(): Unit = {
+        if (chunks.isEmpty) readAll()
+        if (chunks.nonEmpty) push(out, chunks.dequeue())
+      }
+
+      override protected def onTimer(timerKey: Any): Unit = {
+        tailed.values.foreach(detectRotation)
+        scan(Map.empty)
+        if (isAvailable(out)) onPull()
+      }
+
+      override def postStop(): Unit =
+        tailed.values.foreach(_.channel.close())
+
+      private def scan(positions: Map[Path, Long]): Unit = {
+        val files = Files.list(directory)
+        try {
+          val known = drained ++ tailed.values.map(_.fileKey).filter(_ != null)
+          val seen = mutable.Set.empty[AnyRef]
+          files.iterator.asScala
+            .filter(path => matches(path) && !tailed.contains(path) && Files.isRegularFile(path))
+            .foreach { path =>
+              val key = fileKey(path).flatMap(Option(_))
+              seen ++= key
+              // a rotated file that has been renamed to a matching name is not tailed again
+              if (!key.exists(known.contains)) {
+                val generation = generations.get(path).fold(0)(_ + 1)
+                open(path, generation, positions.getOrElse(path, 0L)).foreach(tailed.put(path, _))
+              }
+            }
+          drained = drained.intersect(seen)
+        } finally files.close()
+      }
+
+      private def detectRotation(file: Tailed): Unit =
+        if (!file.rotated) {
+          val key = fileKey(file.path)
+          if (key.isEmpty || (file.fileKey != null && !key.contains(file.fileKey))) file.rotated = true
+          else if (file.channel.size < file.position) {
+            file.generation += 1
+            file.position = 0
+          }
+        }
+
+      // reads a chunk of every file, so that all files make progress
+      private def readAll(): Unit =
+        tailed.values.toList.foreach { file =>
+          buffer.clear()
+          val read = file.channel.read(buffer, file.position)
+          if (read > 0) {
+            val bytes = ByteString.fromArray(buffer.array, 0, read)
+            chunks.enqueue(new TailedChunk(file.path, file.generation, file.position, bytes))
+            file.position += read
+          } else if (file.rotated) {
+            // the rotated file has been read up to its end, switch over to its successor
+            file.channel.close()
+            tailed.remove(file.path)
+            generations(file.path) = file.generation
+            if (file.fileKey != null) drained += file.fileKey
+            open(file.path, file.generation + 1, 0L).foreach(tailed.put(file.path, _))
+          }
+        }
+
+      setHandler(out, this)
+    }
+}
+
+private[file] object RotatingFileTailSource {
+
+  private final class Tailed(val path: Path,
+                             val channel: FileChannel,
+                             val fileKey: AnyRef,
+                             var generation: Int,
+                             var position: Long) {
+    var rotated = false
+  }
+
+  private def fileKey(path: Path): Option[AnyRef] =
+    try Some(Files.readAttributes(path, classOf[BasicFileAttributes]).fileKey)
+    catch { case _: NoSuchFileException => None }
+
+  private def open(path: Path, generation: Int, position: Long): Option[Tailed] =
+    try {
+      val channel = FileChannel.open(path, StandardOpenOption.READ)
+      Some(new Tailed(path, channel, fileKey(path).orNull, generation, position))
+    } catch { case _: NoSuchFileException => None }
+}
@@ -3,9 +3,11 @@
  */
 package akka.stream.alpakka.file.scaladsl
 
+import java.nio.file.attribute.BasicFileAttributes
 import java.nio.file.{FileVisitOption, Files, Path}
 
 import akka.NotUsed
+import akka.stream.alpakka.file.impl.DirectoryWalker
 import akka.stream.scaladsl.{Source, StreamConverters}
 
 import scala.collection.immutable
@@ -43,4 +45,30 @@ object Directory {
     StreamConverters.fromJavaStream(factory)
   }
 
+  /**
+   * Recursively list files and directories in the given directory and its subdirectories, listing up to
+   * `parallelism` directories at the same time on the blocking IO dispatcher. This pays off where listing a
+   * directory takes a round trip, like on network file systems. Symbolic links are not followed.
+   *
+   * @param parallelism Maximum number of directories listed at the same time
+   * @param maxDepth Limits the depth of the directory structure to walk through
+   * @param ordered Whether to emit in the depth first order of [[walk]], or as soon as a directory has been listed
+   */
+  def walkParallel(directory: Path,
+                   parallelism: Int,
+                   maxDepth: Int = Int.MaxValue,
+                   ordered: Boolean = false): Source[Path, NotUsed] =
+    walkParallelWithAttributes(directory, parallelism, maxDepth, ordered).map(_._1)
+
+  /**
+   * Same as [[walkParallel]], but emits the attributes of every path as well, which are read while listing anyway.
+   */
+  def walkParallelWithAttributes(directory: Path,
+                                 parallelism: Int,
+                                 maxDepth: Int = Int.MaxValue,
+                                 ordered: Boolean = false): Source[(Path, BasicFileAttributes), NotUsed] = {
+    require(Files.isDirectory(directory), s"Path must be a directory, $directory isn't")
+    Source.fromGraph(new DirectoryWalker(directory, parallelism, maxDepth, ordered))
+  }
+
 }
@@ -33,4 +33,106 @@ object DirectoryChangesSource {
       new akka.stream.alpakka.file.javadsl.DirectoryChangesSource(directoryPath, pollInterval, maxBufferSize, tupler)
     )
 
+  /**
+   * Scala API: Watch directory without polling and emit changes as a stream of tuples containing the path and type of
+   * change. Changes are signalled by a watch service shared with all other event driven sources on the same file
+   * system, which blocks a single thread while nothing happens.
+   *
+   * @param directoryPath Directory to watch
+   * @param maxBufferSize Maximum number of buffered directory changes before the stage fails
+   */
+  def apply(directoryPath: Path, maxBufferSize: Int): Source[(Path, DirectoryChange), NotUsed] =
+    Source.fromGraph(new akka.stream.alpakka.file.javadsl.DirectoryChangesSource(directoryPath, maxBufferSize, tupler))
+
+  /**
+   * Scala API: Same as the polling `apply` without a coalescing window, but coalesces the changes of every path
+   * within `coalesceWindow` after its first change into a single change.
+   *
+   * @param directoryPath  Directory to watch
+   * @param pollInterval   Interval between polls to the JDK watch service when a push comes in and there was no changes
+   * @param maxBufferSize  Maximum number of buffered changed paths before the stage fails
+   * @param coalesceWindow Time for which the changes of a path are coalesced
+   */
+  def apply(directoryPath: Path,
+            pollInterval: FiniteDuration,
+            maxBufferSize: Int,
+            coalesceWindow: FiniteDuration): Source[(Path, DirectoryChange), NotUsed] =
+    Source.fromGraph(
+      new akka.stream.alpakka.file.javadsl.DirectoryChangesSource(directoryPath,
+                                                                  pollInterval,
+                                                                  maxBufferSize,
+                                                                  false,
+                                                                  coalesceWindow,
+                                                                  tupler)
+    )
+
+  /**
+   * Scala API: Same as the event driven `apply` without a coalescing window, but coalesces the changes of every path
+   * within `coalesceWindow` after its first change into a single change.
+   *
+   * @param directoryPath  Directory to watch
+   * @param maxBufferSize  Maximum number of buffered changed paths before the stage fails
+   * @param coalesceWindow Time for which the changes of a path are coalesced
+   */
+  def apply(directoryPath: Path,
+            maxBufferSize: Int,
+            coalesceWindow: FiniteDuration): Source[(Path, DirectoryChange), NotUsed] =
+    Source.fromGraph(
+      new akka.stream.alpakka.file.javadsl.DirectoryChangesSource(directoryPath,
+                                                                  null,
+                                                                  maxBufferSize,
+                                                                  false,
+                                                                  coalesceWindow,
+                                                                  tupler)
+    )
+
+  /**
+   * Scala API: Watch a directory and all of its subdirectories with a single watch service, including directories
+   * created after the stream has been started, and emit changes as a stream of tuples containing the path and type of
+   * change.
+   *
+   * @param root          Root of the directory tree to watch
+   * @param pollInterval  Interval between polls to the JDK watch service when a push comes in and there was no changes, if
+   *                      the JDK implementation is slow, it will not help lowering this
+   * @param maxBufferSize Maximum number of buffered directory changes before the stage fails
+   */
+  def recursive(root: Path,
+                pollInterval: FiniteDuration,
+                maxBufferSize: Int): Source[(Path, DirectoryChange), NotUsed] =
+    Source.fromGraph(
+      new akka.stream.alpakka.file.javadsl.DirectoryChangesSource(root, pollInterval, maxBufferSize, true, tupler)
+    )
+
+  /**
+   * Scala API: Watch a directory and all of its subdirectories without polling, notified of changes by the watch
+   * service shared with all other event driven sources on the same file system.
+   *
+   * @param root          Root of the directory tree to watch
+   * @param maxBufferSize Maximum number of buffered directory changes before the stage fails
+   */
+  def recursive(root: Path, maxBufferSize: Int): Source[(Path, DirectoryChange), NotUsed] =
+    Source.fromGraph(
+      new akka.stream.alpakka.file.javadsl.DirectoryChangesSource(root, null, maxBufferSize, true, tupler)
+    )
+
+  /**
+   * Scala API: Same as the event driven `recursive` without a coalescing window, but coalesces the changes of every
+   * path within `coalesceWindow` after its first change into a single change.
+   *
+   * @param root           Root of the directory tree to watch
+   * @param maxBufferSize  Maximum number of buffered changed paths before the stage fails
+   * @param coalesceWindow Time for which the changes of a path are coalesced
+   */
+  def recursive(root: Path,
+                maxBufferSize: Int,
+                coalesceWindow: FiniteDuration): Source[(Path, DirectoryChange), NotUsed] =
+    Source.fromGraph(
+      new akka.stream.alpakka.file.javadsl.DirectoryChangesSource(root,
+                                                                  null,
+                                                                  maxBufferSize,
+                                                                  true,
+                                                                  coalesceWindow,
+                                                                  tupler)
+    )
+
 }
@@ -5,9 +5,12 @@ package akka.stream.alpakka.file.scaladsl
 
 import java.nio.charset.{Charset, StandardCharsets}
 import java.nio.file.Path
+import java.util.function.BiFunction
 
 import akka.NotUsed
-import akka.stream.alpakka.file.javadsl.{FileTailSource => JavaFileTailSource}
+import akka.stream.alpakka.file.TailedChunk
+import akka.stream.alpakka.file.impl.RotatingFileTailSource
+import akka.stream.alpakka.file.javadsl.{FileTailLinesSource, FileTailSource => JavaFileTailSource}
 import akka.stream.scaladsl.Source
 import akka.util.ByteString
 
@@ -19,6 +22,10 @@ import scala.concurrent.duration.FiniteDuration
  */
 object FileTailSource {
 
+  private val lineTupler = new BiFunction[ByteString, java.lang.Long, (ByteString, Long)] {
+    override def apply(line: ByteString, offset: java.lang.Long): (ByteString, Long) = (line, offset)
+  }
+
   /**
    * Scala API: Read the entire contents of a file, and then when the end is reached, keep reading
    * newly appended data. Like the unix command `tail -f`.
@@ -36,6 +43,59 @@ object FileTailSource {
             pollingInterval: FiniteDuration): Source[ByteString, NotUsed] =
     Source.fromGraph(new JavaFileTailSource(path, maxChunkSize, startingPosition, pollingInterval))
 
+  /**
+   * Scala API: Tail a file that is rotated, emitting the path, the generation, the offset into the file and the bytes
+   * of every chunk read. When the path has been moved away and a new file created in its place, the rest of the moved
+   * file is read before the new file is tailed from its beginning. When the file has been truncated, it is tailed from
+   * its beginning again. Both start a new generation of the path, see [[TailedChunk]]. Files are checked for rotation
+   * every `pollingInterval`.
+   *
+   * @param path             a file path to tail
+   * @param maxChunkSize     The max emitted size of the `ByteString`s
+   * @param startingPosition Offset into the file present when the stream starts to start reading
+   * @param pollingInterval  Interval between checks for new content and rotation
+   */
+  def tailRotating(path: Path,
+                   maxChunkSize: Int,
+                   startingPosition: Long,
+                   pollingInterval: FiniteDuration): Source[TailedChunk, NotUsed] = {
+    val directory = Option(path.getParent).getOrElse(path.toAbsolutePath.getParent)
+    val fileName = path.getFileName
+    Source.fromGraph(
+      new RotatingFileTailSource(directory,
+                                 _.getFileName == fileName,
+                                 maxChunkSize,
+                                 Map(directory.resolve(fileName) -> startingPosition),
+                                 pollingInterval)
+    )
+  }
+
+  /**
+   * Scala API: Tail all files in a directory with names matching a glob pattern, like `*.log`, including files
+   * created after the stream has been started, emitting a [[TailedChunk]] for every chunk read. All files are read concurrently and checked for rotation with a single timer every `pollingInterval`,
+   * rotated files are handled like with the single path `tailRotating`.
+   *
+   * @param directory         Directory containing the files to tail
+   * @param glob              Pattern the file names must match, see [[java.nio.file.FileSystem#getPathMatcher]]
+   * @param maxChunkSize      The max emitted size of the `ByteString`s
+   * @param pollingInterval   Interval between checks for new content, new files and rotation
+   * @param startingPositions Offsets into the files present when the stream starts to start reading, by path
+   */
+  def tailRotating(directory: Path,
+                   glob: String,
+                   maxChunkSize: Int,
+                   pollingInterval: FiniteDuration,
+                   startingPositions: Map[Path, Long] = Map.empty): Source[TailedChunk, NotUsed] = {
+    val matcher = directory.getFileSystem.getPathMatcher("glob:" + glob)
+    Source.fromGraph(
+      new RotatingFileTailSource(directory,
+                                 path => matcher.matches(path.getFileName),
+                                 maxChunkSize,
+                                 startingPositions,
+                                 pollingInterval)
+    )
+  }
+
   /**
    * Scala API: Read the entire contents of a file as text lines, and then when the end is reached, keep reading
    * newly appended data. Like the unix command `tail -f`.
@@ -55,8 +115,36 @@ object FileTailSource {
             pollingInterval: FiniteDuration,
             lf: String = System.getProperty("line.separator"),
             charset: Charset = StandardCharsets.UTF_8): Source[String, NotUsed] =
-    apply(path, maxLineSize, 0, pollingInterval)
-      .via(akka.stream.scaladsl.Framing.delimiter(ByteString.fromString(lf, charset.name), maxLineSize, false))
-      .map(_.decodeString(charset))
+    linesWithOffsets(path, maxLineSize, 0, pollingInterval, lf, charset).map(_._1.decodeString(charset))
+
+  /**
+   * Scala API: Read the entire contents of a file as lines of bytes, and then when the end is reached, keep reading
+   * newly appended lines. Every line is emitted without its delimiter together with the offset in the file right after
+   * the delimiter, tailing can be restarted at the next line by passing that offset as `startingPosition`.
+   *
+   * The delimiter is searched for in the buffer the file is read into, so no separate framing stage is needed. If a
+   * line is longer than `maxLineSize` the stream will fail.
+   *
+   * @param path             a file path to tail
+   * @param maxLineSize      The max emitted size of the `ByteString`s
+   * @param startingPosition Offset into the file to start reading, must be the start of a line
+   * @param pollingInterval  When the end has been reached, look for new content with this interval
+   * @param lf               The character or characters used as line separator, default is fetched from OS
+   * @param charset          The charset of the file, used to encode the line separator, defaults to UTF-8
+   */
+  def linesWithOffsets(path: Path,
+                       maxLineSize: Int,
+                       startingPosition: Long,
+                       pollingInterval: FiniteDuration,
+                       lf: String = System.getProperty("line.separator"),
+                       charset: Charset = StandardCharsets.UTF_8): Source[(ByteString, Long), NotUsed] =
+    Source.fromGraph(
+      new FileTailLinesSource(path,
+                              maxLineSize,
+                              startingPosition,
+                              pollingInterval,
+                              ByteString.fromString(lf, charset.name),
+                              lineTupler)
+    )
 
 }
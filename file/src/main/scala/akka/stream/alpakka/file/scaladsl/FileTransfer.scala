@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.file.scaladsl
+
+import java.nio.channels.WritableByteChannel
+import java.nio.file.{OpenOption, Path, StandardOpenOption}
+
+import akka.NotUsed
+import akka.stream.alpakka.file.FileTransferResult
+import akka.stream.alpakka.file.impl.FileTransferStage
+import akka.stream.scaladsl.Flow
+
+/**
+ * Scala API: Factory methods for flows transferring whole files with `FileChannel.transferTo`, so that the bytes are
+ * copied by the operating system and never enter the JVM heap.
+ */
+object FileTransfer {
+
+  private val CreateOrTruncate: Set[OpenOption] =
+    Set(StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)
+
+  /**
+   * Transfer the file at the first path of every element to the channel, like a socket, in the second. Up to
+   * `parallelism` transfers run at the same time on the blocking IO dispatcher and their results are emitted in the
+   * order they complete. The channels must be in blocking mode and are not closed.
+   */
+  def toChannel(parallelism: Int): Flow[(Path, WritableByteChannel), FileTransferResult, NotUsed] =
+    Flow.fromGraph(new FileTransferStage[(Path, WritableByteChannel)](parallelism, {
+      case (source, target) => FileTransferStage.toChannel(source, target)
+    }))
+
+  /**
+   * Transfer the file at the first path of every element to the second path. Up to `parallelism` transfers run at
+   * the same time on the blocking IO dispatcher and their results are emitted in the order they complete.
+   *
+   * @param options How to open the target files, by default they are created or truncated
+   */
+  def toPath(parallelism: Int,
+             options: Set[OpenOption] = CreateOrTruncate): Flow[(Path, Path), FileTransferResult, NotUsed] =
+    Flow.fromGraph(new FileTransferStage[(Path, Path)](parallelism, {
+      case (source, target) => FileTransferStage.toPath(source, target, options)
+    }))
+}
@@ -90,6 +90,163 @@ public class DirectoryChangesSourceTest {
   }
 
 
+  @Test
+  public void eventDrivenSourcesShouldEmitOnDirectoryChanges() throws Exception {
+    final Path otherDir = Files.createDirectory(fs.getPath("otherdir"));
+    final TestSubscriber.Probe<Pair<Path, DirectoryChange>> probe1 = TestSubscriber.probe(system);
+    final TestSubscriber.Probe<Pair<Path, DirectoryChange>> probe2 = TestSubscriber.probe(system);
+
+    // both sources are driven by the same watch service
+    DirectoryChangesSource.create(testDir, 200).runWith(Sink.fromSubscriber(probe1), materializer);
+    DirectoryChangesSource.create(otherDir, 200).runWith(Sink.fromSubscriber(probe2), materializer);
+
+    probe1.request(1);
+    probe2.request(1);
+
+    final Path createdFile1 = Files.createFile(testDir.resolve("test3file1.sample"));
+    final Path createdFile2 = Files.createFile(otherDir.resolve("test3file2.sample"));
+
+    final Pair<Path, DirectoryChange> pair1 = probe1.expectNext();
+    assertEquals(pair1.second(), DirectoryChange.Creation);
+    assertEquals(pair1.first(), createdFile1);
+
+    final Pair<Path, DirectoryChange> pair2 = probe2.expectNext();
+    assertEquals(pair2.second(), DirectoryChange.Creation);
+    assertEquals(pair2.first(), createdFile2);
+
+    Files.delete(createdFile1);
+
+    final Pair<Path, DirectoryChange> pair3 = probe1.requestNext();
+    assertEquals(pair3.second(), DirectoryChange.Deletion);
+    assertEquals(pair3.first(), createdFile1);
+
+    probe1.cancel();
+    probe2.cancel();
+  }
+
+  @Test
+  public void eventDrivenSourcesShouldShareTheWatchOfADirectory() throws Exception {
+    final TestSubscriber.Probe<Pair<Path, DirectoryChange>> probe1 = TestSubscriber.probe(system);
+    final TestSubscriber.Probe<Pair<Path, DirectoryChange>> probe2 = TestSubscriber.probe(system);
+
+    // both sources watch the same directory with the same key
+    DirectoryChangesSource.create(testDir, 200).runWith(Sink.fromSubscriber(probe1), materializer);
+    DirectoryChangesSource.create(testDir, 200).runWith(Sink.fromSubscriber(probe2), materializer);
+
+    probe1.request(1);
+    probe2.request(1);
+
+    final Path createdFile = Files.createFile(testDir.resolve("test5file1.sample"));
+
+    final Pair<Path, DirectoryChange> pair1 = probe1.expectNext();
+    assertEquals(pair1.second(), DirectoryChange.Creation);
+    assertEquals(pair1.first(), createdFile);
+
+    final Pair<Path, DirectoryChange> pair2 = probe2.expectNext();
+    assertEquals(pair2.second(), DirectoryChange.Creation);
+    assertEquals(pair2.first(), createdFile);
+
+    // the other source keeps watching the directory
+    probe1.cancel();
+    Files.delete(createdFile);
+
+    final Pair<Path, DirectoryChange> pair3 = probe2.requestNext();
+    assertEquals(pair3.second(), DirectoryChange.Deletion);
+    assertEquals(pair3.first(), createdFile);
+
+    probe2.cancel();
+  }
+
+  @Test
+  public void recursiveSourceShouldEmitChangesInNewSubdirectories() throws Exception {
+    final Path subdir = Files.createDirectory(testDir.resolve("subdir"));
+    final TestSubscriber.Probe<Pair<Path, DirectoryChange>> probe = TestSubscriber.probe(system);
+
+    DirectoryChangesSource.recursive(testDir, 200).runWith(Sink.fromSubscriber(probe), materializer);
+
+    probe.request(1);
+
+    final Path nestedFile = Files.createFile(subdir.resolve("test4file1.sample"));
+
+    final Pair<Path, DirectoryChange> pair1 = probe.expectNext();
+    assertEquals(pair1.second(), DirectoryChange.Creation);
+    assertEquals(pair1.first(), nestedFile);
+
+    final Path newSubdir = Files.createDirectory(subdir.resolve("newsubdir"));
+
+    final Pair<Path, DirectoryChange> pair2 = probe.requestNext();
+    assertEquals(pair2.second(), DirectoryChange.Creation);
+    assertEquals(pair2.first(), newSubdir);
+
+    final Path newNestedFile = Files.createFile(newSubdir.resolve("test4file2.sample"));
+
+    final Pair<Path, DirectoryChange> pair3 = probe.requestNext();
+    assertEquals(pair3.second(), DirectoryChange.Creation);
+    assertEquals(pair3.first(), newNestedFile);
+
+    probe.cancel();
+  }
+
+  @Test
+  public void recursiveSourceShouldWatchRecreatedSubdirectories() throws Exception {
+    final Path subdir = Files.createDirectory(testDir.resolve("subdir"));
+    final TestSubscriber.Probe<Pair<Path, DirectoryChange>> probe = TestSubscriber.probe(system);
+
+    DirectoryChangesSource.recursive(testDir, FiniteDuration.create(1, TimeUnit.SECONDS), 200)
+      .runWith(Sink.fromSubscriber(probe), materializer);
+
+    probe.request(1);
+
+    // both changes are seen by the watch service before the source polls it
+    Files.delete(subdir);
+    Thread.sleep(100);
+    Files.createDirectory(subdir);
+
+    final Pair<Path, DirectoryChange> pair1 = probe.expectNext();
+    assertEquals(pair1.second(), DirectoryChange.Deletion);
+    assertEquals(pair1.first(), subdir);
+
+    final Pair<Path, DirectoryChange> pair2 = probe.requestNext();
+    assertEquals(pair2.second(), DirectoryChange.Creation);
+    assertEquals(pair2.first(), subdir);
+
+    final Path nestedFile = Files.createFile(subdir.resolve("test6file1.sample"));
+
+    final Pair<Path, DirectoryChange> pair3 = probe.requestNext();
+    assertEquals(pair3.second(), DirectoryChange.Creation);
+    assertEquals(pair3.first(), nestedFile);
+
+    probe.cancel();
+  }
+
+  @Test
+  public void coalescingSourceShouldEmitOneChangePerPath() throws Exception {
+    final TestSubscriber.Probe<Pair<Path, DirectoryChange>> probe = TestSubscriber.probe(system);
+
+    // every change is seen as such by the watch service before the next one is made, so buffering them all would
+    // exceed the buffer size
+    DirectoryChangesSource.create(testDir, 2, FiniteDuration.create(1, TimeUnit.SECONDS))
+      .runWith(Sink.fromSubscriber(probe), materializer);
+
+    probe.request(2);
+
+    final Path createdFile = Files.createFile(testDir.resolve("test5file1.sample"));
+    for (int i = 0; i < 5; i++) {
+      Thread.sleep(50);
+      Files.write(createdFile, ("Some data " + i).getBytes());
+    }
+    final Path deletedFile = Files.createFile(testDir.resolve("test5file2.sample"));
+    Thread.sleep(50);
+    Files.delete(deletedFile);
+
+    final Pair<Path, DirectoryChange> pair = probe.expectNext();
+    assertEquals(pair.second(), DirectoryChange.Creation);
+    assertEquals(pair.first(), createdFile);
+    probe.expectNoMsg(FiniteDuration.create(1500, TimeUnit.MILLISECONDS));
+
+    probe.cancel();
+  }
+
   @Test
   public void emitMultipleChanges() throws Exception {
     final TestSubscriber.Probe<Pair<Path, DirectoryChange>> probe =
@@ -5,10 +5,12 @@ package akka.stream.alpakka.file.javadsl;
 
 import akka.NotUsed;
 import akka.actor.ActorSystem;
+import akka.japi.Pair;
 import akka.stream.ActorMaterializer;
 import akka.stream.KillSwitches;
 import akka.stream.Materializer;
 import akka.stream.UniqueKillSwitch;
+import akka.stream.alpakka.file.TailedChunk;
 import akka.stream.javadsl.Keep;
 import akka.stream.javadsl.Sink;
 import akka.stream.javadsl.Source;
@@ -33,6 +35,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.nio.file.StandardOpenOption.APPEND;
 import static java.nio.file.StandardOpenOption.WRITE;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 
 public class FileTailSourceTest {
@@ -77,6 +80,166 @@ public class FileTailSourceTest {
 
   }
 
+  @Test
+  public void canReadAFileLargerThanTheChunkSize() throws Exception {
+    final Path path = fs.getPath("/file");
+    final StringBuilder dataInFile = new StringBuilder();
+    for (int i = 0; i < 1000; i++) dataInFile.append(i).append('\n');
+    Files.write(path, dataInFile.toString().getBytes(UTF_8));
+
+    final Source<ByteString, NotUsed> source = akka.stream.alpakka.file.javadsl.FileTailSource.create(
+      path,
+      100, // chunk size
+      0, // starting position
+      FiniteDuration.create(250, TimeUnit.MILLISECONDS));
+
+    final TestSubscriber.Probe<ByteString> subscriber = TestSubscriber.probe(system);
+
+    final UniqueKillSwitch killSwitch =
+      source.viaMat(KillSwitches.single(), Keep.right())
+        .to(Sink.fromSubscriber(subscriber))
+        .run(materializer);
+
+    ByteString result = ByteString.empty();
+    while (result.size() < dataInFile.length()) {
+      final ByteString chunk = subscriber.requestNext();
+      assertTrue(chunk.size() <= 100);
+      result = result.concat(chunk);
+    }
+    assertEquals(dataInFile.toString(), result.utf8String());
+
+    killSwitch.shutdown();
+    subscriber.expectComplete();
+  }
+
+  @Test
+  public void finishesReadingARotatedFileBeforeTailingItsSuccessor() throws Exception {
+    final Path dir = fs.getPath("/logs");
+    Files.createDirectory(dir);
+    final Path path = dir.resolve("app.log");
+    Files.write(path, "first\n".getBytes(UTF_8));
+
+    // #tail-rotating
+    final Source<TailedChunk, NotUsed> source = akka.stream.alpakka.file.javadsl.FileTailSource.tailRotating(
+      path,
+      8192, // chunk size
+      0, // starting position
+      FiniteDuration.create(100, TimeUnit.MILLISECONDS));
+    // #tail-rotating
+
+    final TestSubscriber.Probe<TailedChunk> subscriber = TestSubscriber.probe(system);
+
+    final UniqueKillSwitch killSwitch =
+      source.viaMat(KillSwitches.single(), Keep.right())
+        .to(Sink.fromSubscriber(subscriber))
+        .run(materializer);
+
+    assertEquals(new TailedChunk(path, 0, 0, ByteString.fromString("first\n")), subscriber.requestNext());
+
+    Files.write(path, "rest\n".getBytes(UTF_8), WRITE, APPEND);
+    Files.move(path, dir.resolve("app.log.1"));
+    Files.write(path, "second\n".getBytes(UTF_8));
+
+    assertEquals(new TailedChunk(path, 0, 6, ByteString.fromString("rest\n")), subscriber.requestNext());
+    assertEquals(new TailedChunk(path, 1, 0, ByteString.fromString("second\n")), subscriber.requestNext());
+
+    killSwitch.shutdown();
+    subscriber.expectComplete();
+  }
+
+  @Test
+  public void startsANewGenerationWhenTheFileIsTruncated() throws Exception {
+    final Path dir = fs.getPath("/logs");
+    Files.createDirectory(dir);
+    final Path path = dir.resolve("app.log");
+    Files.write(path, "first\n".getBytes(UTF_8));
+
+    final Source<TailedChunk, NotUsed> source = akka.stream.alpakka.file.javadsl.FileTailSource.tailRotating(
+      path,
+      8192, // chunk size
+      0, // starting position
+      FiniteDuration.create(100, TimeUnit.MILLISECONDS));
+
+    final TestSubscriber.Probe<TailedChunk> subscriber = TestSubscriber.probe(system);
+
+    final UniqueKillSwitch killSwitch =
+      source.viaMat(KillSwitches.single(), Keep.right())
+        .to(Sink.fromSubscriber(subscriber))
+        .run(materializer);
+
+    assertEquals(new TailedChunk(path, 0, 0, ByteString.fromString("first\n")), subscriber.requestNext());
+
+    // the offset 6 of generation 0 must not be used as a checkpoint for the truncated file
+    Files.write(path, "new\n".getBytes(UTF_8));
+    assertEquals(new TailedChunk(path, 1, 0, ByteString.fromString("new\n")), subscriber.requestNext());
+
+    killSwitch.shutdown();
+    subscriber.expectComplete();
+  }
+
+  @Test
+  public void tailsAllFilesMatchingAGlob() throws Exception {
+    final Path dir = fs.getPath("/logs");
+    Files.createDirectory(dir);
+    Files.write(dir.resolve("a.log"), "a\n".getBytes(UTF_8));
+    Files.write(dir.resolve("ignored.txt"), "ignored\n".getBytes(UTF_8));
+
+    final Source<TailedChunk, NotUsed> source = akka.stream.alpakka.file.javadsl.FileTailSource.tailRotating(
+      dir,
+      "*.log",
+      8192, // chunk size
+      FiniteDuration.create(100, TimeUnit.MILLISECONDS));
+
+    final TestSubscriber.Probe<TailedChunk> subscriber = TestSubscriber.probe(system);
+
+    final UniqueKillSwitch killSwitch =
+      source.viaMat(KillSwitches.single(), Keep.right())
+        .to(Sink.fromSubscriber(subscriber))
+        .run(materializer);
+
+    assertEquals(new TailedChunk(dir.resolve("a.log"), 0, 0, ByteString.fromString("a\n")), subscriber.requestNext());
+
+    Files.write(dir.resolve("b.log"), "b\n".getBytes(UTF_8));
+    assertEquals(new TailedChunk(dir.resolve("b.log"), 0, 0, ByteString.fromString("b\n")), subscriber.requestNext());
+
+    killSwitch.shutdown();
+    subscriber.expectComplete();
+  }
+
+  @Test
+  public void doesNotTailARotatedFileAgainUnderItsNewName() throws Exception {
+    final Path dir = fs.getPath("/logs");
+    Files.createDirectory(dir);
+    final Path path = dir.resolve("app.log");
+    Files.write(path, "first\n".getBytes(UTF_8));
+
+    final Source<TailedChunk, NotUsed> source = akka.stream.alpakka.file.javadsl.FileTailSource.tailRotating(
+      dir,
+      "app.log*",
+      8192, // chunk size
+      FiniteDuration.create(100, TimeUnit.MILLISECONDS));
+
+    final TestSubscriber.Probe<TailedChunk> subscriber = TestSubscriber.probe(system);
+
+    final UniqueKillSwitch killSwitch =
+      source.viaMat(KillSwitches.single(), Keep.right())
+        .to(Sink.fromSubscriber(subscriber))
+        .run(materializer);
+
+    assertEquals(new TailedChunk(path, 0, 0, ByteString.fromString("first\n")), subscriber.requestNext());
+
+    // the rotated file is read up to its end before its successor exists
+    Files.move(path, dir.resolve("app.log.1"));
+    subscriber.request(1);
+    subscriber.expectNoMsg(FiniteDuration.create(500, TimeUnit.MILLISECONDS));
+
+    Files.write(path, "second\n".getBytes(UTF_8));
+    assertEquals(new TailedChunk(path, 1, 0, ByteString.fromString("second\n")), subscriber.expectNext());
+
+    killSwitch.shutdown();
+    subscriber.expectComplete();
+  }
+
   @Test
   public void willReadNewLinesAppendedAfterReadingTheInitialContents() throws Exception {
     final Path path = fs.getPath("/file");
@@ -112,6 +275,39 @@ public class FileTailSourceTest {
     subscriber.expectComplete();
   }
 
+  @Test
+  public void emitsLinesWithTheOffsetAfterTheirDelimiter() throws Exception {
+    final Path path = fs.getPath("/file");
+    Files.write(path, "a\r\nbc\r\nde".getBytes(UTF_8));
+
+    // #lines-with-offsets
+    final Source<Pair<ByteString, Long>, NotUsed> source = akka.stream.alpakka.file.javadsl.FileTailSource.createLinesWithOffsets(
+      path,
+      8192, // max line size
+      3, // starting position, right after the first line
+      FiniteDuration.create(250, TimeUnit.MILLISECONDS),
+      "\r\n",
+      StandardCharsets.UTF_8
+    );
+    // #lines-with-offsets
+
+    final TestSubscriber.Probe<Pair<ByteString, Long>> subscriber = TestSubscriber.probe(system);
+
+    final UniqueKillSwitch killSwitch =
+      source.viaMat(KillSwitches.single(), Keep.right())
+        .to(Sink.fromSubscriber(subscriber))
+        .run(materializer);
+
+    assertEquals(Pair.create(ByteString.fromString("bc"), 7L), subscriber.requestNext());
+
+    subscriber.request(1);
+    Files.write(path, "f\r\n".getBytes(UTF_8), WRITE, APPEND);
+    assertEquals(Pair.create(ByteString.fromString("def"), 12L), subscriber.expectNext());
+
+    killSwitch.shutdown();
+    subscriber.expectComplete();
+  }
+
   @After
   public void tearDown() throws Exception {
     fs.close();
@@ -60,6 +60,48 @@ class DirectorySpec
       val result = files.runWith(Sink.seq).futureValue
       result shouldEqual List(root, subdir1, file1, subdir2, file2)
     }
+
+    "walk a file tree in parallel" in {
+      val root = fs.getPath("walkparallel")
+      val paths = for {
+        n <- 0 to 9
+        subdir = Files.createDirectories(root.resolve(s"subdir$n"))
+        path <- Seq(subdir, Files.createFile(subdir.resolve(s"file$n")))
+      } yield path
+
+      // #walk-parallel
+      val files: Source[Path, NotUsed] = Directory.walkParallel(root, parallelism = 4)
+      // #walk-parallel
+
+      val result = files.runWith(Sink.seq).futureValue
+      result.toSet shouldEqual (paths :+ root).toSet
+      result should have size (paths.size + 1)
+    }
+
+    "walk a file tree in parallel in the same order as walk" in {
+      val root = fs.getPath("walkparallelordered")
+      for (n <- 0 to 9) {
+        val subdir = Files.createDirectories(root.resolve(s"subdir$n").resolve("nested"))
+        Files.createFile(subdir.resolve(s"file$n"))
+      }
+
+      val result = Directory.walkParallel(root, parallelism = 4, ordered = true).runWith(Sink.seq).futureValue
+      result shouldEqual Directory.walk(root).runWith(Sink.seq).futureValue
+    }
+
+    "walk a file tree in parallel with attributes and limited depth" in {
+      val root = fs.getPath("walkparalleldepth")
+      val subdir = Files.createDirectories(root.resolve("subdir"))
+      val file = Files.createFile(root.resolve("file"))
+      Files.createFile(subdir.resolve("nested"))
+
+      val result = Directory
+        .walkParallelWithAttributes(root, parallelism = 2, maxDepth = 1, ordered = true)
+        .map { case (path, attributes) => path -> attributes.isDirectory }
+        .runWith(Sink.seq)
+        .futureValue
+      result.toSet shouldEqual Set(root -> true, subdir -> true, file -> false)
+    }
   }
 
   override protected def afterAll(): Unit =
@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.file.scaladsl
+
+import java.io.ByteArrayOutputStream
+import java.nio.channels.Channels
+import java.nio.charset.StandardCharsets.UTF_8
+import java.nio.file.Files
+
+import akka.actor.ActorSystem
+import akka.stream.alpakka.file.FileTransferResult
+import akka.stream.ActorMaterializer
+import akka.stream.scaladsl.{Sink, Source}
+import akka.testkit.TestKit
+import com.google.common.jimfs.{Configuration, Jimfs}
+import org.scalatest.concurrent.ScalaFutures
+import org.scalatest.{BeforeAndAfterAll, Matchers, WordSpecLike}
+
+import scala.concurrent.Future
+
+class FileTransferSpec
+    extends TestKit(ActorSystem("filetransferspec"))
+    with WordSpecLike
+    with Matchers
+    with BeforeAndAfterAll
+    with ScalaFutures {
+
+  private val fs = Jimfs.newFileSystem(Configuration.forCurrentPlatform.toBuilder.build)
+  private implicit val mat = ActorMaterializer()
+
+  "The file transfer flows" should {
+    "transfer files to other paths" in {
+      val dir = Files.createDirectories(fs.getPath("topath"))
+      val transfers = (0 to 9).map { n =>
+        val source = Files.write(dir.resolve(s"source$n"), s"contents of file $n".getBytes(UTF_8))
+        source -> dir.resolve(s"target$n")
+      }
+
+      // #transfer-to-path
+      val transferred: Future[Seq[FileTransferResult]] =
+        Source(transfers).via(FileTransfer.toPath(parallelism = 4)).runWith(Sink.seq)
+      // #transfer-to-path
+
+      val results = transferred.futureValue
+
+      results.map(result => result.source -> result.bytes).toSet shouldEqual transfers.map {
+        case (source, _) => source -> Files.size(source)
+      }.toSet
+      transfers.foreach {
+        case (source, target) => Files.readAllBytes(target) shouldEqual Files.readAllBytes(source)
+      }
+    }
+
+    "transfer files to channels" in {
+      val source = Files.write(fs.getPath("tochannel"), ("x" * 100000).getBytes(UTF_8))
+      val bytes = new ByteArrayOutputStream()
+
+      val result = Source
+        .single(source -> Channels.newChannel(bytes))
+        .via(FileTransfer.toChannel(parallelism = 1))
+        .runWith(Sink.head)
+        .futureValue
+
+      result.bytes shouldEqual 100000
+      bytes.toByteArray shouldEqual Files.readAllBytes(source)
+    }
+  }
+
+  override protected def afterAll(): Unit =
+    fs.close()
+}
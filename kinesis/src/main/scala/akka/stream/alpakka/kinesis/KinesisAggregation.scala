@@ -0,0 +1,140 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.kinesis
+
+import java.nio.charset.StandardCharsets.UTF_8
+import java.security.MessageDigest
+
+import akka.util.{ByteString, ByteStringBuilder}
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry
+
+import scala.collection.{immutable, mutable}
+
+/**
+ * Packs records into a single Kinesis record in the format of the Kinesis Producer Library, which the Kinesis Client
+ * Library and the KPL deaggregation modules unpack into the original records again: the magic bytes, an
+ * `AggregatedRecord` protobuf message holding the partition keys, explicit hash keys and data of all records, and the
+ * MD5 digest of that message.
+ *
+ * See https://github.com/awslabs/amazon-kinesis-producer/blob/master/aggregation-format.md
+ */
+private[kinesis] object KinesisAggregation {
+
+  val MaxRecordBytes = 1024 * 1024
+  val MaxRequestBytes = 5 * 1024 * 1024
+
+  private val MagicBytes = ByteString(Array(0xF3, 0x89, 0x9A, 0xC2).map(_.toByte))
+
+  /**
+   * The bytes of an aggregated record besides its records: the magic bytes and the MD5 digest.
+   */
+  val AggregationOverhead = MagicBytes.size + 16
+
+  // upper bound of the protobuf framing of a record and its table entries
+  private val RecordOverhead = 32
+
+  /**
+   * The bytes a record counts against the Kinesis limits.
+   */
+  def size(entry: PutRecordsRequestEntry): Int =
+    entry.getData.remaining + entry.getPartitionKey.getBytes(UTF_8).length
+
+  /**
+   * An upper bound of the bytes a record adds to an aggregated record.
+   */
+  def aggregatedSize(entry: PutRecordsRequestEntry): Int =
+    size(entry) + Option(entry.getExplicitHashKey).fold(0)(_.length) + RecordOverhead
+
+  /**
+   * Groups `entries` by their partition key and explicit hash key, in the order of the first entry of every group. Only
+   * records with the same keys are certain to be published to the same shard, so only those may be aggregated.
+   */
+  def groupByKeys(entries: immutable.Seq[PutRecordsRequestEntry]): List[immutable.Seq[PutRecordsRequestEntry]] = {
+    val groups = mutable.LinkedHashMap.empty[(String, String), Vector[PutRecordsRequestEntry]]
+    entries.foreach { entry =>
+      val keys = (entry.getPartitionKey, entry.getExplicitHashKey)
+      groups(keys) = groups.getOrElse(keys, Vector.empty) :+ entry
+    }
+    groups.values.toList
+  }
+
+  /**
+   * Splits `entries` into consecutive groups of at most `maxBytes` according to `size`. A single entry larger than
+   * `maxBytes` forms a group of its own.
+   */
+  def splitBySize(entries: immutable.Seq[PutRecordsRequestEntry],
+                  maxBytes: Int,
+                  size: PutRecordsRequestEntry => Int): List[immutable.Seq[PutRecordsRequestEntry]] = {
+    val groups = List.newBuilder[immutable.Seq[PutRecordsRequestEntry]]
+    val current = Vector.newBuilder[PutRecordsRequestEntry]
+    var currentBytes = 0
+    entries.foreach { entry =>
+      val entryBytes = size(entry)
+      if (currentBytes > 0 && currentBytes + entryBytes > maxBytes) {
+        groups += current.result()
+        current.clear()
+        currentBytes = 0
+      }
+      current += entry
+      currentBytes += entryBytes
+    }
+    if (currentBytes > 0) groups += current.result()
+    groups.result()
+  }
+
+  /**
+   * Aggregates `entries`, which must share their partition key and explicit hash key, into one record with those keys.
+   * A single entry is returned as it is.
+   */
+  def aggregate(entries: immutable.Seq[PutRecordsRequestEntry]): PutRecordsRequestEntry =
+    if (entries.size == 1) entries.head
+    else {
+      val partitionKeys = entries.map(_.getPartitionKey).distinct
+      val explicitHashKeys = entries.flatMap(e => Option(e.getExplicitHashKey)).distinct
+      val partitionKeyIndex = partitionKeys.zipWithIndex.toMap
+      val explicitHashKeyIndex = explicitHashKeys.zipWithIndex.toMap
+
+      val message = new ByteStringBuilder
+      partitionKeys.foreach(key => field(message, 1, ByteString(key)))
+      explicitHashKeys.foreach(key => field(message, 2, ByteString(key)))
+      entries.foreach { entry =>
+        val record = new ByteStringBuilder
+        record.putByte((1 << 3).toByte)
+        varint(record, partitionKeyIndex(entry.getPartitionKey))
+        Option(entry.getExplicitHashKey).foreach { key =>
+          record.putByte((2 << 3).toByte)
+          varint(record, explicitHashKeyIndex(key))
+        }
+        field(record, 3, ByteString(entry.getData.duplicate))
+        field(message, 3, record.result())
+      }
+
+      val bytes = message.result()
+      val digest = MessageDigest.getInstance("MD5").digest(bytes.toArray)
+      val data = MagicBytes ++ bytes ++ ByteString(digest)
+
+      val head = entries.head
+      new PutRecordsRequestEntry()
+        .withPartitionKey(head.getPartitionKey)
+        .withExplicitHashKey(head.getExplicitHashKey)
+        .withData(data.asByteBuffer)
+    }
+
+  // a length delimited protobuf field
+  private def field(builder: ByteStringBuilder, number: Int, bytes: ByteString): Unit = {
+    builder.putByte(((number << 3) | 2).toByte)
+    varint(builder, bytes.size)
+    builder.append(bytes)
+  }
+
+  private def varint(builder: ByteStringBuilder, value: Long): Unit = {
+    var remaining = value
+    while ((remaining & ~0x7FL) != 0) {
+      builder.putByte(((remaining & 0x7F) | 0x80).toByte)
+      remaining >>>= 7
+    }
+    builder.putByte(remaining.toByte)
+  }
+
+}
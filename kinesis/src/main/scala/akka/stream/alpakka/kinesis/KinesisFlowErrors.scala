@@ -0,0 +1,16 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.kinesis
+
+import com.amazonaws.services.kinesis.model.PutRecordsResultEntry
+
+import scala.util.control.NoStackTrace
+
+object KinesisFlowErrors {
+  sealed trait KinesisFlowError extends NoStackTrace
+  final case class FailurePublishingRecords(cause: Throwable) extends RuntimeException(cause) with KinesisFlowError
+  final case class ErrorPublishingRecords(attempts: Int, records: Seq[PutRecordsResultEntry])
+      extends RuntimeException(s"Unable to publish ${records.size} records after $attempts attempts")
+      with KinesisFlowError
+}
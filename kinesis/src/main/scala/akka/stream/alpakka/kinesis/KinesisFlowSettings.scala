@@ -0,0 +1,46 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.kinesis
+
+import scala.concurrent.duration._
+
+object KinesisFlowSettings {
+
+  val Defaults = KinesisFlowSettings(parallelism = 1,
+                                     maxBatchSize = 500,
+                                     maxBatchWait = 100.millis,
+                                     maxRetries = 5,
+                                     retryInitialTimeout = 100.millis)
+
+  /**
+   * Java API: Create settings
+   */
+  def create(parallelism: Int,
+             maxBatchSize: Int,
+             maxBatchWait: FiniteDuration,
+             maxRetries: Int,
+             retryInitialTimeout: FiniteDuration) =
+    KinesisFlowSettings(parallelism, maxBatchSize, maxBatchWait, maxRetries, retryInitialTimeout)
+
+}
+
+/**
+ * @param parallelism         Number of `PutRecords` requests in flight at a time, including those waiting to be retried
+ * @param maxBatchSize        Maximum number of records sent with one request
+ * @param maxBatchWait        Maximum time to wait for more records before sending a batch that is not full
+ * @param maxRetries          Number of times failed records of a batch are sent again before the stage fails
+ * @param retryInitialTimeout Time to wait before retrying failed records, doubled for every further retry
+ */
+case class KinesisFlowSettings(parallelism: Int,
+                               maxBatchSize: Int,
+                               maxBatchWait: FiniteDuration,
+                               maxRetries: Int,
+                               retryInitialTimeout: FiniteDuration) {
+  require(parallelism >= 1, "Parallelism must be at least 1")
+  require(
+    maxBatchSize >= 1 && maxBatchSize <= 500,
+    "Limit must be between 1 and 500. See: http://docs.aws.amazon.com/kinesis/latest/APIReference/API_PutRecords.html"
+  )
+  require(maxRetries >= 0, "Number of retries must not be negative")
+}
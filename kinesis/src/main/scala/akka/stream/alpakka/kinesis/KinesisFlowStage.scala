@@ -0,0 +1,151 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.kinesis
+
+import akka.stream.alpakka.kinesis.KinesisFlowErrors.{ErrorPublishingRecords, FailurePublishingRecords}
+import akka.stream.alpakka.kinesis.KinesisFlowStage._
+import akka.stream.stage._
+import akka.stream.{Attributes, FlowShape, Inlet, Outlet}
+import com.amazonaws.{AmazonClientException, AmazonServiceException}
+import com.amazonaws.handlers.AsyncHandler
+import com.amazonaws.services.kinesis.AmazonKinesisAsync
+import com.amazonaws.services.kinesis.model._
+
+import scala.collection.JavaConverters._
+import scala.collection.immutable
+import scala.collection.mutable
+import scala.concurrent.duration.FiniteDuration
+import scala.util.{Failure, Success, Try}
+
+object KinesisFlowStage {
+
+  private final class Batch(val entries: Vector[PutRecordsRequestEntry]) {
+    val results = new Array[PutRecordsResultEntry](entries.size)
+    // indices of the entries still to be published
+    var pending: immutable.Seq[Int] = entries.indices
+    var attempt = 1
+  }
+
+  // failures of a request that may succeed when sent again, all others fail the stage at once
+  private def isRetryable(ex: Throwable): Boolean = ex match {
+    case _: ProvisionedThroughputExceededException => true
+    case ex: AmazonServiceException => ex.getErrorType == AmazonServiceException.ErrorType.Service
+    case ex: AmazonClientException => ex.isRetryable
+    case _ => false
+  }
+
+}
+
+/**
+ * Publishes every incoming batch of records with one `PutRecords` request, with up to `parallelism` requests in
+ * flight, and emits the results of a batch once all of its records have been published. Records the result reports
+ * as failed, typically because the shard's throughput has been exceeded, are sent again after `retryInitialTimeout`,
+ * doubled for every further attempt, as are requests failing on exceeded throughput, on an error of the service or on
+ * a retryable client error. Results are emitted in the order the batches complete.
+ */
+class KinesisFlowStage(streamName: String,
+                       parallelism: Int,
+                       maxRetries: Int,
+                       retryInitialTimeout: FiniteDuration,
+                       amazonKinesisAsync: => AmazonKinesisAsync)
+    extends GraphStage[FlowShape[immutable.Seq[PutRecordsRequestEntry], immutable.Seq[PutRecordsResultEntry]]] {
+
+  private val in = Inlet[immutable.Seq[PutRecordsRequestEntry]]("KinesisFlowStage.in")
+  private val out = Outlet[immutable.Seq[PutRecordsResultEntry]]("KinesisFlowStage.out")
+
+  override def shape: FlowShape[immutable.Seq[PutRecordsRequestEntry], immutable.Seq[PutRecordsResultEntry]] =
+    FlowShape(in, out)
+
+  override def createLogic(inheritedAttributes: Attributes): GraphStageLogic =
+    new TimerGraphStageLogic(shape) with StageLogging with InHandler with OutHandler {
+
+      // batches being published or waiting to be retried
+      private[this] var inFlight = 0
+      private[this] val completed = mutable.Queue.empty[immutable.Seq[PutRecordsResultEntry]]
+      private[this] var putRecordsCallback: AsyncCallback[(Batch, Try[PutRecordsResult])] = _
+
+      override def preStart(): Unit = {
+        putRecordsCallback = getAsyncCallback[(Batch, Try[PutRecordsResult])] {
+          case (batch, Success(result)) => handleResult(batch, result)
+          case (batch, Failure(ex)) => handleFailure(batch, ex)
+        }
+        pull(in)
+      }
+
+      override def onPush(): Unit = {
+        val entries = grab(in)
+        if (entries.nonEmpty) {
+          inFlight += 1
+          putRecords(new Batch(entries.toVector))
+        }
+        tryPull()
+      }
+
+      override def onUpstreamFinish(): Unit = checkForCompletion()
+
+      override def onPull(): Unit = {
+        if (completed.nonEmpty) push(out, completed.dequeue())
+        checkForCompletion()
+        tryPull()
+      }
+
+      override protected def onTimer(timerKey: Any): Unit = timerKey match {
+        case batch: Batch => putRecords(batch)
+      }
+
+      private def handleResult(batch: Batch, result: PutRecordsResult): Unit = {
+        val failed = batch.pending.zip(result.getRecords.asScala).filter {
+          case (index, entry) =>
+            batch.results(index) = entry
+            entry.getErrorCode != null
+        }
+        if (failed.isEmpty) {
+          inFlight -= 1
+          completed.enqueue(batch.results.toList)
+          if (isAvailable(out)) onPull()
+          else tryPull()
+        } else if (batch.attempt > maxRetries) {
+          failStage(ErrorPublishingRecords(batch.attempt, failed.map(_._2)))
+        } else {
+          log.debug("PutRecords to stream {} failed for {} records, retrying", streamName, failed.size)
+          batch.pending = failed.map(_._1)
+          retry(batch)
+        }
+      }
+
+      private def handleFailure(batch: Batch, ex: Throwable): Unit =
+        if (batch.attempt > maxRetries || !isRetryable(ex)) {
+          log.error(ex, "PutRecords to stream {} failed", streamName)
+          failStage(FailurePublishingRecords(ex))
+        } else retry(batch)
+
+      private def retry(batch: Batch): Unit = {
+        scheduleOnce(batch, retryInitialTimeout * (1L << (batch.attempt - 1)))
+        batch.attempt += 1
+      }
+
+      private def putRecords(batch: Batch): Unit = {
+        val request = new PutRecordsRequest()
+          .withStreamName(streamName)
+          .withRecords(batch.pending.map(batch.entries).asJava)
+        amazonKinesisAsync.putRecordsAsync(
+          request,
+          new AsyncHandler[PutRecordsRequest, PutRecordsResult] {
+            override def onError(exception: Exception): Unit = putRecordsCallback.invoke((batch, Failure(exception)))
+            override def onSuccess(request: PutRecordsRequest, result: PutRecordsResult): Unit =
+              putRecordsCallback.invoke((batch, Success(result)))
+          }
+        )
+      }
+
+      private def tryPull(): Unit =
+        if (inFlight + completed.size < parallelism && !isClosed(in) && !hasBeenPulled(in)) pull(in)
+
+      private def checkForCompletion(): Unit =
+        if (isClosed(in) && inFlight == 0 && completed.isEmpty) completeStage()
+
+      setHandlers(in, out, this)
+    }
+
+}
@@ -18,6 +18,7 @@ import com.amazonaws.services.kinesis.model._
 
 import scala.collection.JavaConverters._
 import scala.collection.mutable
+import scala.concurrent.duration._
 
 object KinesisSourceStage {
 
@@ -46,9 +47,17 @@ class KinesisSourceStage(shardSettings: ShardSettings, amazonKinesisAsync: => Am
       import shardSettings._
 
       private[this] var iterator: String = _
-      private[this] var buffer = mutable.Queue.empty[Record]
+      // the records of every response not yet emitted, in the order they have been returned
+      private[this] val batches = mutable.Queue.empty[Iterator[Record]]
+      private[this] var bufferedRecords = 0
+      private[this] var bufferedBytes = 0L
+      private[this] var requesting = false
       private[this] var self: StageActor = _
 
+      // token bucket limiting the rate of GetRecords requests, allowing a burst of one second's worth of requests
+      private[this] var tokens = readsPerSecond
+      private[this] var lastRefill = System.nanoTime()
+
       override def preStart(): Unit = {
         self = getStageActor(awaitingShardIterator)
         getShardIterator()
@@ -61,8 +70,8 @@ class KinesisSourceStage(shardSettings: ShardSettings, amazonKinesisAsync: => Am
       private def awaitingShardIterator(in: (ActorRef, Any)): Unit = in match {
         case ((_, GetShardIteratorSuccess(result))) => {
           iterator = result.getShardIterator
-          self.become(awaitingRecords)
-          requestRecords(self.ref)
+          self.become(reading)
+          requestRecords()
         }
         case ((_, GetShardIteratorFailure(_))) => {
           log.error("Failed to get a shard iterator for shard {}", shardId)
@@ -71,45 +80,72 @@ class KinesisSourceStage(shardSettings: ShardSettings, amazonKinesisAsync: => Am
         case ((_, Pump)) => ()
       }
 
-      private def awaitingRecords(in: (ActorRef, Any)): Unit = in match {
+      private def reading(in: (ActorRef, Any)): Unit = in match {
         case ((_, GetRecordsSuccess(result))) => {
+          requesting = false
           val records = result.getRecords.asScala
-          Option(result.getNextShardIterator).fold {
-            log.info("Shard {} returned a null iterator and will now complete.", shardId)
-            completeStage()
-          } {
-            iterator = _
-          }
           if (records.nonEmpty) {
-            records.foreach(buffer.enqueue(_))
-            self.become(ready)
-            self.ref ! Pump
-          } else {
+            batches.enqueue(records.iterator)
+            bufferedRecords += records.size
+            bufferedBytes += records.map(_.getData.remaining.toLong).sum
+          }
+          iterator = result.getNextShardIterator
+          if (iterator == null) {
+            log.info("Shard {} returned a null iterator and will complete once its records have been emitted.",
+                     shardId)
+          } else if (records.isEmpty) {
             scheduleOnce('GET_RECORDS, refreshInterval)
+          } else {
+            requestRecords()
           }
+          pump()
         }
         case ((_, GetRecordsFailure(_))) => {
           log.error("Failed to fetch records from Kinesis for shard {}", shardId)
           failStage(Errors.GetRecordsError)
         }
-        case ((_, Pump)) => ()
+        case ((_, Pump)) => pump()
       }
 
-      private def ready(in: (ActorRef, Any)): Unit = in match {
-        case ((_, Pump)) => {
-          if (isAvailable(shape.out)) {
-            push(shape.out, buffer.dequeue())
-            self.ref ! Pump
-          }
-          if (buffer.isEmpty) {
-            self.become(awaitingRecords)
-            requestRecords(self.ref)
-          }
+      private def pump(): Unit = {
+        if (isAvailable(shape.out) && batches.nonEmpty) {
+          val batch = batches.head
+          val record = batch.next()
+          if (!batch.hasNext) batches.dequeue()
+          bufferedRecords -= 1
+          bufferedBytes -= record.getData.remaining
+          push(shape.out, record)
+          requestRecords()
         }
+        if (iterator == null && batches.isEmpty) completeStage()
       }
 
       override protected def onTimer(timerKey: Any): Unit = timerKey match {
-        case 'GET_RECORDS => requestRecords(self.ref)
+        case 'GET_RECORDS => requestRecords()
+      }
+
+      // request the next records unless enough records are buffered, at most one request is in flight as every
+      // request needs the iterator returned by the previous one
+      private[this] def requestRecords(): Unit =
+        if (iterator != null && !requesting && !isTimerActive('GET_RECORDS) && batches.size <= prefetchDepth &&
+            bufferedRecords < maxBufferedRecords && bufferedBytes < maxBufferedBytes && acquireToken()) {
+          requesting = true
+          amazonKinesisAsync.getRecordsAsync(new GetRecordsRequest().withLimit(limit).withShardIterator(iterator),
+                                             getRecordsHandler(self.ref))
+        }
+
+      // takes a token from the bucket, or schedules the request for when the next token will be available
+      private[this] def acquireToken(): Boolean = {
+        val now = System.nanoTime()
+        tokens = math.min(readsPerSecond, tokens + (now - lastRefill) * readsPerSecond / 1e9)
+        lastRefill = now
+        if (tokens >= 1) {
+          tokens -= 1
+          true
+        } else {
+          scheduleOnce('GET_RECORDS, ((1 - tokens) / readsPerSecond * 1e9).toLong.nanos)
+          false
+        }
       }
 
       private[this] def getRecordsHandler(ref: ActorRef) =
@@ -118,10 +154,6 @@ class KinesisSourceStage(shardSettings: ShardSettings, amazonKinesisAsync: => Am
           (ex: Throwable) => self.ref ! GetRecordsFailure(ex)
         )
 
-      private[this] def requestRecords(ref: ActorRef): Unit =
-        amazonKinesisAsync.getRecordsAsync(new GetRecordsRequest().withLimit(limit).withShardIterator(iterator),
-                                           getRecordsHandler(self.ref))
-
       private[this] def getShardIteratorHandler(ref: ActorRef) =
         getAmazonKinesisHandler[GetShardIteratorRequest, GetShardIteratorResult](
           (result: GetShardIteratorResult) => ref ! GetShardIteratorSuccess(result),
@@ -45,21 +45,54 @@ object ShardSettings {
 
 }
 
+/**
+ * @param refreshInterval    Time to wait for new records after a `GetRecords` request returned none
+ * @param limit              Maximum number of records returned by a `GetRecords` request
+ * @param prefetchDepth      Number of `GetRecords` responses to request ahead while the records of the current one are
+ *                           emitted, 0 to request the next records only once all records have been emitted
+ * @param maxBufferedRecords No more records are requested ahead while this many records are buffered
+ * @param maxBufferedBytes   No more records are requested ahead while records of this many bytes are buffered
+ * @param readsPerSecond     Maximum rate of `GetRecords` requests, a shard supports 5 reads per second shared by all
+ *                           of its consumers
+ */
 case class ShardSettings(streamName: String,
                          shardId: String,
                          shardIteratorType: ShardIteratorType,
                          startingSequenceNumber: Option[String] = None,
                          atTimestamp: Option[java.util.Date] = None,
                          refreshInterval: FiniteDuration,
-                         limit: Int) {
+                         limit: Int,
+                         prefetchDepth: Int = 0,
+                         maxBufferedRecords: Int = 10000,
+                         maxBufferedBytes: Long = 10 * 1024 * 1024,
+                         readsPerSecond: Double = 5) {
   require(
     limit >= 1 && limit <= 10000,
     "Limit must be between 0 and 10000. See: http://docs.aws.amazon.com/kinesis/latest/APIReference/API_GetRecords.html"
   )
+  require(prefetchDepth >= 0, "Prefetch depth must not be negative")
+  require(maxBufferedRecords >= 1 && maxBufferedBytes >= 1, "Buffer budget must be positive")
+  require(
+    readsPerSecond > 0 && readsPerSecond <= 5,
+    "Reads per second must be above 0 and at most 5. " +
+    "See: http://docs.aws.amazon.com/streams/latest/dev/service-sizes-and-limits.html"
+  )
   shardIteratorType match {
     case ShardIteratorType.AFTER_SEQUENCE_NUMBER | ShardIteratorType.AT_SEQUENCE_NUMBER =>
       require(startingSequenceNumber.nonEmpty)
     case ShardIteratorType.AT_TIMESTAMP => require(atTimestamp.nonEmpty)
     case _ => ()
   }
+
+  /**
+   * Java API: Request up to `prefetchDepth` responses ahead, as long as less than `maxBufferedRecords` records and
+   * `maxBufferedBytes` bytes are buffered
+   */
+  def withPrefetch(prefetchDepth: Int, maxBufferedRecords: Int, maxBufferedBytes: Long): ShardSettings =
+    copy(prefetchDepth = prefetchDepth, maxBufferedRecords = maxBufferedRecords, maxBufferedBytes = maxBufferedBytes)
+
+  /**
+   * Java API: Limit the rate of `GetRecords` requests
+   */
+  def withReadsPerSecond(readsPerSecond: Double): ShardSettings = copy(readsPerSecond = readsPerSecond)
 }
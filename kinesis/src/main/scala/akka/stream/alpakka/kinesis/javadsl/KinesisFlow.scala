@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.kinesis.javadsl
+
+import akka.NotUsed
+import akka.stream.alpakka.kinesis.{scaladsl, KinesisFlowSettings}
+import akka.stream.javadsl.Flow
+import com.amazonaws.services.kinesis.AmazonKinesisAsync
+import com.amazonaws.services.kinesis.model.{PutRecordsRequestEntry, PutRecordsResultEntry}
+
+import scala.concurrent.duration.FiniteDuration
+
+object KinesisFlow {
+
+  def create(streamName: String,
+             amazonKinesisAsync: AmazonKinesisAsync): Flow[PutRecordsRequestEntry, PutRecordsResultEntry, NotUsed] =
+    create(streamName, KinesisFlowSettings.Defaults, amazonKinesisAsync)
+
+  def create(streamName: String,
+             settings: KinesisFlowSettings,
+             amazonKinesisAsync: AmazonKinesisAsync): Flow[PutRecordsRequestEntry, PutRecordsResultEntry, NotUsed] =
+    scaladsl.KinesisFlow(streamName, amazonKinesisAsync, settings).asJava
+
+  def aggregate(maxRecords: Int,
+                maxBytes: Int,
+                maxWait: FiniteDuration): Flow[PutRecordsRequestEntry, PutRecordsRequestEntry, NotUsed] =
+    scaladsl.KinesisFlow.aggregate(maxRecords, maxBytes, maxWait).asJava
+
+}
@@ -0,0 +1,27 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.kinesis.javadsl
+
+import java.util.concurrent.CompletionStage
+
+import akka.Done
+import akka.stream.alpakka.kinesis.{scaladsl, KinesisFlowSettings}
+import akka.stream.javadsl.Sink
+import com.amazonaws.services.kinesis.AmazonKinesisAsync
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry
+
+import scala.compat.java8.FutureConverters.FutureOps
+
+object KinesisSink {
+
+  def create(streamName: String,
+             amazonKinesisAsync: AmazonKinesisAsync): Sink[PutRecordsRequestEntry, CompletionStage[Done]] =
+    create(streamName, KinesisFlowSettings.Defaults, amazonKinesisAsync)
+
+  def create(streamName: String,
+             settings: KinesisFlowSettings,
+             amazonKinesisAsync: AmazonKinesisAsync): Sink[PutRecordsRequestEntry, CompletionStage[Done]] =
+    scaladsl.KinesisSink(streamName, amazonKinesisAsync, settings).mapMaterializedValue(_.toJava).asJava
+
+}
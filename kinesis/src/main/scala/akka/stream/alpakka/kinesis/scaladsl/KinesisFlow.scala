@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.kinesis.scaladsl
+
+import akka.NotUsed
+import akka.stream.alpakka.kinesis.KinesisAggregation.{AggregationOverhead, MaxRecordBytes, MaxRequestBytes}
+import akka.stream.alpakka.kinesis.{KinesisAggregation, KinesisFlowSettings, KinesisFlowStage}
+import akka.stream.scaladsl.Flow
+import com.amazonaws.services.kinesis.AmazonKinesisAsync
+import com.amazonaws.services.kinesis.model.{PutRecordsRequestEntry, PutRecordsResultEntry}
+
+import scala.concurrent.duration.FiniteDuration
+
+object KinesisFlow {
+
+  /**
+   * Publishes records to a stream with `PutRecords` requests of up to `maxBatchSize` records and 5 MB, sending a
+   * batch that is not full after `maxBatchWait`. Records the service fails to accept are retried with exponential
+   * backoff, the flow fails once they have been retried `maxRetries` times. Emits the result of every record once its
+   * batch has been published, the batches in the order they complete.
+   */
+  def apply(streamName: String,
+            amazonKinesisAsync: AmazonKinesisAsync,
+            settings: KinesisFlowSettings = KinesisFlowSettings.Defaults)
+    : Flow[PutRecordsRequestEntry, PutRecordsResultEntry, NotUsed] =
+    Flow[PutRecordsRequestEntry]
+      .groupedWithin(settings.maxBatchSize, settings.maxBatchWait)
+      .mapConcat(KinesisAggregation.splitBySize(_, MaxRequestBytes, KinesisAggregation.size))
+      .via(
+        new KinesisFlowStage(streamName,
+                             settings.parallelism,
+                             settings.maxRetries,
+                             settings.retryInitialTimeout,
+                             amazonKinesisAsync)
+      )
+      .mapConcat(identity)
+
+  /**
+   * Packs records into aggregated records of at most `maxBytes` in the format of the Kinesis Producer Library, to be
+   * published with [[KinesisFlow.apply]]. Records arriving within `maxWait` are aggregated, up to `maxRecords` at a
+   * time. Only records with the same partition key and explicit hash key are aggregated together, so that every record
+   * ends up in the shard it would have been published to on its own, and consumers need to deaggregate them, as the
+   * Kinesis Client Library does.
+   */
+  def aggregate(maxRecords: Int,
+                maxBytes: Int,
+                maxWait: FiniteDuration): Flow[PutRecordsRequestEntry, PutRecordsRequestEntry, NotUsed] = {
+    require(maxBytes > AggregationOverhead && maxBytes <= MaxRecordBytes,
+            s"Aggregated records must be at most $MaxRecordBytes bytes")
+    Flow[PutRecordsRequestEntry]
+      .groupedWithin(maxRecords, maxWait)
+      .mapConcat(KinesisAggregation.groupByKeys)
+      .mapConcat(KinesisAggregation.splitBySize(_, maxBytes - AggregationOverhead, KinesisAggregation.aggregatedSize))
+      .map(KinesisAggregation.aggregate)
+  }
+
+}
@@ -0,0 +1,25 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.kinesis.scaladsl
+
+import akka.Done
+import akka.stream.alpakka.kinesis.KinesisFlowSettings
+import akka.stream.scaladsl.{Keep, Sink}
+import com.amazonaws.services.kinesis.AmazonKinesisAsync
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry
+
+import scala.concurrent.Future
+
+object KinesisSink {
+
+  /**
+   * Publishes records to a stream like [[KinesisFlow.apply]], the materialized future completes once all of them
+   * have been published.
+   */
+  def apply(streamName: String,
+            amazonKinesisAsync: AmazonKinesisAsync,
+            settings: KinesisFlowSettings = KinesisFlowSettings.Defaults): Sink[PutRecordsRequestEntry, Future[Done]] =
+    KinesisFlow(streamName, amazonKinesisAsync, settings).toMat(Sink.ignore)(Keep.right)
+
+}
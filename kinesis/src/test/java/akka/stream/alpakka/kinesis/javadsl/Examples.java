@@ -3,18 +3,25 @@
  */
 package akka.stream.alpakka.kinesis.javadsl;
 
+import akka.Done;
 import akka.NotUsed;
 import akka.actor.ActorSystem;
 import akka.stream.ActorMaterializer;
+import akka.stream.alpakka.kinesis.KinesisFlowSettings;
 import akka.stream.alpakka.kinesis.ShardSettings;
+import akka.stream.javadsl.Flow;
+import akka.stream.javadsl.Sink;
 import akka.stream.javadsl.Source;
 import com.amazonaws.services.kinesis.AmazonKinesisAsync;
 import com.amazonaws.services.kinesis.AmazonKinesisAsyncClientBuilder;
+import com.amazonaws.services.kinesis.model.PutRecordsRequestEntry;
+import com.amazonaws.services.kinesis.model.PutRecordsResultEntry;
 import com.amazonaws.services.kinesis.model.Record;
 import com.amazonaws.services.kinesis.model.ShardIteratorType;
 import scala.concurrent.duration.FiniteDuration;
 
 import java.util.Arrays;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
 
 public class Examples {
@@ -40,4 +47,17 @@ public class Examples {
     final Source<Record, NotUsed> two = KinesisSource.basicMerge(Arrays.asList(settings), amazonKinesisAsync);
     //#list
 
+    //#flow-settings
+    final KinesisFlowSettings flowSettings = KinesisFlowSettings.create(4, 500, FiniteDuration.apply(100L, TimeUnit.MILLISECONDS), 5, FiniteDuration.apply(100L, TimeUnit.MILLISECONDS));
+    //#flow-settings
+
+    //#flow
+    final Flow<PutRecordsRequestEntry, PutRecordsResultEntry, NotUsed> flow = KinesisFlow.create("streamName", flowSettings, amazonKinesisAsync);
+    final Sink<PutRecordsRequestEntry, CompletionStage<Done>> sink = KinesisSink.create("streamName", flowSettings, amazonKinesisAsync);
+    //#flow
+
+    //#aggregate
+    final Flow<PutRecordsRequestEntry, PutRecordsRequestEntry, NotUsed> aggregate = KinesisFlow.aggregate(1000, 50 * 1024, FiniteDuration.apply(100L, TimeUnit.MILLISECONDS));
+    //#aggregate
+
 }
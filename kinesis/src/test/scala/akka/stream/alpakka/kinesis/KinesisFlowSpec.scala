@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.kinesis
+
+import java.security.MessageDigest
+import java.util.concurrent.{CompletableFuture, ConcurrentLinkedQueue}
+import java.util.concurrent.atomic.AtomicInteger
+
+import akka.stream.alpakka.kinesis.KinesisFlowErrors.{ErrorPublishingRecords, FailurePublishingRecords}
+import akka.stream.alpakka.kinesis.scaladsl.KinesisFlow
+import akka.stream.scaladsl.{Keep, Sink, Source}
+import akka.stream.testkit.scaladsl.{TestSink, TestSource}
+import akka.util.ByteString
+import com.amazonaws.handlers.AsyncHandler
+import com.amazonaws.services.kinesis.model._
+import org.mockito.ArgumentMatchers._
+import org.mockito.Mockito._
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
+import org.scalatest.concurrent.ScalaFutures
+import org.scalatest.{Matchers, WordSpecLike}
+
+import scala.collection.JavaConverters._
+import scala.concurrent.duration._
+
+class KinesisFlowSpec extends WordSpecLike with Matchers with DefaultTestContext with ScalaFutures {
+
+  "KinesisFlow" must {
+
+    val settings = KinesisFlowSettings.Defaults.copy(maxBatchSize = 3, maxRetries = 2, retryInitialTimeout = 10.millis)
+
+    "publish records in batches and emit their results" in new KinesisFlowContext with WithPutRecords {
+      val (source, sink) = TestSource
+        .probe[PutRecordsRequestEntry]
+        .via(KinesisFlow("stream", amazonKinesisAsync, settings))
+        .toMat(TestSink.probe)(Keep.both)
+        .run()
+
+      sink.request(4)
+      (1 to 4).foreach(i => source.sendNext(entry(i.toString)))
+      sink.expectNextN(4).map(_.getSequenceNumber) shouldEqual Seq("1", "2", "3", "4")
+      source.sendComplete()
+      sink.expectComplete()
+
+      requests.asScala.toList.map(_.getRecords.size) shouldEqual Seq(3, 1)
+      requests.asScala.foreach(_.getStreamName shouldEqual "stream")
+    }
+
+    "retry only the records that failed" in new KinesisFlowContext with WithPutRecords {
+      override def failing(data: String, attempt: Int) = data == "2" && attempt == 1
+
+      val (source, sink) = TestSource
+        .probe[PutRecordsRequestEntry]
+        .via(KinesisFlow("stream", amazonKinesisAsync, settings))
+        .toMat(TestSink.probe)(Keep.both)
+        .run()
+
+      sink.request(3)
+      (1 to 3).foreach(i => source.sendNext(entry(i.toString)))
+      sink.expectNextN(3).map(_.getSequenceNumber) shouldEqual Seq("1", "2", "3")
+
+      requests.asScala.toList.map(_.getRecords.asScala.toList.map(dataOf)) shouldEqual Seq(Seq("1", "2", "3"), Seq("2"))
+    }
+
+    "fail once the failed records have been retried maxRetries times" in new KinesisFlowContext with WithPutRecords {
+      override def failing(data: String, attempt: Int) = data == "1"
+
+      val (source, sink) = TestSource
+        .probe[PutRecordsRequestEntry]
+        .via(KinesisFlow("stream", amazonKinesisAsync, settings))
+        .toMat(TestSink.probe)(Keep.both)
+        .run()
+
+      sink.request(1)
+      source.sendNext(entry("1"))
+      sink.expectError() shouldBe an[ErrorPublishingRecords]
+      requests.size shouldEqual 3
+    }
+
+    "fail when the requests keep failing" in new KinesisFlowContext with WithPutRecordsFailure {
+      val (source, sink) = TestSource
+        .probe[PutRecordsRequestEntry]
+        .via(KinesisFlow("stream", amazonKinesisAsync, settings))
+        .toMat(TestSink.probe)(Keep.both)
+        .run()
+
+      sink.request(1)
+      source.sendNext(entry("1"))
+      sink.expectError() shouldBe a[FailurePublishingRecords]
+      requests.size shouldEqual 1
+    }
+
+    "retry requests failing on exceeded throughput" in new KinesisFlowContext with WithPutRecordsFailure {
+      override def failure = new ProvisionedThroughputExceededException("exceeded")
+
+      val (source, sink) = TestSource
+        .probe[PutRecordsRequestEntry]
+        .via(KinesisFlow("stream", amazonKinesisAsync, settings))
+        .toMat(TestSink.probe)(Keep.both)
+        .run()
+
+      sink.request(1)
+      source.sendNext(entry("1"))
+      sink.expectError() shouldBe a[FailurePublishingRecords]
+      requests.size shouldEqual 3
+    }
+
+    "not retry requests failing by the fault of the client" in new KinesisFlowContext with WithPutRecordsFailure {
+      override def failure = new ResourceNotFoundException("no stream")
+
+      val (source, sink) = TestSource
+        .probe[PutRecordsRequestEntry]
+        .via(KinesisFlow("stream", amazonKinesisAsync, settings))
+        .toMat(TestSink.probe)(Keep.both)
+        .run()
+
+      sink.request(1)
+      source.sendNext(entry("1"))
+      sink.expectError() shouldBe a[FailurePublishingRecords]
+      requests.size shouldEqual 1
+    }
+  }
+
+  "KinesisFlow.aggregate" must {
+
+    "pack records into one record in the aggregation format of the producer library" in new KinesisFlowContext {
+      val aggregated = Source(List(entry("a", "key-1"), entry("bc", "key-2"), entry("d", "key-1")))
+        .via(KinesisFlow.aggregate(10, 1024, 1.second))
+        .runWith(Sink.seq)
+        .futureValue
+
+      // records of different partition keys are not aggregated together
+      aggregated.map(_.getPartitionKey) shouldEqual Seq("key-1", "key-2")
+      dataOf(aggregated(1)) shouldEqual "bc"
+
+      val data = ByteString(aggregated.head.getData)
+      data.take(4) shouldEqual bytes(0xF3, 0x89, 0x9A, 0xC2)
+      val message = data.drop(4).dropRight(16)
+      ByteString(MessageDigest.getInstance("MD5").digest(message.toArray)) shouldEqual data.takeRight(16)
+
+      // partition key table, then records of partition key index and data
+      message shouldEqual
+        bytes(0x0A, 5) ++ ByteString("key-1") ++
+        bytes(0x1A, 5, 0x08, 0, 0x1A, 1) ++ ByteString("a") ++
+        bytes(0x1A, 5, 0x08, 0, 0x1A, 1) ++ ByteString("d")
+    }
+
+    "not aggregate records with different explicit hash keys" in new KinesisFlowContext {
+      val entries = List("1", "2", "1").zipWithIndex.map {
+        case (explicitHashKey, index) => entry(index.toString).withExplicitHashKey(explicitHashKey)
+      }
+      val aggregated = Source(entries)
+        .via(KinesisFlow.aggregate(10, 1024, 1.second))
+        .runWith(Sink.seq)
+        .futureValue
+
+      aggregated.map(_.getExplicitHashKey) shouldEqual Seq("1", "2")
+      dataOf(aggregated(1)) shouldEqual "1"
+    }
+
+    "split aggregated records at the maximum size" in new KinesisFlowContext {
+      val aggregated = Source(List.fill(4)(entry("x" * 100)))
+        .via(KinesisFlow.aggregate(10, 300, 1.second))
+        .runWith(Sink.seq)
+        .futureValue
+
+      aggregated.map(_.getData.remaining).foreach(_ should be <= 300)
+      aggregated should have size 2
+    }
+  }
+
+  trait KinesisFlowContext {
+    val requests = new ConcurrentLinkedQueue[PutRecordsRequest]()
+
+    def entry(data: String, partitionKey: String = "key") =
+      new PutRecordsRequestEntry().withPartitionKey(partitionKey).withData(ByteString(data).toByteBuffer)
+
+    def bytes(values: Int*): ByteString = ByteString(values.map(_.toByte): _*)
+
+    def dataOf(entry: PutRecordsRequestEntry): String = ByteString(entry.getData.duplicate).utf8String
+  }
+
+  trait WithPutRecords { self: KinesisFlowContext =>
+    private val attempts = new AtomicInteger()
+
+    def failing(data: String, attempt: Int): Boolean = false
+
+    when(amazonKinesisAsync.putRecordsAsync(any(), any())).thenAnswer(new Answer[AnyRef] {
+      override def answer(invocation: InvocationOnMock): AnyRef = {
+        val request = invocation.getArgument[PutRecordsRequest](0)
+        requests.add(request)
+        val attempt = attempts.incrementAndGet()
+        val entries = request.getRecords.asScala.map { entry =>
+          val data = dataOf(entry)
+          if (failing(data, attempt))
+            new PutRecordsResultEntry().withErrorCode("ProvisionedThroughputExceededException")
+          else new PutRecordsResultEntry().withShardId("shard").withSequenceNumber(data)
+        }
+        val result = new PutRecordsResult()
+          .withRecords(entries.asJava)
+          .withFailedRecordCount(entries.count(_.getErrorCode != null))
+        invocation.getArgument[AsyncHandler[PutRecordsRequest, PutRecordsResult]](1).onSuccess(request, result)
+        CompletableFuture.completedFuture(result)
+      }
+    })
+  }
+
+  trait WithPutRecordsFailure { self: KinesisFlowContext =>
+    def failure: Exception = new Exception("fail")
+
+    when(amazonKinesisAsync.putRecordsAsync(any(), any())).thenAnswer(new Answer[AnyRef] {
+      override def answer(invocation: InvocationOnMock): AnyRef = {
+        requests.add(invocation.getArgument[PutRecordsRequest](0))
+        invocation
+          .getArgument[AsyncHandler[PutRecordsRequest, PutRecordsResult]](1)
+          .onError(failure)
+        CompletableFuture.completedFuture(new PutRecordsResult())
+      }
+    })
+  }
+
+}
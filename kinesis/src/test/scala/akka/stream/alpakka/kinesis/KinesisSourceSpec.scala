@@ -117,15 +117,59 @@ class KinesisSourceSpec extends WordSpecLike with Matchers with DefaultTestConte
     with WithGetRecordsSuccess {
       override def records = util.Arrays.asList(new Record().withData(ByteString("1").toByteBuffer))
 
+      nextShardIterator.set(null)
       val probe = KinesisSource.basic(shardSettings, amazonKinesisAsync).runWith(TestSink.probe)
 
       probe.requestNext.utf8String shouldEqual "1"
-      nextShardIterator.set(null)
-      probe.request(1)
-      probe.expectNext()
       probe.expectComplete()
     }
 
+    "request the next records ahead while the current ones are emitted" in new KinesisSpecContext
+    with WithGetShardIteratorSuccess with WithGetRecordsSuccess {
+      override def records = util.Arrays.asList(
+        new Record().withData(ByteString("1").toByteBuffer),
+        new Record().withData(ByteString("2").toByteBuffer)
+      )
+
+      val probe =
+        KinesisSource.basic(shardSettings.copy(prefetchDepth = 1), amazonKinesisAsync).runWith(TestSink.probe)
+
+      probe.requestNext.utf8String shouldEqual "1"
+      probe.expectNoMsg(200.millis)
+      verify(amazonKinesisAsync, times(2)).getRecordsAsync(any(), any())
+      probe.request(3)
+      probe.expectNextN(3).map(_.utf8String) shouldEqual Seq("2", "1", "2")
+      probe.cancel()
+    }
+
+    "not request records ahead when the buffer budget is used up" in new KinesisSpecContext
+    with WithGetShardIteratorSuccess with WithGetRecordsSuccess {
+      override def records = util.Arrays.asList(
+        new Record().withData(ByteString("1").toByteBuffer),
+        new Record().withData(ByteString("2").toByteBuffer)
+      )
+
+      val settings = shardSettings.withPrefetch(prefetchDepth = 10, maxBufferedRecords = 3, maxBufferedBytes = 1000)
+      val probe = KinesisSource.basic(settings, amazonKinesisAsync).runWith(TestSink.probe)
+
+      probe.expectNoMsg(200.millis)
+      verify(amazonKinesisAsync, times(2)).getRecordsAsync(any(), any())
+      probe.cancel()
+    }
+
+    "limit the rate of requests" in new KinesisSpecContext with WithGetShardIteratorSuccess with WithGetRecordsSuccess {
+      override def records = util.Arrays.asList(new Record().withData(ByteString("1").toByteBuffer))
+
+      val settings = shardSettings.copy(prefetchDepth = 100, readsPerSecond = 2)
+      val probe = KinesisSource.basic(settings, amazonKinesisAsync).runWith(TestSink.probe)
+
+      probe.expectNoMsg(1.second)
+      // a burst of two requests, and two more within the second
+      verify(amazonKinesisAsync, atLeast(3)).getRecordsAsync(any(), any())
+      verify(amazonKinesisAsync, atMost(5)).getRecordsAsync(any(), any())
+      probe.cancel()
+    }
+
     "fail with error when GetStreamRequest fails" in new KinesisSpecContext with WithGetShardIteratorSuccess
     with WithGetRecordsFailure {
       val probe = KinesisSource.basic(shardSettings, amazonKinesisAsync).runWith(TestSink.probe)
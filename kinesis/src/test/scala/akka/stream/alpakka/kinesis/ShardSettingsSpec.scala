@@ -47,5 +47,13 @@ class ShardSettingsSpec extends WordSpec with Matchers {
     "accept a valid limit" in {
       noException should be thrownBy baseSettings.copy(limit = 500)
     }
+    "require a valid prefetch configuration" in {
+      a[IllegalArgumentException] should be thrownBy baseSettings.copy(prefetchDepth = -1)
+      a[IllegalArgumentException] should be thrownBy baseSettings.copy(maxBufferedRecords = 0)
+      a[IllegalArgumentException] should be thrownBy baseSettings.copy(readsPerSecond = 6)
+    }
+    "accept a valid prefetch configuration" in {
+      noException should be thrownBy baseSettings.withPrefetch(2, 5000, 1024 * 1024).withReadsPerSecond(2.5)
+    }
   }
 }
@@ -6,9 +6,11 @@ package akka.stream.alpakka.kinesis.scaladsl
 import java.util.Date
 
 import akka.actor.ActorSystem
-import akka.stream.alpakka.kinesis.ShardSettings
+import akka.stream.alpakka.kinesis.{KinesisFlowSettings, ShardSettings}
+import akka.stream.scaladsl.Source
 import akka.stream.{ActorMaterializer, Materializer}
-import com.amazonaws.services.kinesis.model.ShardIteratorType
+import akka.util.ByteString
+import com.amazonaws.services.kinesis.model.{PutRecordsRequestEntry, ShardIteratorType}
 import com.amazonaws.services.kinesis.{AmazonKinesisAsync, AmazonKinesisAsyncClientBuilder}
 
 import scala.concurrent.duration._
@@ -54,4 +56,26 @@ object Examples {
   KinesisSource.basicMerge(mergeSettings, amazonKinesisAsync)
   //#list
 
+  //#flow-settings
+  val flowSettings = KinesisFlowSettings(parallelism = 4,
+                                         maxBatchSize = 500,
+                                         maxBatchWait = 100.millis,
+                                         maxRetries = 5,
+                                         retryInitialTimeout = 100.millis)
+  //#flow-settings
+
+  //#flow
+  val records = Source(1 to 1000).map { i =>
+    new PutRecordsRequestEntry().withPartitionKey(s"key-$i").withData(ByteString(s"record $i").toByteBuffer)
+  }
+  records.via(KinesisFlow("myStreamName", amazonKinesisAsync, flowSettings))
+  records.runWith(KinesisSink("myStreamName", amazonKinesisAsync, flowSettings))
+  //#flow
+
+  //#aggregate
+  records
+    .via(KinesisFlow.aggregate(maxRecords = 1000, maxBytes = 50 * 1024, maxWait = 100.millis))
+    .runWith(KinesisSink("myStreamName", amazonKinesisAsync, flowSettings))
+  //#aggregate
+
 }
@@ -0,0 +1,58 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.s3
+
+/**
+ * Decides the minimum size of the parts of a multipart upload. Incoming elements are never split, so a part can exceed
+ * its minimum size by up to one element.
+ */
+sealed trait ChunkingStrategy {
+
+  /**
+   * Minimum size in bytes of the part with the given 1-based part number.
+   */
+  def chunkSize(partNumber: Int): Int
+
+  /**
+   * Largest minimum part size returned by [[chunkSize]].
+   */
+  def maxChunkSize: Int
+}
+
+/**
+ * Uploads every part with the same minimum size.
+ */
+final case class FixedChunking(size: Int) extends ChunkingStrategy {
+  override def chunkSize(partNumber: Int): Int = size
+  override def maxChunkSize: Int = size
+}
+
+/**
+ * Starts with parts of `initialSize` bytes, so that the first part is uploaded quickly, and doubles the part size after
+ * every `partsPerStep` parts up to `maxSize` bytes.
+ *
+ * Small streams are uploaded with small parts, while streams of unknown length stay below the S3 limit of 10000 parts
+ * per upload: with the default settings more than 3TB can be uploaded. At most `chunkingParallelism` parts of the
+ * current size are buffered at any time.
+ */
+final case class AdaptiveChunking(initialSize: Int = 5242880, partsPerStep: Int = 1000, maxSize: Int = 1073741824)
+    extends ChunkingStrategy {
+  require(partsPerStep > 0, "partsPerStep must be positive")
+  require(initialSize <= maxSize, "initialSize must not be larger than maxSize")
+
+  override def chunkSize(partNumber: Int): Int = {
+    val doublings = math.min((partNumber - 1) / partsPerStep, 31)
+    math.min(initialSize.toLong << doublings, maxSize.toLong).toInt
+  }
+
+  override def maxChunkSize: Int = maxSize
+}
+
+object AdaptiveChunking {
+
+  /**
+   * Java API: creates [[AdaptiveChunking]] with the default settings.
+   */
+  def create(): AdaptiveChunking = AdaptiveChunking()
+}
@@ -7,17 +7,93 @@ import akka.actor.ActorSystem
 import akka.stream.alpakka.s3.auth.AWSCredentials
 import com.typesafe.config.{Config, ConfigFactory}
 
+import scala.concurrent.duration._
+
 final case class Proxy(host: String, port: Int, scheme: String)
 
+/**
+ * Settings of the host connection pool used by all requests of one S3 client.
+ */
+final case class ConnectionPool(maxConnections: Int,
+                                maxOpenRequests: Int,
+                                pipeliningLimit: Int,
+                                idleTimeout: FiniteDuration)
+
+object ConnectionPool {
+
+  /**
+   * The settings of `akka.stream.alpakka.s3.connection-pool` in the reference configuration.
+   */
+  lazy val Default: ConnectionPool =
+    apply(ConfigFactory.defaultReference().getConfig("akka.stream.alpakka.s3.connection-pool"))
+
+  /**
+   * Creates [[ConnectionPool]] settings from a `connection-pool` [[Config]] section.
+   */
+  def apply(config: Config): ConnectionPool =
+    ConnectionPool(
+      maxConnections = config.getInt("max-connections"),
+      maxOpenRequests = config.getInt("max-open-requests"),
+      pipeliningLimit = config.getInt("pipelining-limit"),
+      idleTimeout = config.getDuration("idle-timeout", MILLISECONDS).millis
+    )
+}
+
+/**
+ * Settings of the cache of object metadata and small byte ranges of downloaded objects. Cached entries are fetched
+ * again after `timeToLive`, and dropped as soon as a request shows that their object has changed. Within
+ * `timeToLive` they are served without checking their ETag, so an object overwritten in that time is served with its
+ * old contents: the cache is only meant for objects that are never overwritten.
+ *
+ * @param maxObjects Maximum number of objects to cache the metadata of, 0 disables the cache
+ * @param maxRangeSize Maximum size of a byte range to be cached, 0 disables the caching of ranges
+ * @param maxRangeBytes Maximum total size of all cached ranges
+ * @param timeToLive Time for which cached entries are used without asking S3
+ */
+final case class ObjectCache(maxObjects: Int, maxRangeSize: Int, maxRangeBytes: Long, timeToLive: FiniteDuration) {
+  def enabled: Boolean = maxObjects > 0
+}
+
+object ObjectCache {
+  val Disabled = ObjectCache(maxObjects = 0, maxRangeSize = 0, maxRangeBytes = 0, timeToLive = Duration.Zero)
+}
+
 final case class S3Settings(bufferType: BufferType,
                             diskBufferPath: String,
                             proxy: Option[Proxy],
                             awsCredentials: AWSCredentials,
                             s3Region: String,
-                            pathStyleAccess: Boolean) {
+                            pathStyleAccess: Boolean,
+                            connectionPool: ConnectionPool,
+                            objectCache: ObjectCache) {
+
+  def this(bufferType: BufferType,
+           diskBufferPath: String,
+           proxy: Option[Proxy],
+           awsCredentials: AWSCredentials,
+           s3Region: String,
+           pathStyleAccess: Boolean,
+           connectionPool: ConnectionPool) =
+    this(bufferType,
+         diskBufferPath,
+         proxy,
+         awsCredentials,
+         s3Region,
+         pathStyleAccess,
+         connectionPool,
+         ObjectCache.Disabled)
+
+  def this(bufferType: BufferType,
+           diskBufferPath: String,
+           proxy: Option[Proxy],
+           awsCredentials: AWSCredentials,
+           s3Region: String,
+           pathStyleAccess: Boolean) =
+    this(bufferType, diskBufferPath, proxy, awsCredentials, s3Region, pathStyleAccess, ConnectionPool.Default)
 
   override def toString: String =
-    s"S3Settings($bufferType,$diskBufferPath,$proxy,$awsCredentials,$s3Region,$pathStyleAccess)"
+    s"S3Settings($bufferType,$diskBufferPath,$proxy,$awsCredentials,$s3Region,$pathStyleAccess," +
+    s"$connectionPool,$objectCache)"
 }
 
 sealed trait BufferType
@@ -30,8 +106,38 @@ case object DiskBufferType extends BufferType {
   def getInstance: BufferType = DiskBufferType
 }
 
+/**
+ * Buffers in memory up to the `hybrid-buffer-memory` shared by all clients of an actor system, and to disk beyond it.
+ */
+case object HybridBufferType extends BufferType {
+  def getInstance: BufferType = HybridBufferType
+}
+
 object S3Settings {
 
+  /**
+   * Scala API: Creates [[S3Settings]] with the default connection pool and without object cache.
+   */
+  def apply(bufferType: BufferType,
+            diskBufferPath: String,
+            proxy: Option[Proxy],
+            awsCredentials: AWSCredentials,
+            s3Region: String,
+            pathStyleAccess: Boolean): S3Settings =
+    new S3Settings(bufferType, diskBufferPath, proxy, awsCredentials, s3Region, pathStyleAccess)
+
+  /**
+   * Scala API: Creates [[S3Settings]] without object cache.
+   */
+  def apply(bufferType: BufferType,
+            diskBufferPath: String,
+            proxy: Option[Proxy],
+            awsCredentials: AWSCredentials,
+            s3Region: String,
+            pathStyleAccess: Boolean,
+            connectionPool: ConnectionPool): S3Settings =
+    new S3Settings(bufferType, diskBufferPath, proxy, awsCredentials, s3Region, pathStyleAccess, connectionPool)
+
   /**
    * Scala API: Creates [[S3Settings]] from the [[Config]] attached to an [[ActorSystem]].
    */
@@ -44,7 +150,8 @@ object S3Settings {
     bufferType = config.getString("akka.stream.alpakka.s3.buffer") match {
       case "memory" => MemoryBufferType
       case "disk" => DiskBufferType
-      case _ => throw new IllegalArgumentException("Buffer type must be 'memory' or 'disk'")
+      case "hybrid" => HybridBufferType
+      case _ => throw new IllegalArgumentException("Buffer type must be 'memory', 'disk' or 'hybrid'")
     },
     diskBufferPath = config.getString("akka.stream.alpakka.s3.disk-buffer-path"),
     proxy = {
@@ -60,7 +167,14 @@ object S3Settings {
     awsCredentials = AWSCredentials(config.getString("akka.stream.alpakka.s3.aws.access-key-id"),
                                     config.getString("akka.stream.alpakka.s3.aws.secret-access-key")),
     s3Region = config.getString("akka.stream.alpakka.s3.aws.default-region"),
-    pathStyleAccess = config.getBoolean("akka.stream.alpakka.s3.path-style-access")
+    pathStyleAccess = config.getBoolean("akka.stream.alpakka.s3.path-style-access"),
+    connectionPool = ConnectionPool(config.getConfig("akka.stream.alpakka.s3.connection-pool")),
+    objectCache = ObjectCache(
+      maxObjects = config.getInt("akka.stream.alpakka.s3.object-cache.max-objects"),
+      maxRangeSize = config.getBytes("akka.stream.alpakka.s3.object-cache.max-range-size").toInt,
+      maxRangeBytes = config.getBytes("akka.stream.alpakka.s3.object-cache.max-range-bytes"),
+      timeToLive = config.getDuration("akka.stream.alpakka.s3.object-cache.time-to-live", MILLISECONDS).millis
+    )
   )
 
   /**
@@ -3,8 +3,32 @@
  */
 package akka.stream.alpakka.s3.impl
 
+import java.util.concurrent.atomic.AtomicBoolean
+
 import akka.stream.scaladsl.Source
 import akka.NotUsed
 import akka.util.ByteString
 
-private[alpakka] final case class Chunk(data: Source[ByteString, NotUsed], size: Int)
+/**
+ * A buffered part of an upload.
+ *
+ * @param data Bytes of the chunk, which can be materialized any number of times until the chunk is released
+ * @param size Number of bytes
+ * @param release Gives back the storage of the chunk once it is not read any more. `reuse` is false when a reader may
+ *                still be running, e.g. after a failed request, so that the storage must not be handed out again.
+ */
+private[alpakka] final case class Chunk(data: Source[ByteString, NotUsed],
+                                        size: Int,
+                                        release: Boolean => Unit = Chunk.NoRelease)
+
+private[alpakka] object Chunk {
+  val NoRelease: Boolean => Unit = _ => ()
+
+  /**
+   * Wraps `release` so that only its first call has an effect, as it may be called from different threads.
+   */
+  def releaseOnce(release: Boolean => Unit): Boolean => Unit = {
+    val released = new AtomicBoolean(false)
+    reuse => if (released.compareAndSet(false, true)) release(reuse)
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.s3.impl
+
+import akka.http.scaladsl.model.headers.ByteRange
+import akka.util.ByteString
+
+import scala.collection.immutable.Seq
+
+/**
+ * A range of an object fetched with a single request in place of the requested ranges it covers.
+ *
+ * @param range Range to request
+ * @param parts Requested ranges within `range`, with their index in the original request
+ */
+private[alpakka] final case class CoalescedRange(range: ByteRange.Slice, parts: Seq[(Int, ByteRange.Slice)]) {
+
+  /**
+   * Splits the bytes of `range` into views on the bytes of each part.
+   */
+  def split(bytes: ByteString): Seq[(Int, ByteString)] =
+    parts.map {
+      case (index, part) =>
+        index -> bytes.slice((part.first - range.first).toInt, (part.last - range.first + 1).toInt)
+    }
+}
+
+private[alpakka] object CoalescedRange {
+
+  /**
+   * Merges ranges that are at most `maxGap` bytes apart, as long as the merged range spans at most `maxMerged`
+   * bytes. Overlapping ranges are always merged, and ranges larger than `maxMerged` on their own are kept as they are.
+   */
+  def coalesce(ranges: Seq[ByteRange.Slice], maxGap: Long, maxMerged: Long): Seq[CoalescedRange] = {
+    def mergeable(current: ByteRange.Slice, next: ByteRange.Slice) =
+      next.first <= current.last ||
+      (next.first - current.last - 1 <= maxGap && math.max(current.last, next.last) - current.first < maxMerged)
+
+    ranges.zipWithIndex
+      .sortBy(_._1.first)
+      .foldLeft(List.empty[CoalescedRange]) {
+        case (current :: done, (next, index)) if mergeable(current.range, next) =>
+          val merged = ByteRange(current.range.first, math.max(current.range.last, next.last))
+          CoalescedRange(merged, current.parts :+ (index -> next)) :: done
+        case (done, (next, index)) =>
+          CoalescedRange(next, List(index -> next)) :: done
+      }
+      .reverse
+  }
+}
@@ -3,40 +3,46 @@
  */
 package akka.stream.alpakka.s3.impl
 
-import java.io.{File, FileOutputStream, RandomAccessFile}
+import java.io.EOFException
+import java.nio.{BufferOverflowException, ByteBuffer}
 import java.nio.channels.FileChannel
-import java.nio.file.Files
-import java.util.concurrent.atomic.AtomicInteger
+import java.nio.file.{Files, Path, StandardOpenOption}
+import java.util.concurrent.ConcurrentLinkedQueue
+import java.util.concurrent.atomic.AtomicLong
 
 import akka.NotUsed
-import akka.dispatch.ExecutionContexts
 import akka.stream.ActorAttributes
 import akka.stream.Attributes
 import akka.stream.FlowShape
 import akka.stream.Inlet
 import akka.stream.Outlet
-import akka.stream.scaladsl.FileIO
+import akka.stream.scaladsl.Source
 import akka.stream.stage.GraphStage
 import akka.stream.stage.GraphStageLogic
 import akka.stream.stage.InHandler
 import akka.stream.stage.OutHandler
 import akka.util.ByteString
-import java.nio.file.Path
 
 /**
  * Buffers the complete incoming stream into a file, which can then be read several times afterwards.
  *
  * The stage waits for the incoming stream to complete. After that, it emits a single Chunk item on its output. The Chunk
- * contains a bytestream source that can be materialized multiple times, and the total size of the file.
+ * contains a bytestream source that can be materialized multiple times, and the total size of the file. The file is
+ * given back to `files` once the chunk is released, and deleted instead if the chunk may still be read.
  *
- * @param maxMaterializations Number of expected materializations for the completed chunk. After this, the temp file is deleted.
  * @param maxSize Maximum size on disk to buffer
+ * @param files Spill files to buffer into
  */
-private[alpakka] final class DiskBuffer(maxMaterializations: Int, maxSize: Int, tempPath: Option[Path])
+private[alpakka] final class DiskBuffer(maxSize: Int, files: DiskBufferFiles)
     extends GraphStage[FlowShape[ByteString, Chunk]] {
-  require(maxMaterializations > 0, "maxMaterializations should be at least 1")
   require(maxSize > 0, "maximumSize should be at least 1")
 
+  /**
+   * Buffers into a new temp file, which is deleted once the chunk is released.
+   */
+  def this(maxSize: Int, tempPath: Option[Path]) =
+    this(maxSize, new DiskBufferFiles(tempPath, maxIdleBytes = 0))
+
   val in = Inlet[ByteString]("DiskBuffer.in")
   val out = Outlet[Chunk]("DiskBuffer.out")
   override val shape = FlowShape.of(in, out)
@@ -45,20 +51,19 @@ private[alpakka] final class DiskBuffer(maxMaterializations: Int, maxSize: Int,
 
   override def createLogic(attr: Attributes): GraphStageLogic =
     new GraphStageLogic(shape) with OutHandler with InHandler {
-      val path: File = tempPath
-        .map(dir => Files.createTempFile(dir, "s3-buffer-", ".bin"))
-        .getOrElse(Files.createTempFile("s3-buffer-", ".bin"))
-        .toFile
-      path.deleteOnExit()
-      val writeBuffer = new RandomAccessFile(path, "rw").getChannel.map(FileChannel.MapMode.READ_WRITE, 0, maxSize)
-      var length = 0
+      private var file: SpillFile = _
+      private var length = 0
+      private var emitted = false
+
+      override def preStart(): Unit =
+        file = files.acquire()
 
       override def onPull(): Unit = if (isClosed(in)) emit() else pull(in)
 
       override def onPush(): Unit = {
         val elem = grab(in)
-        length += elem.size
-        writeBuffer.put(elem.asByteBuffer)
+        if (length + elem.size > maxSize) throw new BufferOverflowException
+        length += file.write(elem, length)
         pull(in)
       }
 
@@ -67,27 +72,114 @@ private[alpakka] final class DiskBuffer(maxMaterializations: Int, maxSize: Int,
         completeStage()
       }
 
-      private def emit(): Unit = {
-        // TODO Should we do http://stackoverflow.com/questions/2972986/how-to-unmap-a-file-from-memory-mapped-using-filechannel-in-java ?
-        writeBuffer.force()
-
-        val ch = new FileOutputStream(path, true).getChannel
-        try {
-          ch.truncate(length)
-        } finally {
-          ch.close()
-        }
+      override def postStop(): Unit =
+        if (!emitted && file != null) files.release(file)
 
-        val deleteCounter = new AtomicInteger(maxMaterializations)
-        val src = FileIO.fromPath(path.toPath, 65536).mapMaterializedValue { f =>
-          if (deleteCounter.decrementAndGet() <= 0)
-            f.onComplete { _ =>
-              path.delete()
-            }(ExecutionContexts.sameThreadExecutionContext)
-          NotUsed
-        }
-        emit(out, Chunk(src, length), () => completeStage())
+      private def emit(): Unit = {
+        val spilled = file
+        val release = Chunk.releaseOnce(files.giveBack(spilled, _))
+        emitted = true
+        emit(out, Chunk(spilled.source(length), length, release), () => completeStage())
       }
       setHandlers(in, out, this)
     }
 }
+
+/**
+ * Spill files of [[DiskBuffer]]s. Files given back are kept, together with their already allocated disk space, for
+ * later buffers as long as the unused ones take up at most `maxIdleBytes`, otherwise they are deleted.
+ *
+ * @param tempPath Directory to create the files in, or the default temp directory
+ * @param maxIdleBytes Maximum disk space of the unused files to keep
+ */
+private[alpakka] final class DiskBufferFiles(tempPath: Option[Path], maxIdleBytes: Long) {
+  private val idle = new ConcurrentLinkedQueue[SpillFile]()
+  private val idleBytes = new AtomicLong(0)
+
+  def acquire(): SpillFile = idle.poll() match {
+    case null => SpillFile.create(tempPath)
+    case file =>
+      idleBytes.addAndGet(-file.size)
+      file
+  }
+
+  /**
+   * Gives back a file that is not read any more.
+   */
+  def release(file: SpillFile): Unit = {
+    val size = file.size
+    if (idleBytes.addAndGet(size) <= maxIdleBytes) idle.offer(file)
+    else {
+      idleBytes.addAndGet(-size)
+      file.delete()
+    }
+  }
+
+  /**
+   * Gives back a file that may still be read, which is therefore deleted rather than handed out again.
+   */
+  def discard(file: SpillFile): Unit =
+    file.delete()
+
+  def giveBack(file: SpillFile, reuse: Boolean): Unit =
+    if (reuse) release(file) else discard(file)
+}
+
+private[alpakka] object SpillFile {
+  val ReadChunkSize = 1048576
+
+  def create(tempPath: Option[Path]): SpillFile = {
+    val path = tempPath
+      .map(dir => Files.createTempFile(dir, "s3-buffer-", ".bin"))
+      .getOrElse(Files.createTempFile("s3-buffer-", ".bin"))
+    new SpillFile(path, FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE))
+  }
+}
+
+/**
+ * A temp file written and read with positional channel operations, so that it can be read by several streams at the
+ * same time and be reused without truncating it.
+ */
+private[alpakka] final class SpillFile(path: Path, channel: FileChannel) {
+  import SpillFile._
+
+  /**
+   * Writes the bytes at the given position and returns the number of written bytes.
+   */
+  def write(bytes: ByteString, position: Long): Int = {
+    var written = 0
+    bytes.asByteBuffers.foreach { buffer =>
+      while (buffer.hasRemaining) written += channel.write(buffer, position + written)
+    }
+    written
+  }
+
+  /**
+   * Reads the first `length` bytes in large slices straight into the arrays backing the emitted ByteStrings.
+   */
+  def source(length: Int): Source[ByteString, NotUsed] =
+    Source
+      .unfold(0L) { position =>
+        if (position >= length) None
+        else {
+          val bytes = new Array[Byte](math.min(ReadChunkSize.toLong, length - position).toInt)
+          val buffer = ByteBuffer.wrap(bytes)
+          while (buffer.hasRemaining) {
+            if (channel.read(buffer, position + buffer.position()) < 0)
+              throw new EOFException(s"$path ended before $length bytes were read")
+          }
+          Some((position + bytes.length, ByteString.fromArrayUnsafe(bytes)))
+        }
+      }
+      .withAttributes(ActorAttributes.dispatcher("akka.stream.default-blocking-io-dispatcher"))
+
+  /**
+   * The disk space taken by the file, which does not shrink when it is reused for less bytes.
+   */
+  def size: Long = channel.size()
+
+  def delete(): Unit = {
+    channel.close()
+    Files.deleteIfExists(path)
+  }
+}
@@ -3,10 +3,12 @@
  */
 package akka.stream.alpakka.s3.impl
 
+import java.nio.charset.StandardCharsets
+
 import akka.http.scaladsl.marshallers.xml.ScalaXmlSupport._
 import akka.http.scaladsl.marshalling.Marshal
 import akka.http.scaladsl.model.Uri.{Authority, Query}
-import akka.http.scaladsl.model.headers.Host
+import akka.http.scaladsl.model.headers.{ByteRange, Host, RawHeader}
 import akka.http.scaladsl.model.{ContentTypes, RequestEntity, _}
 import akka.stream.alpakka.s3.S3Settings
 import akka.stream.scaladsl.Source
@@ -39,6 +41,13 @@ private[alpakka] object HttpRequests {
   def getDownloadRequest(s3Location: S3Location)(implicit conf: S3Settings): HttpRequest =
     s3Request(s3Location)
 
+  def putObjectRequest(s3Location: S3Location, contentType: ContentType, payload: ByteString, s3Headers: S3Headers)(
+      implicit conf: S3Settings
+  ): HttpRequest =
+    s3Request(s3Location, HttpMethods.PUT)
+      .withDefaultHeaders(s3Headers.headers: _*)
+      .withEntity(HttpEntity(contentType, payload))
+
   def initiateMultipartUploadRequest(s3Location: S3Location, contentType: ContentType, s3Headers: S3Headers)(
       implicit conf: S3Settings
   ): HttpRequest =
@@ -55,6 +64,23 @@ private[alpakka] object HttpRequests {
       _.withQuery(Query("partNumber" -> partNumber.toString, "uploadId" -> upload.uploadId))
     ).withEntity(HttpEntity(ContentTypes.`application/octet-stream`, payloadSize, payload))
 
+  def uploadPartCopyRequest(upload: MultipartUpload,
+                            partNumber: Int,
+                            source: S3Location,
+                            range: Option[ByteRange.Slice])(implicit conf: S3Settings): HttpRequest = {
+    val copySource = "/" + encodeCopySource(source.bucket) + "/" + encodeCopySource(source.key)
+    val copySourceRange = range.map(r => RawHeader("x-amz-copy-source-range", s"bytes=${r.first}-${r.last}"))
+
+    s3Request(
+      upload.s3Location,
+      HttpMethods.PUT,
+      _.withQuery(Query("partNumber" -> partNumber.toString, "uploadId" -> upload.uploadId))
+    ).withDefaultHeaders(RawHeader("x-amz-copy-source", copySource) :: copySourceRange.toList)
+  }
+
+  def abortMultipartUploadRequest(upload: MultipartUpload)(implicit conf: S3Settings): HttpRequest =
+    s3Request(upload.s3Location, HttpMethods.DELETE, _.withQuery(Query("uploadId" -> upload.uploadId)))
+
   def completeMultipartUploadRequest(upload: MultipartUpload, parts: Seq[(Int, String)])(
       implicit ec: ExecutionContext,
       conf: S3Settings
@@ -80,6 +106,18 @@ private[alpakka] object HttpRequests {
     }
   }
 
+  // percent-encodes every byte of the UTF-8 encoding but unreserved characters and slashes, keeping empty segments
+  private[this] def encodeCopySource(name: String): String =
+    name
+      .getBytes(StandardCharsets.UTF_8)
+      .map { byte =>
+        val c = (byte & 0xFF).toChar
+        if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || "-_.~/".indexOf(c) >= 0)
+          c.toString
+        else "%%%02X".format(byte & 0xFF)
+      }
+      .mkString
+
   private[this] def s3Request(s3Location: S3Location,
                               method: HttpMethod = HttpMethods.GET,
                               uriFn: (Uri => Uri) = identity)(implicit conf: S3Settings): HttpRequest =
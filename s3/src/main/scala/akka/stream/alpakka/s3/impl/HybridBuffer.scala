@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.s3.impl
+
+import java.nio.BufferOverflowException
+import java.util.concurrent.atomic.AtomicLong
+
+import akka.actor.{ExtendedActorSystem, Extension, ExtensionId, ExtensionIdProvider}
+import akka.stream.{ActorAttributes, Attributes, FlowShape, Inlet, Outlet}
+import akka.stream.scaladsl.Source
+import akka.stream.stage.{GraphStage, GraphStageLogic, InHandler, OutHandler}
+import akka.util.ByteString
+
+import scala.annotation.tailrec
+
+/**
+ * Buffers the complete incoming stream into memory as long as the shared `budget` allows it, and into a file from
+ * `files` otherwise, which can then be read several times afterwards.
+ *
+ * The stage waits for the incoming stream to complete. After that, it emits a single Chunk item on its output. The Chunk
+ * contains a bytestream source that can be materialized multiple times, and the total size of the buffer. The memory
+ * is given back to `budget`, or the file to `files`, once the chunk is released.
+ *
+ * @param maxSize Maximum size to buffer
+ * @param budget Memory shared by all hybrid buffers
+ * @param files Spill files to buffer into when the budget is exhausted
+ */
+private[alpakka] final class HybridBuffer(maxSize: Int, budget: MemoryBudget, files: DiskBufferFiles)
+    extends GraphStage[FlowShape[ByteString, Chunk]] {
+  require(maxSize > 0, "maximumSize should be at least 1")
+
+  val in = Inlet[ByteString]("HybridBuffer.in")
+  val out = Outlet[Chunk]("HybridBuffer.out")
+  override val shape = FlowShape.of(in, out)
+
+  override def initialAttributes = ActorAttributes.dispatcher("akka.stream.default-blocking-io-dispatcher")
+
+  override def createLogic(attr: Attributes): GraphStageLogic =
+    new GraphStageLogic(shape) with OutHandler with InHandler {
+      private var buffer = ByteString.empty
+      private var reserved = 0L
+      private var file: SpillFile = _
+      private var length = 0
+      private var emitted = false
+
+      override def onPull(): Unit = if (isClosed(in)) emit() else pull(in)
+
+      override def onPush(): Unit = {
+        val elem = grab(in)
+        if (length + elem.size > maxSize) throw new BufferOverflowException
+        if (file == null && budget.tryReserve(elem.size)) {
+          reserved += elem.size
+          buffer ++= elem
+        } else {
+          if (file == null) spill()
+          file.write(elem, length)
+        }
+        length += elem.size
+        pull(in)
+      }
+
+      override def onUpstreamFinish(): Unit = {
+        if (isAvailable(out)) emit()
+        completeStage()
+      }
+
+      override def postStop(): Unit =
+        if (!emitted) {
+          budget.release(reserved)
+          if (file != null) files.release(file)
+        }
+
+      private def spill(): Unit = {
+        file = files.acquire()
+        file.write(buffer, 0)
+        buffer = ByteString.empty
+        budget.release(reserved)
+        reserved = 0
+      }
+
+      private def emit(): Unit = {
+        // the chunk is released on another thread, so it only refers to the state at this point
+        val bytes = reserved
+        val spilled = file
+        val data = if (spilled == null) Source.single(buffer) else spilled.source(length)
+        val release = Chunk.releaseOnce { reuse =>
+          budget.release(bytes)
+          if (spilled != null) files.giveBack(spilled, reuse)
+        }
+        emitted = true
+        emit(out, Chunk(data, length, release), () => completeStage())
+      }
+      setHandlers(in, out, this)
+    }
+}
+
+/**
+ * Number of bytes that may be held in memory at the same time by all hybrid buffers of an [[akka.actor.ActorSystem]].
+ */
+private[alpakka] final class MemoryBudget(val capacity: Long) extends Extension {
+  private val used = new AtomicLong(0)
+
+  @tailrec def tryReserve(bytes: Long): Boolean = {
+    val current = used.get
+    if (current + bytes > capacity) false
+    else if (used.compareAndSet(current, current + bytes)) true
+    else tryReserve(bytes)
+  }
+
+  def release(bytes: Long): Unit =
+    used.addAndGet(-bytes)
+
+  def available: Long = capacity - used.get
+}
+
+private[alpakka] object MemoryBudget extends ExtensionId[MemoryBudget] with ExtensionIdProvider {
+  override def lookup = MemoryBudget
+
+  override def createExtension(system: ExtendedActorSystem): MemoryBudget =
+    new MemoryBudget(system.settings.config.getBytes("akka.stream.alpakka.s3.hybrid-buffer-memory"))
+}
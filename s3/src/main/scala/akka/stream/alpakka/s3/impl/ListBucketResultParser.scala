@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.s3.impl
+
+import java.time.Instant
+
+import akka.stream.alpakka.s3.scaladsl.ListBucketResultContents
+import akka.stream.alpakka.xml.{EndElement, ParseEvent, StartElement, TextEvent}
+import akka.stream.stage.{GraphStageLogic, GraphStageWithMaterializedValue, InHandler, OutHandler}
+import akka.stream.{Attributes, FlowShape, Inlet, Outlet}
+
+import scala.concurrent.{Future, Promise}
+
+/**
+ * Incrementally decodes the XML parse events of a ListObjectsV2 response page.
+ *
+ * Every `Contents` element is emitted as a [[ListBucketResultContents]] as soon as it is complete, so a page is never
+ * held in memory as a whole. The stage materializes the `NextContinuationToken` of the page, which is completed as
+ * soon as the token element has been parsed, or with `None` when the page turns out to be the last one.
+ */
+private[alpakka] final class ListBucketResultParser
+    extends GraphStageWithMaterializedValue[FlowShape[ParseEvent, ListBucketResultContents], Future[Option[String]]] {
+  val in = Inlet[ParseEvent]("ListBucketResultParser.in")
+  val out = Outlet[ListBucketResultContents]("ListBucketResultParser.out")
+  override val shape = FlowShape.of(in, out)
+
+  override def createLogicAndMaterializedValue(attr: Attributes): (GraphStageLogic, Future[Option[String]]) = {
+    val continuationToken = Promise[Option[String]]()
+
+    val logic = new GraphStageLogic(shape) with InHandler with OutHandler {
+      private var depth = 0
+      private var inContents = false
+      private val text = new StringBuilder
+
+      private var bucketName = ""
+      private var key = ""
+      private var eTag = ""
+      private var size = 0L
+      private var lastModified: Instant = _
+      private var storageClass = ""
+
+      override def onPull(): Unit = pull(in)
+
+      override def onPush(): Unit = grab(in) match {
+        case StartElement(name, _) =>
+          depth += 1
+          text.clear()
+          if (depth == 2 && name == "Contents") inContents = true
+          pull(in)
+
+        case EndElement(name) =>
+          val value = text.toString
+          text.clear()
+          val elementDepth = depth
+          depth -= 1
+          if (elementDepth == 2 && name == "Contents") {
+            inContents = false
+            push(out, ListBucketResultContents(bucketName, key, eTag, size, lastModified, storageClass))
+          } else {
+            if (elementDepth == 2) topLevelElement(name, value)
+            else if (elementDepth == 3 && inContents) contentsElement(name, value)
+            pull(in)
+          }
+
+        case t: TextEvent =>
+          text.append(t.text)
+          pull(in)
+
+        case _ =>
+          pull(in)
+      }
+
+      private def topLevelElement(name: String, value: String): Unit = name match {
+        case "Name" => bucketName = value
+        case "NextContinuationToken" => continuationToken.trySuccess(Some(value))
+        case _ =>
+      }
+
+      private def contentsElement(name: String, value: String): Unit = name match {
+        case "Key" => key = value
+        case "ETag" => eTag = value.drop(1).dropRight(1)
+        case "Size" => size = value.toLong
+        case "LastModified" => lastModified = Instant.parse(value)
+        case "StorageClass" => storageClass = value
+        case _ =>
+      }
+
+      override def onUpstreamFailure(ex: Throwable): Unit = {
+        continuationToken.tryFailure(ex)
+        failStage(ex)
+      }
+
+      override def postStop(): Unit =
+        continuationToken.trySuccess(None)
+
+      setHandlers(in, out, this)
+    }
+
+    (logic, continuationToken.future)
+  }
+}
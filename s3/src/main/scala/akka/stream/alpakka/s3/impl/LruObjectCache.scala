@@ -0,0 +1,109 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.s3.impl
+
+import akka.http.scaladsl.model.headers.ByteRange
+import akka.stream.alpakka.s3.ObjectCache
+import akka.stream.alpakka.s3.scaladsl.ObjectMetadata
+import akka.util.ByteString
+
+/**
+ * Least recently used metadata and byte ranges of objects.
+ *
+ * All ranges cached for an object belong to the ETag of its cached metadata: as soon as metadata with another ETag is
+ * seen for the object, its metadata and ranges are dropped together. Entries are returned until they expire without
+ * revalidating their ETag, so they are only correct for objects that are not overwritten.
+ */
+private[alpakka] final class LruObjectCache(settings: ObjectCache) {
+  import LruObjectCache._
+
+  private val metadata = new LruCache[S3Location, Entry[ObjectMetadata]](settings.maxObjects, 0, _ => 0)
+  private val ranges =
+    new LruCache[(S3Location, ByteRange.Slice), Entry[ByteString]](Int.MaxValue,
+                                                                    settings.maxRangeBytes,
+                                                                    _.value.size.toLong)
+
+  def metadataOf(s3Location: S3Location): Option[ObjectMetadata] =
+    metadata.get(s3Location).filterNot(_.expired).map(_.value)
+
+  def rangeOf(s3Location: S3Location, range: Option[ByteRange]): Option[ByteString] =
+    cacheable(range).flatMap(slice => ranges.get(s3Location -> slice)).filterNot(_.expired).map(_.value)
+
+  /**
+   * Whether the bytes of `range` are to be kept once downloaded.
+   */
+  def isCacheable(range: Option[ByteRange]): Boolean = cacheable(range).isDefined
+
+  /**
+   * Caches the metadata of an object, dropping everything cached for it before if its ETag has changed.
+   */
+  def update(s3Location: S3Location, objectMetadata: ObjectMetadata): Unit = {
+    if (metadata.get(s3Location).exists(_.value.eTag != objectMetadata.eTag)) invalidate(s3Location)
+    metadata.put(s3Location, Entry(objectMetadata, deadline))
+  }
+
+  def putRange(s3Location: S3Location, range: Option[ByteRange], eTag: String, bytes: ByteString): Unit =
+    cacheable(range).foreach { slice =>
+      if (metadata.get(s3Location).exists(_.value.eTag == eTag)) ranges.put(s3Location -> slice, Entry(bytes, deadline))
+    }
+
+  def invalidate(s3Location: S3Location): Unit = {
+    metadata.remove(s3Location)
+    ranges.removeIf(_._1 == s3Location)
+  }
+
+  private def cacheable(range: Option[ByteRange]): Option[ByteRange.Slice] = range.collect {
+    case slice @ ByteRange.Slice(first, last) if last - first < settings.maxRangeSize => slice
+  }
+
+  private def deadline: Long = System.nanoTime() + settings.timeToLive.toNanos
+}
+
+private[impl] object LruObjectCache {
+  final case class Entry[T](value: T, deadline: Long) {
+    def expired: Boolean = System.nanoTime() - deadline >= 0
+  }
+}
+
+/**
+ * Synchronized access ordered map, which drops its least recently used entries once it holds more than `maxEntries`,
+ * or its entries weigh more than `maxWeight` in total.
+ */
+private[impl] final class LruCache[K, V <: AnyRef](maxEntries: Int, maxWeight: Long, weight: V => Long) {
+  private val entries = new java.util.LinkedHashMap[K, V](16, 0.75f, true)
+  private var totalWeight = 0L
+
+  def get(key: K): Option[V] = synchronized(Option(entries.get(key)))
+
+  def put(key: K, value: V): Unit = synchronized {
+    totalWeight += weight(value)
+    Option(entries.put(key, value)).foreach(totalWeight -= weight(_))
+    evict()
+  }
+
+  def remove(key: K): Unit = synchronized {
+    Option(entries.remove(key)).foreach(totalWeight -= weight(_))
+  }
+
+  def removeIf(p: K => Boolean): Unit = synchronized {
+    val it = entries.entrySet().iterator()
+    while (it.hasNext) {
+      val entry = it.next()
+      if (p(entry.getKey)) {
+        totalWeight -= weight(entry.getValue)
+        it.remove()
+      }
+    }
+  }
+
+  def size: Int = synchronized(entries.size)
+
+  private def evict(): Unit = {
+    val it = entries.entrySet().iterator()
+    while ((entries.size > maxEntries || totalWeight > maxWeight) && it.hasNext) {
+      totalWeight -= weight(it.next().getValue)
+      it.remove()
+    }
+  }
+}
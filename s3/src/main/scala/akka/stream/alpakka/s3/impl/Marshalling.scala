@@ -3,12 +3,10 @@
  */
 package akka.stream.alpakka.s3.impl
 
-import java.time.Instant
-
 import akka.http.scaladsl.marshallers.xml.ScalaXmlSupport
 import akka.http.scaladsl.model.{ContentTypes, HttpCharsets, MediaTypes}
 import akka.http.scaladsl.unmarshalling.{FromEntityUnmarshaller, Unmarshaller}
-import akka.stream.alpakka.s3.scaladsl.ListBucketResultContents
+import akka.stream.alpakka.s3.S3Exception
 
 import scala.xml.NodeSeq
 
@@ -36,27 +34,12 @@ private[alpakka] object Marshalling {
     }
   }
 
-  val isTruncated = "IsTruncated"
-  val continuationToken = "NextContinuationToken"
-
-  implicit val listBucketResultUnmarshaller: FromEntityUnmarshaller[ListBucketResult] = {
-    nodeSeqUnmarshaller(MediaTypes.`application/xml` withCharset HttpCharsets.`UTF-8`).map {
+  implicit val copyPartResultUnmarshaller: FromEntityUnmarshaller[CopyPartResult] = {
+    nodeSeqUnmarshaller(MediaTypes.`application/xml` withCharset HttpCharsets.`UTF-8`) map {
       case NodeSeq.Empty => throw Unmarshaller.NoContentException
-      case x =>
-        ListBucketResult(
-          (x \ isTruncated).text == "true",
-          Some(x \ continuationToken).filter(_.nonEmpty).map(_.text),
-          (x \\ "Contents").map { c =>
-            ListBucketResultContents(
-              (x \ "Name").text,
-              (c \ "Key").text,
-              (c \ "ETag").text.drop(1).dropRight(1),
-              (c \ "Size").text.toLong,
-              Instant.parse((c \ "LastModified").text),
-              (c \ "StorageClass").text
-            )
-          }
-        )
+      // UploadPartCopy may fail after the 200 OK status line has already been sent
+      case x if x.headOption.exists(_.label == "Error") => throw new S3Exception(x.toString)
+      case x => CopyPartResult((x \ "ETag").text)
     }
   }
 }
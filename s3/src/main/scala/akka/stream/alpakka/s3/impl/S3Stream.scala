@@ -4,23 +4,38 @@
 package akka.stream.alpakka.s3.impl
 
 import java.nio.file.Paths
-import java.time.LocalDate
+import java.util.concurrent.ConcurrentHashMap
+import java.util.concurrent.atomic.AtomicBoolean
+import java.time.{Instant, LocalDate}
+import java.time.format.DateTimeFormatter
 
-import akka.NotUsed
+import akka.{Done, NotUsed}
 import akka.actor.ActorSystem
+import akka.dispatch.ExecutionContexts
 import akka.http.scaladsl.Http
 import akka.http.scaladsl.model._
 import akka.http.scaladsl.model.headers.ByteRange
+import akka.http.scaladsl.settings.ConnectionPoolSettings
 import akka.http.scaladsl.unmarshalling.{Unmarshal, Unmarshaller}
-import akka.stream.Materializer
+import akka.stream.{Materializer, OverflowStrategy}
 import akka.stream.alpakka.s3.auth.{CredentialScope, Signer, SigningKey}
-import akka.stream.alpakka.s3.scaladsl.ListBucketResultContents
-import akka.stream.alpakka.s3.{DiskBufferType, MemoryBufferType, S3Exception, S3Settings}
+import akka.stream.alpakka.s3.scaladsl.{ListBucketResultContents, ObjectMetadata, PutObjectResult}
+import akka.stream.alpakka.s3.{
+  ChunkingStrategy,
+  DiskBufferType,
+  FixedChunking,
+  HybridBufferType,
+  MemoryBufferType,
+  S3Exception,
+  S3Settings
+}
+import akka.stream.alpakka.xml.scaladsl.XmlParsing
 import akka.stream.scaladsl.{Flow, Keep, Sink, Source}
 import akka.util.ByteString
 
+import scala.collection.JavaConverters._
 import scala.collection.immutable.Seq
-import scala.concurrent.{ExecutionContext, Future}
+import scala.concurrent.{ExecutionContext, Future, Promise}
 import scala.util.{Failure, Success}
 
 final case class S3Location(bucket: String, key: String)
@@ -43,9 +58,7 @@ final case class FailedUpload(reasons: Seq[Throwable]) extends Exception(reasons
 
 final case class CompleteMultipartUploadResult(location: Uri, bucket: String, key: String, etag: String)
 
-final case class ListBucketResult(isTruncated: Boolean,
-                                  continuationToken: Option[String],
-                                  contents: Seq[ListBucketResultContents])
+final case class CopyPartResult(etag: String)
 
 object S3Stream {
 
@@ -60,46 +73,192 @@ private[alpakka] final class S3Stream(settings: S3Settings)(implicit system: Act
 
   implicit val conf = settings
   val MinChunkSize = 5242880 //in bytes
+  val MaxParts = 10000
+  val MaxCopyPartSize = 5L * 1024 * 1024 * 1024 //in bytes
   val signingKey = SigningKey(settings.awsCredentials, CredentialScope(LocalDate.now(), settings.s3Region, "s3"))
 
+  private[s3] val poolSettings = ConnectionPoolSettings(system)
+    .withMaxConnections(settings.connectionPool.maxConnections)
+    .withMaxOpenRequests(settings.connectionPool.maxOpenRequests)
+    .withPipeliningLimit(settings.connectionPool.pipeliningLimit)
+    .withIdleTimeout(settings.connectionPool.idleTimeout)
+
+  private val objectCache =
+    if (settings.objectCache.enabled) Some(new LruObjectCache(settings.objectCache)) else None
+
   def download(s3Location: S3Location, range: Option[ByteRange] = None): Source[ByteString, NotUsed] = {
     import mat.executionContext
-    Source.fromFuture(request(s3Location, range).flatMap(entityForSuccess).map(_.dataBytes)).flatMapConcat(identity)
+    objectCache match {
+      case Some(cache) =>
+        cache.rangeOf(s3Location, range) match {
+          case Some(bytes) => Source.single(bytes)
+          case None => Source.fromFuture(cachedDownload(cache, s3Location, range)).flatMapConcat(identity)
+        }
+      case None =>
+        Source.fromFuture(request(s3Location, range).flatMap(entityForSuccess).map(_.dataBytes)).flatMapConcat(identity)
+    }
+  }
+
+  /**
+   * Downloads under the condition that the object still has the cached ETag, and starts over without a condition,
+   * after dropping everything cached for the object, if it has changed.
+   */
+  private def cachedDownload(cache: LruObjectCache,
+                             s3Location: S3Location,
+                             range: Option[ByteRange]): Future[Source[ByteString, Any]] = {
+    import mat.executionContext
+
+    val eTag = cache.metadataOf(s3Location).map(_.eTag)
+    request(s3Location, range, eTag).flatMap {
+      case HttpResponse(StatusCodes.PreconditionFailed, _, entity, _) =>
+        entity.dataBytes.runWith(Sink.ignore)
+        cache.invalidate(s3Location)
+        cachedDownload(cache, s3Location, range)
+      case response =>
+        entityForSuccess(response).flatMap { entity =>
+          metadataOf(response, entity) match {
+            case Some(objectMetadata) if cache.isCacheable(range) =>
+              cache.update(s3Location, objectMetadata)
+              entity.dataBytes.runFold(ByteString.empty)(_ ++ _).map { bytes =>
+                cache.putRange(s3Location, range, objectMetadata.eTag, bytes)
+                Source.single(bytes)
+              }
+            case objectMetadata =>
+              objectMetadata.foreach(cache.update(s3Location, _))
+              Future.successful(entity.dataBytes)
+          }
+        }
+    }
+  }
+
+  /**
+   * Reads several ranges of an object with as few requests as possible, see `CoalescedRange.coalesce`.
+   */
+  def readRanges(s3Location: S3Location,
+                 ranges: Seq[ByteRange.Slice],
+                 maxGap: Long,
+                 maxMerged: Long,
+                 parallelism: Int = 4): Future[Seq[ByteString]] = {
+    import mat.executionContext
+
+    Source(CoalescedRange.coalesce(ranges, maxGap, maxMerged))
+      .mapAsyncUnordered(parallelism) { coalesced =>
+        download(s3Location, Some(coalesced.range)).runFold(ByteString.empty)(_ ++ _).map(coalesced.split)
+      }
+      .runFold(new Array[ByteString](ranges.size)) { (parts, split) =>
+        split.foreach { case (index, bytes) => parts(index) = bytes }
+        parts
+      }
+      .map(_.toList)
   }
 
   def listBucket(bucket: String, prefix: Option[String] = None): Source[ListBucketResultContents, NotUsed] = {
     sealed trait ListBucketState
     case object Starting extends ListBucketState
-    case class Running(continuationToken: String) extends ListBucketState
-    case object Finished extends ListBucketState
+    case class Running(continuationToken: Future[Option[String]]) extends ListBucketState
 
     import system.dispatcher
 
-    def listBucketCall(token: Option[String]): Future[Option[(ListBucketState, Seq[ListBucketResultContents])]] =
-      signAndGetAs[ListBucketResult](HttpRequests.listBucket(bucket, prefix, token))
-        .map { (res: ListBucketResult) =>
-          Some(
-            res.continuationToken
-              .fold[(ListBucketState, Seq[ListBucketResultContents])]((Finished, res.contents))(
-                t => (Running(t), res.contents)
-              )
-          )
+    // pages fetched ahead are read by the next materialization of their contents, their entities are discarded if the
+    // stream terminates before that, so that their connections are returned to the pool
+    def listBucketPages(unread: java.util.Set[ResponseEntity], terminated: AtomicBoolean) = {
+      def listBucketCall(
+          token: Option[String]
+      ): Future[Option[(ListBucketState, Source[ListBucketResultContents, NotUsed])]] = {
+        val nextToken = Promise[Option[String]]()
+        signAndGet(HttpRequests.listBucket(bucket, prefix, token))
+          .flatMap(entityForSuccess)
+          .map { entity =>
+            unread.add(entity)
+            if (terminated.get && unread.remove(entity)) entity.discardBytes()
+            val contents = entity.dataBytes
+              .via(XmlParsing.parser)
+              .viaMat(new ListBucketResultParser)(Keep.right)
+              .mapMaterializedValue { t =>
+                unread.remove(entity)
+                nextToken.tryCompleteWith(t)
+                NotUsed
+              }
+            Some((Running(nextToken.future), contents))
+          }
+      }
+
+      Source
+        .unfoldAsync[ListBucketState, Source[ListBucketResultContents, NotUsed]](Starting) {
+          case Starting => listBucketCall(None)
+          case Running(nextToken) =>
+            nextToken.flatMap {
+              case Some(token) => listBucketCall(Some(token))
+              case None => Future.successful(None)
+            }
         }
+    }
 
-    Source
-      .unfoldAsync[ListBucketState, Seq[ListBucketResultContents]](Starting) {
-        case Finished => Future.successful(None)
-        case Starting => listBucketCall(None)
-        case Running(token) => listBucketCall(Some(token))
-      }
-      .mapConcat(identity)
+    Source.single(NotUsed).flatMapConcat { _ =>
+      val unread = ConcurrentHashMap.newKeySet[ResponseEntity]()
+      val terminated = new AtomicBoolean()
+      // the next page is requested as soon as its continuation token has been parsed from the page being consumed
+      listBucketPages(unread, terminated)
+        .buffer(1, OverflowStrategy.backpressure)
+        .flatMapConcat(identity)
+        .watchTermination() { (_, done) =>
+          done.onComplete { _ =>
+            terminated.set(true)
+            unread.asScala.foreach(entity => if (unread.remove(entity)) entity.discardBytes())
+          }
+          NotUsed
+        }
+    }
+  }
+
+  /**
+   * Uploads every object with a single PUT request instead of a multipart upload, so the objects need to fit in memory.
+   */
+  def putObjects(bucket: String,
+                 contentType: ContentType = ContentTypes.`application/octet-stream`,
+                 s3Headers: S3Headers,
+                 parallelism: Int = 4): Flow[(String, Source[ByteString, Any]), PutObjectResult, NotUsed] = {
+    import mat.executionContext
+
+    Flow[(String, Source[ByteString, Any])].mapAsyncUnordered(parallelism) {
+      case (key, data) =>
+        for {
+          payload <- data.runFold(ByteString.empty)(_ ++ _)
+          response <- signAndGet(putObjectRequest(S3Location(bucket, key), contentType, payload, s3Headers))
+          entity <- entityForSuccess(response)
+        } yield {
+          entity.dataBytes.runWith(Sink.ignore)
+          val etag = response.headers.find(_.lowercaseName() == "etag").map(_.value)
+          PutObjectResult(bucket, key, etag.getOrElse("").drop(1).dropRight(1))
+        }
+    }
+  }
+
+  /**
+   * Downloads every object into memory.
+   */
+  def getObjects(bucket: String, parallelism: Int = 4): Flow[String, (String, ByteString), NotUsed] = {
+    import mat.executionContext
+
+    Flow[String].mapAsyncUnordered(parallelism) { key =>
+      request(S3Location(bucket, key))
+        .flatMap(entityForSuccess)
+        .flatMap(_.dataBytes.runFold(ByteString.empty)(_ ++ _))
+        .map(key -> _)
+    }
   }
 
-  def request(s3Location: S3Location, rangeOption: Option[ByteRange] = None): Future[HttpResponse] = {
+  def request(s3Location: S3Location,
+              rangeOption: Option[ByteRange] = None,
+              ifMatch: Option[String] = None): Future[HttpResponse] = {
     val downloadRequest = getDownloadRequest(s3Location)
-    signAndGet(rangeOption match {
+    val rangeRequest = rangeOption match {
       case Some(range) => downloadRequest.withHeaders(headers.Range(range))
       case _ => downloadRequest
+    }
+    signAndGet(ifMatch match {
+      case Some(eTag) => rangeRequest.addHeader(headers.`If-Match`(headers.EntityTag(eTag)))
+      case _ => rangeRequest
     })
   }
 
@@ -109,11 +268,110 @@ private[alpakka] final class S3Stream(settings: S3Settings)(implicit system: Act
   def multipartUpload(s3Location: S3Location,
                       contentType: ContentType = ContentTypes.`application/octet-stream`,
                       s3Headers: S3Headers,
-                      chunkSize: Int = MinChunkSize,
+                      chunking: ChunkingStrategy = FixedChunking(MinChunkSize),
                       chunkingParallelism: Int = 4): Sink[ByteString, Future[CompleteMultipartUploadResult]] =
-    chunkAndRequest(s3Location, contentType, s3Headers, chunkSize)(chunkingParallelism)
+    chunkAndRequest(s3Location, contentType, s3Headers, chunking)(chunkingParallelism)
       .toMat(completionSink(s3Location))(Keep.right)
 
+  /**
+   * Copies an object to another location as a multipart upload whose parts are copied by S3 itself. The part size is
+   * raised where needed to copy the object in at most 10000 parts, and the upload is aborted if a part cannot be
+   * copied, so that no parts are left behind.
+   */
+  def multipartCopy(sourceLocation: S3Location,
+                    targetLocation: S3Location,
+                    contentType: ContentType = ContentTypes.`application/octet-stream`,
+                    s3Headers: S3Headers,
+                    partSize: Long = MinChunkSize,
+                    parallelism: Int = 4): Future[CompleteMultipartUploadResult] = {
+    import mat.executionContext
+
+    require(
+      partSize >= MinChunkSize,
+      "Part size must be at least 5242880B. See http://docs.aws.amazon.com/AmazonS3/latest/API/mpUploadUploadPart.html"
+    )
+    require(
+      partSize <= MaxCopyPartSize,
+      "Part size must be at most 5GB. See http://docs.aws.amazon.com/AmazonS3/latest/API/mpUploadUploadPartCopy.html"
+    )
+
+    for {
+      size <- objectMetadata(sourceLocation).map(_.size)
+      upload <- initiateMultipartUpload(targetLocation, contentType, s3Headers)
+      result <- Source(copyPartRanges(size, math.max(partSize, (size + MaxParts - 1) / MaxParts)))
+        .zip(Source.fromIterator(() => Iterator.from(1)))
+        .mapAsync(parallelism) { case (range, index) => copyPart(upload, index, sourceLocation, range) }
+        .runWith(completionSink(targetLocation))
+        .recoverWith {
+          case e => abortMultipartUpload(upload).recover { case _ => Done }.flatMap(_ => Future.failed(e))
+        }
+    } yield result
+  }
+
+  private def abortMultipartUpload(upload: MultipartUpload): Future[Done] = {
+    import mat.executionContext
+
+    signAndGet(abortMultipartUploadRequest(upload)).flatMap(entityForSuccess).flatMap(_.discardBytes().future)
+  }
+
+  private def copyPartRanges(size: Long, partSize: Long): Seq[Option[ByteRange.Slice]] =
+    if (size == 0) Seq(None)
+    else (0L until size by partSize).map(first => Some(ByteRange(first, math.min(first + partSize, size) - 1)))
+
+  private def copyPart(upload: MultipartUpload,
+                       index: Int,
+                       sourceLocation: S3Location,
+                       range: Option[ByteRange.Slice]): Future[UploadPartResponse] = {
+    import mat.executionContext
+
+    signAndGetAs[CopyPartResult](uploadPartCopyRequest(upload, index, sourceLocation, range))
+      .map(result => SuccessfulUploadPart(upload, index, result.etag))
+      .recover { case e => FailedUploadPart(upload, index, e) }
+  }
+
+  /**
+   * Determines the metadata of an object from the response to a request for its first byte, or for the whole object
+   * if it is empty.
+   */
+  def objectMetadata(s3Location: S3Location): Future[ObjectMetadata] = {
+    import mat.executionContext
+
+    def fetch(range: Option[ByteRange]): Future[ObjectMetadata] =
+      request(s3Location, range).flatMap {
+        case HttpResponse(StatusCodes.RequestedRangeNotSatisfiable, _, entity, _) if range.isDefined =>
+          entity.dataBytes.runWith(Sink.ignore)
+          fetch(None)
+        case response =>
+          entityForSuccess(response).flatMap { entity =>
+            entity.dataBytes.runWith(Sink.ignore)
+            metadataOf(response, entity)
+              .map(Future.successful)
+              .getOrElse(Future.failed(new RuntimeException(s"Cannot determine the metadata of $s3Location")))
+          }
+      }
+
+    objectCache.flatMap(_.metadataOf(s3Location)) match {
+      case Some(cached) => Future.successful(cached)
+      case None =>
+        fetch(Some(ByteRange(0, 0))).map { m =>
+          objectCache.foreach(_.update(s3Location, m))
+          m
+        }
+    }
+  }
+
+  private def metadataOf(response: HttpResponse, entity: ResponseEntity): Option[ObjectMetadata] = {
+    def header(name: String) = response.headers.find(_.lowercaseName() == name).map(_.value)
+    for {
+      size <- header("content-range").map(_.split('/').last.toLong).orElse(entity.contentLengthOption)
+      eTag <- header("etag")
+      lastModified <- header("last-modified")
+    } yield
+      ObjectMetadata(size,
+                     eTag.drop(1).dropRight(1),
+                     Instant.from(DateTimeFormatter.RFC_1123_DATE_TIME.parse(lastModified)))
+  }
+
   private def initiateMultipartUpload(s3Location: S3Location,
                                       contentType: ContentType,
                                       s3Headers: S3Headers): Future[MultipartUpload] = {
@@ -121,11 +379,7 @@ private[alpakka] final class S3Stream(settings: S3Settings)(implicit system: Act
 
     val req = initiateMultipartUploadRequest(s3Location, contentType, s3Headers)
 
-    val response = for {
-      signedReq <- Signer.signedRequest(req, signingKey)
-      response <- Http().singleRequest(signedReq)
-    } yield response
-    response.flatMap {
+    signAndGet(req).flatMap {
       case HttpResponse(status, _, entity, _) if status.isSuccess() =>
         Unmarshal(entity).to[MultipartUpload]
       case HttpResponse(_, _, entity, _) =>
@@ -159,12 +413,13 @@ private[alpakka] final class S3Stream(settings: S3Settings)(implicit system: Act
       s3Location: S3Location,
       contentType: ContentType,
       s3Headers: S3Headers,
-      chunkSize: Int = MinChunkSize,
-      parallelism: Int = 4
-  ): Flow[ByteString, (HttpRequest, (MultipartUpload, Int)), NotUsed] = {
+      chunking: ChunkingStrategy,
+      parallelism: Int,
+      pending: java.util.Set[Chunk]
+  ): Flow[ByteString, (HttpRequest, (MultipartUpload, Int, Chunk)), NotUsed] = {
 
     assert(
-      chunkSize >= MinChunkSize,
+      (1 to MaxParts).forall(chunking.chunkSize(_) >= MinChunkSize),
       "Chunk size must be at least 5242880B. See http://docs.aws.amazon.com/AmazonS3/latest/API/mpUploadUploadPart.html"
     )
 
@@ -173,22 +428,37 @@ private[alpakka] final class S3Stream(settings: S3Settings)(implicit system: Act
     val requestInfo: Source[(MultipartUpload, Int), NotUsed] =
       initiateUpload(s3Location, contentType, s3Headers)
 
-    SplitAfterSize(chunkSize)(Flow.apply[ByteString])
-      .via(getChunkBuffer(chunkSize)) //creates the chunks
+    SplitAfterSize
+      .varyingVia(
+        chunking.chunkSize(_).toLong,
+        partNumber => Flow.fromGraph(getChunkBuffer(chunking.chunkSize(partNumber))).map { chunk =>
+          pending.add(chunk)
+          chunk
+        }
+      )(Flow.apply[ByteString]) //creates the chunks, buffering at most the size of their part
       .concatSubstreams
       .zipWith(requestInfo) {
+        case (_, (_, chunkIndex)) if chunkIndex > MaxParts =>
+          throw new IllegalStateException(
+            s"Upload exceeds $MaxParts parts. See http://docs.aws.amazon.com/AmazonS3/latest/dev/qfacts.html"
+          )
         case (chunkedPayload, (uploadInfo, chunkIndex)) =>
           //each of the payload requests are created
           val partRequest =
             uploadPartRequest(uploadInfo, chunkIndex, chunkedPayload.data, chunkedPayload.size)
-          (partRequest, (uploadInfo, chunkIndex))
+          (partRequest, (uploadInfo, chunkIndex, chunkedPayload))
       }
       .mapAsync(parallelism) { case (req, info) => Signer.signedRequest(req, signingKey).zip(Future.successful(info)) }
   }
 
-  private def getChunkBuffer(chunkSize: Int) = settings.bufferType match {
-    case MemoryBufferType => new MemoryBuffer(chunkSize * 2)
-    case DiskBufferType => new DiskBuffer(2, chunkSize * 2, getDiskBufferPath)
+  private def getChunkBuffer(chunkSize: Int) = {
+    // a chunk may exceed its size by up to one element
+    val bufferSize = math.min(chunkSize.toLong * 2, Int.MaxValue).toInt
+    settings.bufferType match {
+      case MemoryBufferType => new MemoryBuffer(bufferSize)
+      case DiskBufferType => new DiskBuffer(bufferSize, diskBufferFiles)
+      case HybridBufferType => new HybridBuffer(bufferSize, MemoryBudget(system), diskBufferFiles)
+    }
   }
 
   private val getDiskBufferPath = settings.diskBufferPath match {
@@ -196,29 +466,56 @@ private[alpakka] final class S3Stream(settings: S3Settings)(implicit system: Act
     case s => Some(Paths.get(s))
   }
 
+  // spill files are reused by the parts of all uploads of this client, keeping about as many as four parts need
+  private val diskBufferFiles = new DiskBufferFiles(getDiskBufferPath, maxIdleBytes = 8L * MinChunkSize)
+
   private def chunkAndRequest(
       s3Location: S3Location,
       contentType: ContentType,
       s3Headers: S3Headers,
-      chunkSize: Int = MinChunkSize
+      chunking: ChunkingStrategy = FixedChunking(MinChunkSize)
   )(parallelism: Int = 4): Flow[ByteString, UploadPartResponse, NotUsed] = {
 
     // Multipart upload requests (except for the completion api) are created here.
     //  The initial upload request gets executed within this function as well.
     //  The individual upload part requests are created.
-    val requestFlow = createRequests(s3Location, contentType, s3Headers, chunkSize, parallelism)
-
-    // The individual upload part requests are processed here
-    requestFlow.via(Http().superPool[(MultipartUpload, Int)]()).map {
-      case (Success(r), (upload, index)) =>
-        r.entity.dataBytes.runWith(Sink.ignore)
-        val etag = r.headers.find(_.lowercaseName() == "etag").map(_.value)
-        etag
-          .map((t) => SuccessfulUploadPart(upload, index, t))
-          .getOrElse(FailedUploadPart(upload, index, new RuntimeException("Cannot find etag")))
-
-      case (Failure(e), (upload, index)) => FailedUploadPart(upload, index, e)
-    }
+    Flow[ByteString]
+      .prefixAndTail(0)
+      .flatMapConcat {
+        case (_, bytes) =>
+          // chunks whose part has not been uploaded yet, which are discarded when the upload is aborted
+          val pending = ConcurrentHashMap.newKeySet[Chunk]()
+
+          def uploaded(chunk: Chunk, reuse: Boolean): Unit = {
+            pending.remove(chunk)
+            chunk.release(reuse)
+          }
+
+          // The individual upload part requests are processed here
+          bytes
+            .via(createRequests(s3Location, contentType, s3Headers, chunking, parallelism, pending))
+            .via(Http().superPool[(MultipartUpload, Int, Chunk)](settings = poolSettings))
+            .map {
+              case (Success(r), (upload, index, chunk)) =>
+                r.entity.dataBytes.runWith(Sink.ignore)
+                // S3 has read the complete part once it acknowledges it, otherwise the request may still read it
+                uploaded(chunk, reuse = r.status.isSuccess())
+                val etag = r.headers.find(_.lowercaseName() == "etag").map(_.value)
+                etag
+                  .map((t) => SuccessfulUploadPart(upload, index, t))
+                  .getOrElse(FailedUploadPart(upload, index, new RuntimeException("Cannot find etag")))
+
+              case (Failure(e), (upload, index, chunk)) =>
+                uploaded(chunk, reuse = false)
+                FailedUploadPart(upload, index, e)
+            }
+            .watchTermination() { (_, done) =>
+              done.onComplete { _ =>
+                pending.asScala.foreach(_.release(false))
+              }(ExecutionContexts.sameThreadExecutionContext)
+              NotUsed
+            }
+      }
   }
 
   private def completionSink(s3Location: S3Location): Sink[UploadPartResponse, Future[CompleteMultipartUploadResult]] = {
@@ -251,7 +548,7 @@ private[alpakka] final class S3Stream(settings: S3Settings)(implicit system: Act
   private def signAndGet(request: HttpRequest): Future[HttpResponse] = {
     import mat.executionContext
     for (req <- Signer.signedRequest(request, signingKey);
-         res <- Http().singleRequest(req)) yield res
+         res <- Http().singleRequest(req, settings = poolSettings)) yield res
   }
 
   private def entityForSuccess(resp: HttpResponse)(implicit ctx: ExecutionContext): Future[ResponseEntity] =
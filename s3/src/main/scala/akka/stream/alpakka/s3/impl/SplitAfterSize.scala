@@ -22,11 +22,33 @@ import akka.stream.scaladsl.Flow
  */
 private[alpakka] object SplitAfterSize {
   def apply[I, M](minChunkSize: Long)(in: Flow[I, ByteString, M]): SubFlow[ByteString, M, in.Repr, in.Closed] =
-    in.via(insertMarkers(minChunkSize)).splitWhen(_ == NewStream).collect { case bs: ByteString => bs }
+    varying(_ => minChunkSize)(in)
 
-  private case object NewStream
+  /**
+   * Splits up a byte stream source into sub-flows whose minimum size depends on the 1-based number of the sub-flow.
+   */
+  def varying[I, M](
+      minChunkSize: Int => Long
+  )(in: Flow[I, ByteString, M]): SubFlow[ByteString, M, in.Repr, in.Closed] =
+    in.via(insertMarkers(minChunkSize)).splitWhen(_.isInstanceOf[NewStream]).collect { case bs: ByteString => bs }
 
-  private def insertMarkers(minChunkSize: Long) = new GraphStage[FlowShape[ByteString, Any]] {
+  /**
+   * Like [[varying]], and passes every sub-flow through the flow created by `via` for its 1-based number.
+   */
+  def varyingVia[I, M, T](minChunkSize: Int => Long, via: Int => Flow[ByteString, T, _])(
+      in: Flow[I, ByteString, M]
+  ): SubFlow[T, M, in.Repr, in.Closed] =
+    in.via(insertMarkers(minChunkSize))
+      .splitWhen(_.isInstanceOf[NewStream])
+      .prefixAndTail(1)
+      .flatMapConcat {
+        case (Seq(NewStream(number)), tail) => tail.collect { case bs: ByteString => bs }.via(via(number))
+      }
+
+  // the first element of every sub-flow
+  private final case class NewStream(number: Int)
+
+  private def insertMarkers(minChunkSize: Int => Long) = new GraphStage[FlowShape[ByteString, Any]] {
     val in = Inlet[ByteString]("SplitAfterSize.in")
     val out = Outlet[Any]("SplitAfterSize.out")
     override val shape = FlowShape.of(in, out)
@@ -34,15 +56,24 @@ private[alpakka] object SplitAfterSize {
     override def createLogic(inheritedAttributes: Attributes): GraphStageLogic =
       new GraphStageLogic(shape) with OutHandler with InHandler {
         var count: Long = 0
+        var started = false
+        var chunk = 1
+        var chunkSize = minChunkSize(chunk)
         override def onPull(): Unit = pull(in)
 
         override def onPush(): Unit = {
           val elem = grab(in)
+          // the marker of a sub-flow is only emitted with its first element, so that there are no empty sub-flows
+          val start = if (started) Nil else NewStream(chunk) :: Nil
+          started = true
           count += elem.size
-          if (count >= minChunkSize) {
+          if (count >= chunkSize) {
             count = 0
-            emitMultiple(out, elem :: NewStream :: Nil)
-          } else emit(out, elem)
+            started = false
+            chunk += 1
+            chunkSize = minChunkSize(chunk)
+          }
+          emitMultiple(out, start :+ elem)
         }
         setHandlers(in, out, this)
       }
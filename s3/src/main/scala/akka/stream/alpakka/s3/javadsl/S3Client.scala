@@ -13,15 +13,17 @@ import akka.http.javadsl.model.headers.ByteRange
 import akka.http.javadsl.model.{ContentType, HttpResponse, Uri}
 import akka.http.scaladsl.model.{ContentTypes, ContentType => ScalaContentType}
 import akka.http.scaladsl.model.headers.{ByteRange => ScalaByteRange}
+import akka.japi.Pair
 import akka.stream.Materializer
-import akka.stream.alpakka.s3.S3Settings
+import akka.stream.alpakka.s3.{ChunkingStrategy, S3Settings}
 import akka.stream.alpakka.s3.acl.CannedAcl
 import akka.stream.alpakka.s3.auth.AWSCredentials
 import akka.stream.alpakka.s3.impl._
-import akka.stream.javadsl.{Sink, Source}
+import akka.stream.javadsl.{Flow, Sink, Source}
 import akka.util.ByteString
 import com.typesafe.config.ConfigFactory
 
+import scala.collection.JavaConverters._
 import scala.compat.java8.FutureConverters._
 
 final case class MultipartUploadResult(location: Uri, bucket: String, key: String, etag: String)
@@ -41,6 +43,24 @@ final case class ListBucketResultContents(
     storageClass: String
 )
 
+final case class PutObjectResult(
+    /** The name of the bucket in which this object is stored */
+    bucketName: String,
+    /** The key under which this object is stored */
+    key: String,
+    /** Hex encoded MD5 hash of this object's contents, as computed by Amazon S3 */
+    eTag: String
+)
+
+final case class ObjectMetadata(
+    /** The size of this object, in bytes */
+    size: Long,
+    /** Hex encoded MD5 hash of this object's contents, as computed by Amazon S3 */
+    eTag: String,
+    /** The date, according to Amazon S3, when this object was last modified */
+    lastModified: Instant
+)
+
 object MultipartUploadResult {
   def create(r: CompleteMultipartUploadResult): MultipartUploadResult =
     new MultipartUploadResult(JavaUri(r.location), r.bucket, r.key, r.etag)
@@ -72,6 +92,47 @@ final class S3Client(s3Settings: S3Settings, system: ActorSystem, mat: Materiali
     impl.download(S3Location(bucket, key), Some(scalaRange)).asJava
   }
 
+  /**
+   * Reads many, possibly small, ranges of an object. Ranges that are close to each other are read with a single
+   * request, whose response is then split into views on the requested ranges.
+   * @param bucket Bucket of the object
+   * @param key Key of the object
+   * @param ranges Ranges with a first and last byte to read
+   * @param maxGap Maximum number of unrequested bytes between two ranges that are read together
+   * @param maxMerged Maximum number of bytes read by one request, unless a single range is larger
+   * @param parallelism Number of requests run in parallel
+   * @return CompletionStage of the bytes of each range, in the order of `ranges`
+   */
+  def readRanges(bucket: String,
+                 key: String,
+                 ranges: java.util.List[ByteRange],
+                 maxGap: Long,
+                 maxMerged: Long,
+                 parallelism: Int): CompletionStage[java.util.List[ByteString]] = {
+    val slices = ranges.asScala.toList.map {
+      case slice: ScalaByteRange.Slice => slice
+      case range =>
+        throw new IllegalArgumentException(s"Only ranges with a first and last byte can be read, not $range")
+    }
+    impl
+      .readRanges(S3Location(bucket, key), slices, maxGap, maxMerged, parallelism)
+      .map(_.asJava)(system.dispatcher)
+      .toJava
+  }
+
+  /**
+   * Will return the size, ETag and last modification of an object, from the cache if the
+   * `akka.stream.alpakka.s3.object-cache` is enabled and holds it.
+   * @param bucket Bucket of the object
+   * @param key Key of the object
+   * @return CompletionStage of the object metadata
+   */
+  def objectMetadata(bucket: String, key: String): CompletionStage[ObjectMetadata] =
+    impl
+      .objectMetadata(S3Location(bucket, key))
+      .map(m => ObjectMetadata(m.size, m.eTag, m.lastModified))(system.dispatcher)
+      .toJava
+
   /**
    * Will return a source of object metadata for a given bucket with optional prefix.
    * This will automatically page through all keys with the given parameters.
@@ -92,6 +153,44 @@ final class S3Client(s3Settings: S3Settings, system: ActorSystem, mat: Materiali
       }
       .asJava
 
+  /**
+   * Uploads many objects concurrently, each with a single PUT request instead of a multipart upload. This avoids the
+   * initiate and complete requests for small objects, which must fit in memory. The first object that cannot be
+   * uploaded fails the stream, so that objects uploaded in parallel to it may complete without emitting their result.
+   * @param bucket Bucket to upload the objects to
+   * @param contentType Content type of all objects
+   * @param s3Headers Headers of all upload requests
+   * @param parallelism Number of objects uploaded in parallel
+   * @return Flow of (key, object content) pairs, emitting the results in the order the uploads complete
+   */
+  def putObjects(bucket: String,
+                 contentType: ContentType,
+                 s3Headers: S3Headers,
+                 parallelism: Int): Flow[Pair[String, Source[ByteString, _]], PutObjectResult, NotUsed] =
+    akka.stream.scaladsl
+      .Flow[Pair[String, Source[ByteString, _]]]
+      .map(p => (p.first, p.second.asScala))
+      .via(impl.putObjects(bucket, contentType.asInstanceOf[ScalaContentType], s3Headers, parallelism))
+      .map(r => PutObjectResult(r.bucketName, r.key, r.eTag))
+      .asJava
+
+  def putObjects(bucket: String,
+                 parallelism: Int): Flow[Pair[String, Source[ByteString, _]], PutObjectResult, NotUsed] =
+    putObjects(bucket, ContentTypes.`application/octet-stream`, S3Headers.empty, parallelism)
+
+  /**
+   * Downloads many objects concurrently into memory. The first object that cannot be downloaded, e.g. because it does
+   * not exist, fails the stream.
+   * @param bucket Bucket to download the objects from
+   * @param parallelism Number of objects downloaded in parallel
+   * @return Flow of keys, emitting (key, object content) pairs in the order the downloads complete
+   */
+  def getObjects(bucket: String, parallelism: Int): Flow[String, Pair[String, ByteString], NotUsed] =
+    impl
+      .getObjects(bucket, parallelism)
+      .map { case (key, data) => Pair(key, data) }
+      .asJava
+
   def multipartUpload(bucket: String,
                       key: String,
                       contentType: ContentType,
@@ -101,6 +200,22 @@ final class S3Client(s3Settings: S3Settings, system: ActorSystem, mat: Materiali
       .mapMaterializedValue(_.map(MultipartUploadResult.create)(system.dispatcher).toJava)
       .asJava
 
+  /**
+   * Uploads a stream of bytes as a multipart upload whose part sizes are decided by a [[ChunkingStrategy]], e.g.
+   * [[akka.stream.alpakka.s3.AdaptiveChunking]] to upload streams of unknown length.
+   */
+  def multipartUploadWithChunking(
+      bucket: String,
+      key: String,
+      contentType: ContentType,
+      s3Headers: S3Headers,
+      chunking: ChunkingStrategy
+  ): Sink[ByteString, CompletionStage[MultipartUploadResult]] =
+    impl
+      .multipartUpload(S3Location(bucket, key), contentType.asInstanceOf[ScalaContentType], s3Headers, chunking)
+      .mapMaterializedValue(_.map(MultipartUploadResult.create)(system.dispatcher).toJava)
+      .asJava
+
   def multipartUpload(bucket: String,
                       key: String,
                       contentType: ContentType,
@@ -121,4 +236,38 @@ final class S3Client(s3Settings: S3Settings, system: ActorSystem, mat: Materiali
 
   def multipartUpload(bucket: String, key: String): Sink[ByteString, CompletionStage[MultipartUploadResult]] =
     multipartUpload(bucket, key, ContentTypes.`application/octet-stream`, CannedAcl.Private, MetaHeaders(Map()))
+
+  /**
+   * Copies an object to another location with a multipart upload whose parts are copied server-side by S3 using
+   * `UploadPartCopy`, so that none of the bytes are transferred through this client.
+   * @param sourceBucket Bucket of the object to copy
+   * @param sourceKey Key of the object to copy
+   * @param targetBucket Bucket to copy the object to
+   * @param targetKey Key to copy the object to
+   * @param partSize Number of bytes copied by each part, at least 5MB and at most 5GB
+   * @param parallelism Number of parts copied in parallel
+   * @return CompletionStage of the completed multipart upload of the copy
+   */
+  def multipartCopy(sourceBucket: String,
+                    sourceKey: String,
+                    targetBucket: String,
+                    targetKey: String,
+                    partSize: Long,
+                    parallelism: Int): CompletionStage[MultipartUploadResult] =
+    impl
+      .multipartCopy(
+        S3Location(sourceBucket, sourceKey),
+        S3Location(targetBucket, targetKey),
+        s3Headers = S3Headers.empty,
+        partSize = partSize,
+        parallelism = parallelism
+      )
+      .map(MultipartUploadResult.create)(system.dispatcher)
+      .toJava
+
+  def multipartCopy(sourceBucket: String,
+                    sourceKey: String,
+                    targetBucket: String,
+                    targetKey: String): CompletionStage[MultipartUploadResult] =
+    multipartCopy(sourceBucket, sourceKey, targetBucket, targetKey, impl.MinChunkSize, 4)
 }
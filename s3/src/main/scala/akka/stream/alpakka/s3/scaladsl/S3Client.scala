@@ -10,14 +10,15 @@ import akka.actor.ActorSystem
 import akka.http.scaladsl.model._
 import akka.http.scaladsl.model.headers.ByteRange
 import akka.stream.Materializer
-import akka.stream.alpakka.s3.S3Settings
+import akka.stream.alpakka.s3.{ChunkingStrategy, FixedChunking, S3Settings}
 import akka.stream.alpakka.s3.acl.CannedAcl
 import akka.stream.alpakka.s3.auth.AWSCredentials
 import akka.stream.alpakka.s3.impl._
-import akka.stream.scaladsl.{Sink, Source}
+import akka.stream.scaladsl.{Flow, Sink, Source}
 import akka.util.ByteString
 import com.typesafe.config.ConfigFactory
 
+import scala.collection.immutable.Seq
 import scala.concurrent.Future
 
 final case class MultipartUploadResult(location: Uri, bucket: String, key: String, etag: String)
@@ -42,6 +43,24 @@ final case class ListBucketResultContents(
     storageClass: String
 )
 
+final case class PutObjectResult(
+    /** The name of the bucket in which this object is stored */
+    bucketName: String,
+    /** The key under which this object is stored */
+    key: String,
+    /** Hex encoded MD5 hash of this object's contents, as computed by Amazon S3 */
+    eTag: String
+)
+
+final case class ObjectMetadata(
+    /** The size of this object, in bytes */
+    size: Long,
+    /** Hex encoded MD5 hash of this object's contents, as computed by Amazon S3 */
+    eTag: String,
+    /** The date, according to Amazon S3, when this object was last modified */
+    lastModified: Instant
+)
+
 object S3Client {
   val MinChunkSize = 5242880
 
@@ -69,6 +88,35 @@ final class S3Client(val s3Settings: S3Settings)(implicit system: ActorSystem, m
   def download(bucket: String, key: String, range: ByteRange): Source[ByteString, NotUsed] =
     impl.download(S3Location(bucket, key), Some(range))
 
+  /**
+   * Reads many, possibly small, ranges of an object. Ranges that are close to each other are read with a single
+   * request, whose response is then split into views on the requested ranges.
+   * @param bucket Bucket of the object
+   * @param key Key of the object
+   * @param ranges Ranges to read
+   * @param maxGap Maximum number of unrequested bytes between two ranges that are read together
+   * @param maxMerged Maximum number of bytes read by one request, unless a single range is larger
+   * @param parallelism Number of requests run in parallel
+   * @return Future of the bytes of each range, in the order of `ranges`
+   */
+  def readRanges(bucket: String,
+                 key: String,
+                 ranges: Seq[ByteRange.Slice],
+                 maxGap: Long,
+                 maxMerged: Long,
+                 parallelism: Int = 4): Future[Seq[ByteString]] =
+    impl.readRanges(S3Location(bucket, key), ranges, maxGap, maxMerged, parallelism)
+
+  /**
+   * Will return the size, ETag and last modification of an object, from the cache if the
+   * `akka.stream.alpakka.s3.object-cache` is enabled and holds it.
+   * @param bucket Bucket of the object
+   * @param key Key of the object
+   * @return Future of the object metadata
+   */
+  def objectMetadata(bucket: String, key: String): Future[ObjectMetadata] =
+    impl.objectMetadata(S3Location(bucket, key))
+
   /**
    * Will return a source of object metadata for a given bucket with optional prefix.
    * This will automatically page through all keys with the given parameters.
@@ -79,6 +127,32 @@ final class S3Client(val s3Settings: S3Settings)(implicit system: ActorSystem, m
   def listBucket(bucket: String, prefix: Option[String]): Source[ListBucketResultContents, NotUsed] =
     impl.listBucket(bucket, prefix)
 
+  /**
+   * Uploads many objects concurrently, each with a single PUT request instead of a multipart upload. This avoids the
+   * initiate and complete requests for small objects, which must fit in memory. The first object that cannot be
+   * uploaded fails the stream, so that objects uploaded in parallel to it may complete without emitting their result.
+   * @param bucket Bucket to upload the objects to
+   * @param contentType Content type of all objects
+   * @param s3Headers Headers of all upload requests
+   * @param parallelism Number of objects uploaded in parallel
+   * @return Flow of (key, object content) pairs, emitting the results in the order the uploads complete
+   */
+  def putObjects(bucket: String,
+                 contentType: ContentType = ContentTypes.`application/octet-stream`,
+                 s3Headers: Option[S3Headers] = None,
+                 parallelism: Int = 4): Flow[(String, Source[ByteString, Any]), PutObjectResult, NotUsed] =
+    impl.putObjects(bucket, contentType, s3Headers.getOrElse(S3Headers.empty), parallelism)
+
+  /**
+   * Downloads many objects concurrently into memory. The first object that cannot be downloaded, e.g. because it does
+   * not exist, fails the stream.
+   * @param bucket Bucket to download the objects from
+   * @param parallelism Number of objects downloaded in parallel
+   * @return Flow of keys, emitting (key, object content) pairs in the order the downloads complete
+   */
+  def getObjects(bucket: String, parallelism: Int = 4): Flow[String, (String, ByteString), NotUsed] =
+    impl.getObjects(bucket, parallelism)
+
   def multipartUpload(bucket: String,
                       key: String,
                       contentType: ContentType = ContentTypes.`application/octet-stream`,
@@ -91,7 +165,7 @@ final class S3Client(val s3Settings: S3Settings)(implicit system: ActorSystem, m
         S3Location(bucket, key),
         contentType,
         S3Headers(cannedAcl, metaHeaders),
-        chunkSize,
+        FixedChunking(chunkSize),
         chunkingParallelism
       )
       .mapMaterializedValue(_.map(MultipartUploadResult.apply)(system.dispatcher))
@@ -109,9 +183,57 @@ final class S3Client(val s3Settings: S3Settings)(implicit system: ActorSystem, m
         S3Location(bucket, key),
         contentType,
         s3Headers.getOrElse(S3Headers.empty),
-        chunkSize,
+        FixedChunking(chunkSize),
         chunkingParallelism
       )
       .mapMaterializedValue(_.map(MultipartUploadResult.apply)(system.dispatcher))
 
+  /**
+   * Uploads a stream of bytes as a multipart upload whose part sizes are decided by a [[ChunkingStrategy]], e.g.
+   * [[akka.stream.alpakka.s3.AdaptiveChunking]] to upload streams of unknown length.
+   */
+  def multipartUploadWithChunking(
+      bucket: String,
+      key: String,
+      chunking: ChunkingStrategy,
+      contentType: ContentType = ContentTypes.`application/octet-stream`,
+      chunkingParallelism: Int = 4,
+      s3Headers: Option[S3Headers] = None
+  ): Sink[ByteString, Future[MultipartUploadResult]] =
+    impl
+      .multipartUpload(
+        S3Location(bucket, key),
+        contentType,
+        s3Headers.getOrElse(S3Headers.empty),
+        chunking,
+        chunkingParallelism
+      )
+      .mapMaterializedValue(_.map(MultipartUploadResult.apply)(system.dispatcher))
+
+  /**
+   * Copies an object to another location with a multipart upload whose parts are copied server-side by S3 using
+   * `UploadPartCopy`, so that none of the bytes are transferred through this client.
+   * @param sourceBucket Bucket of the object to copy
+   * @param sourceKey Key of the object to copy
+   * @param targetBucket Bucket to copy the object to
+   * @param targetKey Key to copy the object to
+   * @param partSize Number of bytes copied by each part, at least 5MB and at most 5GB
+   * @param parallelism Number of parts copied in parallel
+   * @return Future of the completed multipart upload of the copy
+   */
+  def multipartCopy(sourceBucket: String,
+                    sourceKey: String,
+                    targetBucket: String,
+                    targetKey: String,
+                    partSize: Long = MinChunkSize,
+                    parallelism: Int = 4): Future[MultipartUploadResult] =
+    impl
+      .multipartCopy(
+        S3Location(sourceBucket, sourceKey),
+        S3Location(targetBucket, targetKey),
+        s3Headers = S3Headers.empty,
+        partSize = partSize,
+        parallelism = parallelism
+      )
+      .map(MultipartUploadResult.apply)(system.dispatcher)
 }
@@ -0,0 +1,35 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.s3
+
+import org.scalatest.{FlatSpec, Matchers}
+
+class ChunkingStrategySpec extends FlatSpec with Matchers {
+
+  "FixedChunking" should "use the same size for every part" in {
+    val chunking = FixedChunking(5242880)
+    chunking.chunkSize(1) shouldBe 5242880
+    chunking.chunkSize(10000) shouldBe 5242880
+    chunking.maxChunkSize shouldBe 5242880
+  }
+
+  "AdaptiveChunking" should "double the part size after every step" in {
+    val chunking = AdaptiveChunking(initialSize = 5242880, partsPerStep = 1000)
+    chunking.chunkSize(1) shouldBe 5242880
+    chunking.chunkSize(1000) shouldBe 5242880
+    chunking.chunkSize(1001) shouldBe 10485760
+    chunking.chunkSize(3001) shouldBe 41943040
+  }
+
+  it should "not grow beyond the maximum size" in {
+    val chunking = AdaptiveChunking(initialSize = 5242880, partsPerStep = 1, maxSize = 20971520)
+    chunking.chunkSize(3) shouldBe 20971520
+    chunking.chunkSize(10000) shouldBe 20971520
+  }
+
+  it should "fit more than 3TB into 10000 parts with the default settings" in {
+    val chunking = AdaptiveChunking()
+    (1 to 10000).map(chunking.chunkSize(_).toLong).sum should be > 3L * 1024 * 1024 * 1024 * 1024
+  }
+}
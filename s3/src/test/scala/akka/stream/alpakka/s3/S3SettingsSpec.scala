@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.s3
+
+import akka.actor.ActorSystem
+import akka.stream.ActorMaterializer
+import akka.stream.alpakka.s3.auth.AWSCredentials
+import akka.stream.alpakka.s3.impl.S3Stream
+import akka.testkit.TestKit
+import com.typesafe.config.ConfigFactory
+import org.scalatest.{BeforeAndAfterAll, FlatSpecLike, Matchers}
+
+import scala.concurrent.duration._
+
+class S3SettingsSpec(_system: ActorSystem)
+    extends TestKit(_system)
+    with FlatSpecLike
+    with Matchers
+    with BeforeAndAfterAll {
+
+  def this() = this(ActorSystem("S3SettingsSpec"))
+
+  implicit val materializer = ActorMaterializer()
+
+  override def afterAll(): Unit = TestKit.shutdownActorSystem(system)
+
+  private def config(connectionPool: String) =
+    ConfigFactory
+      .parseString(s"akka.stream.alpakka.s3.connection-pool { $connectionPool }")
+      .withFallback(ConfigFactory.defaultReference())
+
+  "S3Settings" should "read the connection pool settings" in {
+    val settings = S3Settings(
+      config("max-connections = 16, max-open-requests = 64, pipelining-limit = 2, idle-timeout = 10 s")
+    )
+    settings.connectionPool shouldBe ConnectionPool(maxConnections = 16,
+                                                    maxOpenRequests = 64,
+                                                    pipeliningLimit = 2,
+                                                    idleTimeout = 10.seconds)
+  }
+
+  it should "default to the connection pool of the reference configuration" in {
+    S3Settings(ConfigFactory.defaultReference()).connectionPool shouldBe ConnectionPool.Default
+    ConnectionPool.Default.maxConnections shouldBe 4
+    ConnectionPool.Default.idleTimeout shouldBe 30.seconds
+  }
+
+  it should "use the default connection pool when created without one" in {
+    val settings =
+      S3Settings(MemoryBufferType, "", None, AWSCredentials("", ""), "us-east-1", pathStyleAccess = false)
+    settings.connectionPool shouldBe ConnectionPool.Default
+    settings.objectCache shouldBe ObjectCache.Disabled
+  }
+
+  "S3Stream" should "use the connection pool settings for all requests" in {
+    val settings = S3Settings(
+      config("max-connections = 16, max-open-requests = 64, pipelining-limit = 2, idle-timeout = 10 s")
+    )
+    val poolSettings = S3Stream(settings).poolSettings
+    poolSettings.maxConnections shouldBe 16
+    poolSettings.maxOpenRequests shouldBe 64
+    poolSettings.pipeliningLimit shouldBe 2
+    poolSettings.idleTimeout shouldBe 10.seconds
+  }
+}
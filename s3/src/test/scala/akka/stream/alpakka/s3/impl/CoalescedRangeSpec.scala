@@ -0,0 +1,48 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.s3.impl
+
+import akka.http.scaladsl.model.headers.ByteRange
+import akka.util.ByteString
+import org.scalatest.{FlatSpec, Matchers}
+
+import scala.collection.immutable.Seq
+
+class CoalescedRangeSpec extends FlatSpec with Matchers {
+
+  "CoalescedRange" should "merge ranges that are close to each other" in {
+    val ranges = Seq(ByteRange(30, 39), ByteRange(0, 9), ByteRange(12, 19))
+
+    CoalescedRange.coalesce(ranges, maxGap = 2, maxMerged = 100) shouldBe Seq(
+      CoalescedRange(ByteRange(0, 19), Seq(1 -> ByteRange(0, 9), 2 -> ByteRange(12, 19))),
+      CoalescedRange(ByteRange(30, 39), Seq(0 -> ByteRange(30, 39)))
+    )
+  }
+
+  it should "not merge ranges beyond the maximum merged size" in {
+    val ranges = Seq(ByteRange(0, 9), ByteRange(10, 19), ByteRange(20, 29))
+
+    CoalescedRange.coalesce(ranges, maxGap = 0, maxMerged = 20) shouldBe Seq(
+      CoalescedRange(ByteRange(0, 19), Seq(0 -> ByteRange(0, 9), 1 -> ByteRange(10, 19))),
+      CoalescedRange(ByteRange(20, 29), Seq(2 -> ByteRange(20, 29)))
+    )
+  }
+
+  it should "always merge overlapping ranges" in {
+    CoalescedRange.coalesce(Seq(ByteRange(0, 49), ByteRange(10, 59)), maxGap = 0, maxMerged = 10) shouldBe Seq(
+      CoalescedRange(ByteRange(0, 59), Seq(0 -> ByteRange(0, 49), 1 -> ByteRange(10, 59)))
+    )
+  }
+
+  it should "split the merged bytes into the requested ranges" in {
+    val coalesced =
+      CoalescedRange(ByteRange(10, 19), Seq(0 -> ByteRange(10, 12), 1 -> ByteRange(12, 13), 2 -> ByteRange(18, 19)))
+
+    coalesced.split(ByteString("0123456789")) shouldBe Seq(
+      0 -> ByteString("012"),
+      1 -> ByteString("23"),
+      2 -> ByteString("89")
+    )
+  }
+}
@@ -35,7 +35,7 @@ class DiskBufferSpec(_system: ActorSystem)
   "DiskBuffer" should
   "emit a chunk on its output containing the concatenation of all input values" in {
     val result = Source(Vector(ByteString(1, 2, 3, 4, 5), ByteString(6, 7, 8, 9, 10, 11, 12), ByteString(13, 14)))
-      .via(new DiskBuffer(1, 200, None))
+      .via(new DiskBuffer(200, None))
       .runWith(Sink.seq)
       .futureValue
 
@@ -49,7 +49,7 @@ class DiskBufferSpec(_system: ActorSystem)
     EventFilter[BufferOverflowException](occurrences = 1) intercept {
       whenReady(
         Source(Vector(ByteString(1, 2, 3, 4, 5), ByteString(6, 7, 8, 9, 10, 11, 12), ByteString(13, 14)))
-          .via(new DiskBuffer(1, 10, None))
+          .via(new DiskBuffer(10, None))
           .runWith(Sink.seq)
           .failed
       ) { e =>
@@ -58,25 +58,69 @@ class DiskBufferSpec(_system: ActorSystem)
     }
   }
 
-  it should "delete its temp file after N materializations" in {
+  it should "delete its temp file once its chunk is released" in {
     val tmpDir = Files.createTempDirectory("DiskBufferSpec").toFile()
-    val before = tmpDir.list().size
-    val source = Source(Vector(ByteString(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14)))
-      .via(new DiskBuffer(2, 200, Some(tmpDir.toPath)))
-      .runWith(Sink.seq)
+    val chunk = Source(Vector(ByteString(1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14)))
+      .via(new DiskBuffer(200, Some(tmpDir.toPath)))
+      .runWith(Sink.head)
       .futureValue
-      .head
-      .data
 
-    tmpDir.list().size should be(before + 1)
+    chunk.data.runWith(Sink.ignore).futureValue
+    chunk.data.runWith(Sink.ignore).futureValue
+    chunk.data.runWith(Sink.ignore).futureValue
+    tmpDir.list().size should be(1)
+
+    chunk.release(true)
+    tmpDir.list().size should be(0)
+  }
+
+  it should "reuse its file for later buffers once its chunk is released" in {
+    val tmpDir = Files.createTempDirectory("DiskBufferSpec").toFile()
+    val files = new DiskBufferFiles(Some(tmpDir.toPath), maxIdleBytes = 100)
+
+    def buffer(bytes: ByteString) =
+      Source
+        .single(bytes)
+        .via(new DiskBuffer(200, files))
+        .runWith(Sink.head)
+        .futureValue
+
+    val first = buffer(ByteString(1, 2, 3, 4, 5, 6, 7, 8))
+    first.data.runWith(Sink.ignore).futureValue
+    first.data.runWith(Sink.ignore).futureValue
+    val second = buffer(ByteString(9, 10, 11))
+    tmpDir.list().size should be(2)
+
+    // a retried read of a chunk that is not released yet still sees its own bytes
+    first.data.runWith(Sink.seq).futureValue should be(Seq(ByteString(1, 2, 3, 4, 5, 6, 7, 8)))
 
-    source.runWith(Sink.ignore).futureValue
-    tmpDir.list().size should be(before + 1)
+    first.release(true)
+    second.release(true)
+    val third = buffer(ByteString(12, 13))
+    tmpDir.list().size should be(2)
+    third.data.runWith(Sink.seq).futureValue should be(Seq(ByteString(12, 13)))
+  }
+
+  it should "delete rather than reuse the file of a chunk that may still be read" in {
+    val tmpDir = Files.createTempDirectory("DiskBufferSpec").toFile()
+    val files = new DiskBufferFiles(Some(tmpDir.toPath), maxIdleBytes = 100)
+    val chunk = Source.single(ByteString(1, 2, 3)).via(new DiskBuffer(200, files)).runWith(Sink.head).futureValue
+
+    chunk.release(false)
+    chunk.release(true)
+    tmpDir.list().size should be(0)
+  }
+
+  it should "only keep as many unused files as fit into maxIdleBytes" in {
+    val tmpDir = Files.createTempDirectory("DiskBufferSpec").toFile()
+    val files = new DiskBufferFiles(Some(tmpDir.toPath), maxIdleBytes = 10)
 
-    source.runWith(Sink.ignore).futureValue
-    eventually {
-      tmpDir.list().size should be(before)
+    val chunks = Seq(ByteString(1 to 6: _*), ByteString(1 to 6: _*), ByteString(1 to 20: _*)).map { bytes =>
+      Source.single(bytes).via(new DiskBuffer(200, files)).runWith(Sink.head).futureValue
     }
+    tmpDir.list().size should be(3)
 
+    chunks.foreach(_.release(true))
+    tmpDir.list().size should be(1)
   }
 }
@@ -4,12 +4,13 @@
 package akka.stream.alpakka.s3.impl
 
 import akka.http.scaladsl.model.Uri.Query
-import akka.http.scaladsl.model.headers.RawHeader
-import akka.http.scaladsl.model.{HttpEntity, MediaTypes}
+import akka.http.scaladsl.model.headers.{ByteRange, RawHeader}
+import akka.http.scaladsl.model.{HttpEntity, HttpMethods, MediaTypes}
 import akka.stream.alpakka.s3.{BufferType, MemoryBufferType, Proxy, S3Settings}
 import akka.stream.alpakka.s3.acl.CannedAcl
 import akka.stream.alpakka.s3.auth.AWSCredentials
 import akka.stream.scaladsl.Source
+import akka.util.ByteString
 import org.scalatest.concurrent.ScalaFutures
 import org.scalatest.{FlatSpec, Matchers}
 
@@ -208,6 +209,68 @@ class HttpRequestsSpec extends FlatSpec with Matchers with ScalaFutures {
     req.headers should contain(RawHeader("Cache-Control", "no-cache"))
   }
 
+  it should "put an object with a single request" in {
+    implicit val settings = getSettings()
+
+    val req =
+      HttpRequests.putObjectRequest(location, contentType, ByteString("content"), S3Headers(acl, MetaHeaders(metaHeaders)))
+
+    req.method shouldEqual HttpMethods.PUT
+    req.entity shouldEqual HttpEntity(contentType, ByteString("content"))
+    req.headers should contain(RawHeader("x-amz-acl", acl.value))
+    req.uri.authority.host.toString shouldEqual "bucket.s3.amazonaws.com"
+    req.uri.path.toString shouldEqual "/image-1024@2x"
+  }
+
+  it should "copy an upload part from a byte range of another object" in {
+    implicit val settings = getSettings()
+
+    val req =
+      HttpRequests.uploadPartCopyRequest(multipartUpload,
+                                         2,
+                                         S3Location("sourceBucket", "source folder/image.jpg"),
+                                         Some(ByteRange(5242880, 10485759)))
+
+    req.uri.authority.host.toString shouldEqual "testBucket.s3.amazonaws.com"
+    req.uri.query() shouldEqual Query("partNumber" -> "2", "uploadId" -> "uploadId")
+    req.headers should contain(RawHeader("x-amz-copy-source", "/sourceBucket/source%20folder/image.jpg"))
+    req.headers should contain(RawHeader("x-amz-copy-source-range", "bytes=5242880-10485759"))
+  }
+
+  it should "copy an upload part from a whole object when no range is given" in {
+    implicit val settings = getSettings()
+
+    val req = HttpRequests.uploadPartCopyRequest(multipartUpload, 1, S3Location("sourceBucket", "image.jpg"), None)
+
+    req.headers should contain(RawHeader("x-amz-copy-source", "/sourceBucket/image.jpg"))
+    req.headers.map(_.name) should not contain "x-amz-copy-source-range"
+  }
+
+  it should "keep empty segments and encode special characters of the copy source key" in {
+    implicit val settings = getSettings()
+
+    def copySource(key: String) =
+      HttpRequests
+        .uploadPartCopyRequest(multipartUpload, 1, S3Location("sourceBucket", key), None)
+        .headers
+        .find(_.name == "x-amz-copy-source")
+        .map(_.value)
+
+    copySource("dir/") shouldBe Some("/sourceBucket/dir/")
+    copySource("a//b") shouldBe Some("/sourceBucket/a//b")
+    copySource("100%+ü?") shouldBe Some("/sourceBucket/100%25%2B%C3%BC%3F")
+  }
+
+  it should "abort a multipart upload" in {
+    implicit val settings = getSettings()
+
+    val req = HttpRequests.abortMultipartUploadRequest(multipartUpload)
+
+    req.method shouldEqual HttpMethods.DELETE
+    req.uri.authority.host.toString shouldEqual "testBucket.s3.amazonaws.com"
+    req.uri.query() shouldEqual Query("uploadId" -> "uploadId")
+  }
+
   it should "properly construct the list bucket request with no prefix or continuation token passed" in {
     implicit val settings = getSettings(s3Region = "region", pathStyleAccess = true)
 
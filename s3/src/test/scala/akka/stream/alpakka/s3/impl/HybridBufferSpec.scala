@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.s3.impl
+
+import java.nio.file.Files
+
+import akka.actor.ActorSystem
+import akka.stream.{ActorMaterializer, ActorMaterializerSettings}
+import akka.stream.scaladsl.{Sink, Source}
+import akka.testkit.TestKit
+import akka.util.ByteString
+import org.scalatest.time.{Millis, Seconds, Span}
+import org.scalatest.{BeforeAndAfterAll, FlatSpecLike, Matchers}
+import org.scalatest.concurrent.{Eventually, ScalaFutures}
+
+class HybridBufferSpec(_system: ActorSystem)
+    extends TestKit(_system)
+    with FlatSpecLike
+    with Matchers
+    with BeforeAndAfterAll
+    with ScalaFutures
+    with Eventually {
+
+  def this() = this(ActorSystem("HybridBufferSpec"))
+
+  implicit val defaultPatience =
+    PatienceConfig(timeout = Span(2, Seconds), interval = Span(200, Millis))
+
+  implicit val materializer = ActorMaterializer(ActorMaterializerSettings(system).withDebugLogging(true))
+
+  val input = Vector(ByteString(1, 2, 3, 4, 5), ByteString(6, 7, 8, 9, 10, 11, 12), ByteString(13, 14))
+
+  "HybridBuffer" should "buffer in memory while the budget allows it" in {
+    val tmpDir = Files.createTempDirectory("HybridBufferSpec").toFile()
+    val budget = new MemoryBudget(100)
+
+    val chunk = Source(input)
+      .via(new HybridBuffer(200, budget, new DiskBufferFiles(Some(tmpDir.toPath), 0)))
+      .runWith(Sink.head)
+      .futureValue
+
+    chunk.size should be(14)
+    budget.available should be(86)
+    tmpDir.list().size should be(0)
+
+    chunk.data.runWith(Sink.seq).futureValue.reduce(_ ++ _) should be(ByteString(1 to 14: _*))
+    budget.available should be(86)
+
+    chunk.release(true)
+    budget.available should be(100)
+  }
+
+  it should "spill to disk once the budget is exhausted" in {
+    val tmpDir = Files.createTempDirectory("HybridBufferSpec").toFile()
+    val budget = new MemoryBudget(10)
+
+    val chunk = Source(input)
+      .via(new HybridBuffer(200, budget, new DiskBufferFiles(Some(tmpDir.toPath), 0)))
+      .runWith(Sink.head)
+      .futureValue
+
+    chunk.size should be(14)
+    budget.available should be(10)
+    tmpDir.list().size should be(1)
+
+    chunk.data.runWith(Sink.seq).futureValue.reduce(_ ++ _) should be(ByteString(1 to 14: _*))
+    chunk.release(true)
+    tmpDir.list().size should be(0)
+  }
+
+  it should "give back the budget of a chunk that is discarded without being read" in {
+    val budget = new MemoryBudget(100)
+
+    val chunk = Source(input)
+      .via(new HybridBuffer(200, budget, new DiskBufferFiles(None, 0)))
+      .runWith(Sink.head)
+      .futureValue
+
+    chunk.release(false)
+    chunk.release(false)
+    budget.available should be(100)
+  }
+
+  it should "give back the budget when the buffered stream fails" in {
+    val budget = new MemoryBudget(100)
+
+    Source(input)
+      .concat(Source.failed(new RuntimeException("upload failed")))
+      .via(new HybridBuffer(200, budget, new DiskBufferFiles(None, 0)))
+      .runWith(Sink.head)
+      .failed
+      .futureValue
+
+    eventually {
+      budget.available should be(100)
+    }
+  }
+}
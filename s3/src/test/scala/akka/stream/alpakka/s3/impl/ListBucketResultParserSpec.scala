@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.s3.impl
+
+import java.time.Instant
+
+import akka.actor.ActorSystem
+import akka.stream.{ActorMaterializer, ActorMaterializerSettings}
+import akka.stream.alpakka.s3.scaladsl.ListBucketResultContents
+import akka.stream.alpakka.xml.scaladsl.XmlParsing
+import akka.stream.scaladsl.{Keep, Sink, Source}
+import akka.testkit.TestKit
+import akka.util.ByteString
+import org.scalatest.concurrent.ScalaFutures
+import org.scalatest.{FlatSpecLike, Matchers}
+
+import scala.collection.immutable.Seq
+
+class ListBucketResultParserSpec(_system: ActorSystem)
+    extends TestKit(_system)
+    with FlatSpecLike
+    with Matchers
+    with ScalaFutures {
+
+  def this() = this(ActorSystem("ListBucketResultParserSpec"))
+
+  implicit val materializer = ActorMaterializer(ActorMaterializerSettings(system).withDebugLogging(true))
+  implicit val ec = materializer.executionContext
+
+  val xmlString = """<?xml version="1.0" encoding="UTF-8"?>
+                    |<ListBucketResult xmlns="http://s3.amazonaws.com/doc/2006-03-01/">
+                    |    <Name>bucket</Name>
+                    |    <Prefix/>
+                    |    <KeyCount>205</KeyCount>
+                    |    <MaxKeys>1000</MaxKeys>
+                    |    <IsTruncated>false</IsTruncated>
+                    |    <Contents>
+                    |        <Key>my-image.jpg</Key>
+                    |        <LastModified>2009-10-12T17:50:30.000Z</LastModified>
+                    |        <ETag>&quot;fba9dede5f27731c9771645a39863328&quot;</ETag>
+                    |        <Size>434234</Size>
+                    |        <StorageClass>STANDARD</StorageClass>
+                    |    </Contents>
+                    |    <Contents>
+                    |        <Key>my-image2.jpg</Key>
+                    |        <LastModified>2009-10-12T17:50:31.000Z</LastModified>
+                    |        <ETag>&quot;599bab3ed2c697f1d26842727561fd94&quot;</ETag>
+                    |        <Size>1234</Size>
+                    |        <StorageClass>REDUCED_REDUNDANCY</StorageClass>
+                    |    </Contents>
+                    |</ListBucketResult>""".stripMargin
+
+  val truncatedXmlString = """<?xml version="1.0" encoding="UTF-8"?>
+                             |<ListBucketResult xmlns="http://s3.amazonaws.com/doc/2006-03-01/">
+                             |    <Name>bucket</Name>
+                             |    <Prefix/>
+                             |    <NextContinuationToken>1ueGcxLPRx1Tr/XYExHnhbYLgveDs2J/wm36Hy4vbOwM=</NextContinuationToken>
+                             |    <KeyCount>1</KeyCount>
+                             |    <MaxKeys>1</MaxKeys>
+                             |    <IsTruncated>true</IsTruncated>
+                             |    <Contents>
+                             |        <Key>my-image.jpg</Key>
+                             |        <LastModified>2009-10-12T17:50:30.000Z</LastModified>
+                             |        <ETag>&quot;fba9dede5f27731c9771645a39863328&quot;</ETag>
+                             |        <Size>434234</Size>
+                             |        <StorageClass>STANDARD</StorageClass>
+                             |    </Contents>
+                             |</ListBucketResult>""".stripMargin
+
+  private def parse(xml: String, chunkSize: Int) =
+    Source(ByteString(xml).grouped(chunkSize).toList)
+      .via(XmlParsing.parser)
+      .viaMat(new ListBucketResultParser)(Keep.right)
+      .toMat(Sink.seq)(Keep.both)
+      .run()
+
+  "ListBucketResultParser" should "emit the contents of a list bucket result page" in {
+    val (token, contents) = parse(xmlString, 17)
+
+    contents.futureValue shouldEqual Seq(
+      ListBucketResultContents("bucket",
+                               "my-image.jpg",
+                               "fba9dede5f27731c9771645a39863328",
+                               434234,
+                               Instant.parse("2009-10-12T17:50:30Z"),
+                               "STANDARD"),
+      ListBucketResultContents("bucket",
+                               "my-image2.jpg",
+                               "599bab3ed2c697f1d26842727561fd94",
+                               1234,
+                               Instant.parse("2009-10-12T17:50:31Z"),
+                               "REDUCED_REDUNDANCY")
+    )
+    token.futureValue shouldBe None
+  }
+
+  it should "materialize the continuation token of a truncated page" in {
+    val (token, contents) = parse(truncatedXmlString, 1024)
+
+    token.futureValue shouldBe Some("1ueGcxLPRx1Tr/XYExHnhbYLgveDs2J/wm36Hy4vbOwM=")
+    contents.futureValue.map(_.key) shouldEqual Seq("my-image.jpg")
+  }
+
+}
@@ -0,0 +1,79 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.s3.impl
+
+import java.time.Instant
+
+import akka.http.scaladsl.model.headers.ByteRange
+import akka.stream.alpakka.s3.ObjectCache
+import akka.stream.alpakka.s3.scaladsl.ObjectMetadata
+import akka.util.ByteString
+import org.scalatest.{FlatSpec, Matchers}
+
+import scala.concurrent.duration._
+
+class LruObjectCacheSpec extends FlatSpec with Matchers {
+
+  val settings = ObjectCache(maxObjects = 2, maxRangeSize = 8, maxRangeBytes = 16, timeToLive = 1.minute)
+  val location = S3Location("bucket", "key")
+  val metadata = ObjectMetadata(100, "etag", Instant.parse("2017-06-01T10:00:00Z"))
+  val footer = Some(ByteRange(92, 99))
+
+  "LruObjectCache" should "cache the metadata of the most recently used objects" in {
+    val cache = new LruObjectCache(settings)
+    cache.update(S3Location("bucket", "a"), metadata)
+    cache.update(S3Location("bucket", "b"), metadata)
+    cache.metadataOf(S3Location("bucket", "a")) shouldBe Some(metadata)
+    cache.update(S3Location("bucket", "c"), metadata)
+
+    cache.metadataOf(S3Location("bucket", "a")) shouldBe Some(metadata)
+    cache.metadataOf(S3Location("bucket", "b")) shouldBe None
+    cache.metadataOf(S3Location("bucket", "c")) shouldBe Some(metadata)
+  }
+
+  it should "cache small ranges of the cached ETag only" in {
+    val cache = new LruObjectCache(settings)
+    cache.update(location, metadata)
+    cache.putRange(location, footer, "etag", ByteString("footer!!"))
+    cache.putRange(location, Some(ByteRange(0, 9)), "etag", ByteString("too large!"))
+    cache.putRange(location, Some(ByteRange(0, 1)), "other", ByteString("ab"))
+
+    cache.rangeOf(location, footer) shouldBe Some(ByteString("footer!!"))
+    cache.rangeOf(location, Some(ByteRange(0, 9))) shouldBe None
+    cache.rangeOf(location, Some(ByteRange(0, 1))) shouldBe None
+    cache.isCacheable(Some(ByteRange.suffix(4))) shouldBe false
+  }
+
+  it should "drop the least recently used ranges beyond the total size" in {
+    val cache = new LruObjectCache(settings)
+    cache.update(location, metadata)
+    cache.putRange(location, Some(ByteRange(0, 7)), "etag", ByteString("01234567"))
+    cache.putRange(location, Some(ByteRange(8, 15)), "etag", ByteString("89abcdef"))
+    cache.rangeOf(location, Some(ByteRange(0, 7))) shouldBe defined
+    cache.putRange(location, footer, "etag", ByteString("footer!!"))
+
+    cache.rangeOf(location, Some(ByteRange(0, 7))) shouldBe defined
+    cache.rangeOf(location, Some(ByteRange(8, 15))) shouldBe None
+    cache.rangeOf(location, footer) shouldBe defined
+  }
+
+  it should "drop the ranges of an object whose ETag has changed" in {
+    val cache = new LruObjectCache(settings)
+    cache.update(location, metadata)
+    cache.putRange(location, footer, "etag", ByteString("footer!!"))
+    cache.update(location, metadata.copy(eTag = "changed"))
+
+    cache.metadataOf(location).map(_.eTag) shouldBe Some("changed")
+    cache.rangeOf(location, footer) shouldBe None
+  }
+
+  it should "not use expired entries" in {
+    val cache = new LruObjectCache(settings.copy(timeToLive = Duration.Zero))
+    cache.update(location, metadata)
+    cache.putRange(location, footer, "etag", ByteString("footer!!"))
+
+    cache.metadataOf(location) shouldBe None
+    cache.rangeOf(location, footer) shouldBe None
+  }
+}
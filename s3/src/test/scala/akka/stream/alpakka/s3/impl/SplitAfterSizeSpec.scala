@@ -55,4 +55,29 @@ class SplitAfterSizeSpec(_system: ActorSystem)
     )
   }
 
+  it should "grow the minimum size of later substreams when the size depends on the substream number" in {
+    Source(Vector.fill(7)(ByteString(1, 2)))
+      .via(
+        SplitAfterSize
+          .varying(n => n * 2L)(Flow[ByteString])
+          .prefixAndTail(10)
+          .map { case (prefix, tail) => prefix }
+          .concatSubstreams
+      )
+      .runWith(Sink.seq)
+      .futureValue
+      .map(_.size) should be(Seq(1, 2, 3, 1))
+  }
+
+  it should "pass every substream through a flow created for its number" in {
+    Source(Vector.fill(7)(ByteString(1, 2)))
+      .via(
+        SplitAfterSize
+          .varyingVia(n => n * 2L, n => Flow[ByteString].fold(0)(_ + _.size).map(n -> _))(Flow[ByteString])
+          .concatSubstreams
+      )
+      .runWith(Sink.seq)
+      .futureValue should be(Seq(1 -> 2, 2 -> 4, 3 -> 6, 4 -> 2))
+  }
+
 }
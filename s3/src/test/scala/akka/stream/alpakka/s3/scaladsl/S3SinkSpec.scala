@@ -3,11 +3,14 @@
  */
 package akka.stream.alpakka.s3.scaladsl
 
+import akka.NotUsed
 import akka.stream.alpakka.s3.auth.AWSCredentials
-import akka.stream.alpakka.s3.{MemoryBufferType, Proxy, S3Settings}
+import akka.stream.alpakka.s3.{AdaptiveChunking, MemoryBufferType, Proxy, S3Settings}
 import akka.stream.alpakka.s3.impl.{S3Headers, ServerSideEncryption}
 import akka.stream.scaladsl.{Sink, Source}
 import akka.util.ByteString
+import com.github.tomakehurst.wiremock.client.WireMock._
+import com.github.tomakehurst.wiremock.matching.EqualToPattern
 
 import scala.concurrent.Future
 
@@ -45,6 +48,73 @@ class S3SinkSpec extends S3WireMockBase with S3ClientIntegrationSpec {
     result.futureValue shouldBe MultipartUploadResult(url, bucket, bucketKey, etag)
   }
 
+  it should "upload a stream of bytes with growing parts" in {
+
+    mockUpload()
+
+    //#adaptive-chunking
+    val s3Sink: Sink[ByteString, Future[MultipartUploadResult]] =
+      s3Client.multipartUploadWithChunking(bucket, bucketKey, AdaptiveChunking(partsPerStep = 100))
+    //#adaptive-chunking
+
+    val result: Future[MultipartUploadResult] = Source.single(ByteString(body)).runWith(s3Sink)
+
+    result.futureValue shouldBe MultipartUploadResult(url, bucket, bucketKey, etag)
+  }
+
+  it should "upload many objects with single requests" in {
+
+    mockPutObject()
+
+    //#put-objects
+    val objects: Source[(String, Source[ByteString, Any]), NotUsed] =
+      Source.single(bucketKey -> Source.single(ByteString(body)))
+
+    val result: Future[Seq[PutObjectResult]] = objects.via(s3Client.putObjects(bucket)).runWith(Sink.seq)
+    //#put-objects
+
+    result.futureValue shouldBe Seq(PutObjectResult(bucket, bucketKey, etag))
+  }
+
+  it should "copy an object with server-side copied parts" in {
+
+    mock.resetRequests()
+    mockCopy()
+
+    //#multipart-copy
+    val result: Future[MultipartUploadResult] = s3Client.multipartCopy(bucket, sourceKey, bucket, bucketKey)
+    //#multipart-copy
+
+    result.futureValue shouldBe MultipartUploadResult(url, bucket, bucketKey, etag)
+    mock.verifyThat(
+      putRequestedFor(urlEqualTo(s"/$bucketKey?partNumber=1&uploadId=$uploadId"))
+        .withHeader("x-amz-copy-source-range", new EqualToPattern(s"bytes=0-${sourceSize - 1}"))
+    )
+    mock.verifyThat(0, deleteRequestedFor(urlEqualTo(s"/$bucketKey?uploadId=$uploadId")))
+  }
+
+  it should "abort the copy when a part cannot be copied" in {
+
+    mock.resetRequests()
+    mockCopyPartFailure()
+
+    val result = s3Client.multipartCopy(bucket, sourceKey, bucket, bucketKey)
+
+    result.failed.futureValue.getMessage should include("internal error")
+    mock.verifyThat(deleteRequestedFor(urlEqualTo(s"/$bucketKey?uploadId=$uploadId")))
+    mock.verifyThat(0, postRequestedFor(urlEqualTo(s"/$bucketKey?uploadId=$uploadId")))
+  }
+
+  it should "reject parts larger than S3 copies" in {
+
+    mock.resetRequests()
+
+    an[IllegalArgumentException] should be thrownBy {
+      s3Client.multipartCopy(bucket, sourceKey, bucket, bucketKey, partSize = 6L * 1024 * 1024 * 1024)
+    }
+    mock.verifyThat(0, postRequestedFor(urlEqualTo(s"/$bucketKey?uploads")))
+  }
+
   it should "fail if request returns 404" in {
 
     mock404s()
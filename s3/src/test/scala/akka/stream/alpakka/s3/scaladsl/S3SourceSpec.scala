@@ -48,6 +48,42 @@ class S3SourceSpec extends S3WireMockBase with S3ClientIntegrationSpec {
     result.futureValue shouldBe rangeOfBody
   }
 
+  it should "read several ranges of an object with coalesced requests" in {
+
+    mockRangedDownload()
+
+    //#read-ranges
+    val ranges: Future[Seq[ByteString]] =
+      s3Client.readRanges(bucket, bucketKey, List(ByteRange(2, 4), ByteRange(8, 10)), maxGap = 1024, maxMerged = 65536)
+    //#read-ranges
+
+    ranges.futureValue.map(_.toArray.toSeq) shouldBe Seq(rangeOfBody.take(3).toSeq, rangeOfBody.takeRight(3).toSeq)
+  }
+
+  it should "read the metadata of an object" in {
+
+    mockCopy()
+
+    //#object-metadata
+    val metadata: Future[ObjectMetadata] = s3Client.objectMetadata(bucket, sourceKey)
+    //#object-metadata
+
+    metadata.futureValue.size shouldBe sourceSize
+    metadata.futureValue.eTag shouldBe "fba9dede5f27731c9771645a39863328"
+  }
+
+  it should "download many objects into memory" in {
+
+    mockDownload()
+
+    //#get-objects
+    val objects: Future[Seq[(String, ByteString)]] =
+      Source.single(bucketKey).via(s3Client.getObjects(bucket)).runWith(Sink.seq)
+    //#get-objects
+
+    objects.futureValue.map { case (key, data) => key -> data.utf8String } shouldBe Seq(bucketKey -> body)
+  }
+
   it should "fail if request returns 404" in {
 
     mock404s()
@@ -92,6 +92,19 @@ abstract class S3WireMockBase(_system: ActorSystem, _wireMockServer: WireMockSer
         )
       )
 
+  def mockPutObject(): Unit =
+    mock.register(
+      put(urlEqualTo(s"/$bucketKey"))
+        .withRequestBody(matching(body))
+        .willReturn(
+          aResponse()
+            .withStatus(200)
+            .withHeader("x-amz-id-2", "Zn8bf8aEFQ+kBnGPBc/JaAf9SoWM68QDPS9+SyFwkIZOHUG2BiRLZi5oXw4cOCEt")
+            .withHeader("x-amz-request-id", "5A37448A37622243")
+            .withHeader("ETag", "\"" + etag + "\"")
+        )
+    )
+
   def mockUpload(): Unit = {
     mock
       .register(
@@ -141,6 +154,60 @@ abstract class S3WireMockBase(_system: ActorSystem, _wireMockServer: WireMockSer
         )
     )
   }
+
+  val sourceKey = "source/image.jpg"
+  val sourceSize = 10
+
+  def mockCopy(): Unit = {
+    mockUpload()
+
+    mock.register(
+      get(urlEqualTo(s"/$sourceKey"))
+        .withHeader("Range", new EqualToPattern("bytes=0-0"))
+        .willReturn(
+          aResponse()
+            .withStatus(206)
+            .withHeader("ETag", """"fba9dede5f27731c9771645a39863328"""")
+            .withHeader("Last-Modified", "Mon, 12 Oct 2009 17:50:30 GMT")
+            .withHeader("Content-Range", s"bytes 0-0/$sourceSize")
+            .withBody("a")
+        )
+    )
+
+    mock.register(
+      put(urlEqualTo(s"/$bucketKey?partNumber=1&uploadId=$uploadId"))
+        .withHeader("x-amz-copy-source", new EqualToPattern(s"/$bucket/$sourceKey"))
+        .willReturn(
+          aResponse()
+            .withStatus(200)
+            .withHeader("Content-Type", "application/xml")
+            .withBody(s"""<?xml version="1.0" encoding="UTF-8"?>
+                         |<CopyPartResult>
+                         |  <LastModified>2009-10-12T17:50:30.000Z</LastModified>
+                         |  <ETag>"$etag"</ETag>
+                         |</CopyPartResult>""".stripMargin)
+        )
+    )
+
+    mock.register(
+      delete(urlEqualTo(s"/$bucketKey?uploadId=$uploadId")).willReturn(aResponse().withStatus(204))
+    )
+  }
+
+  def mockCopyPartFailure(): Unit = {
+    mockCopy()
+
+    mock.register(
+      put(urlEqualTo(s"/$bucketKey?partNumber=1&uploadId=$uploadId"))
+        .withHeader("x-amz-copy-source", new EqualToPattern(s"/$bucket/$sourceKey"))
+        .willReturn(
+          aResponse()
+            .withStatus(200)
+            .withHeader("Content-Type", "application/xml")
+            .withBody("<Error><Code>InternalError</Code><Message>We encountered an internal error.</Message></Error>")
+        )
+    )
+  }
 }
 
 private object S3WireMockBase {
@@ -0,0 +1,99 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.sqs
+
+import akka.NotUsed
+import akka.dispatch.ExecutionContexts
+import akka.stream.Materializer
+import akka.stream.alpakka.sqs.SqsBatchFlow.{batchException, handler, sendWithRetries, withMaterializer}
+import akka.stream.alpakka.sqs.scaladsl.AckResult
+import akka.stream.scaladsl.Flow
+import com.amazonaws.services.sqs.AmazonSQSAsync
+import com.amazonaws.services.sqs.model._
+
+import scala.collection.JavaConverters._
+import scala.collection.immutable
+import scala.concurrent.{Future, Promise}
+
+/**
+ * Acknowledges messages with `DeleteMessageBatch` and `ChangeMessageVisibilityBatch`, grouping up to `maxBatchSize`
+ * actions arriving within `maxBatchWait`. The visibility changes of a group are sent before its deletes, as changing
+ * the visibility of a message that has been deleted fails. Every batch request is passed on as the metadata of the
+ * results of its entries, and entries that failed are retried like with [[SqsBatchFlow]]. Entries that still fail fail
+ * the stream with a [[SqsBatchException]] reporting the failed message action pairs and the results of the others.
+ */
+private[sqs] object SqsAckBatchFlow {
+
+  def apply(queueUrl: String, settings: SqsBatchFlowSettings)(
+      implicit sqsClient: AmazonSQSAsync
+  ): Flow[MessageActionPair, AckResult, NotUsed] =
+    Flow[MessageActionPair]
+      .groupedWithin(settings.maxBatchSize, settings.maxBatchWait)
+      .via(withMaterializer[immutable.Seq[MessageActionPair]])
+      .mapAsync(settings.concurrentRequests) {
+        case (actions, materializer) => acknowledge(queueUrl, actions.toVector, materializer)
+      }
+      .mapConcat(identity)
+
+  private def acknowledge(queueUrl: String, actions: Vector[MessageActionPair], materializer: Materializer)(
+      implicit sqsClient: AmazonSQSAsync
+  ): Future[immutable.Seq[AckResult]] = {
+    implicit val ec = ExecutionContexts.sameThreadExecutionContext
+    val results = new Array[AckResult](actions.size)
+    val deletes = actions.indices.filter(index => actions(index)._2.isInstanceOf[Delete])
+    val visibilityChanges = actions.indices.filter(index => actions(index)._2.isInstanceOf[ChangeMessageVisibility])
+    actions.indices.filter(index => actions(index)._2.isInstanceOf[Ignore]).foreach { index =>
+      results(index) = AckResult(None, actions(index)._1.getBody)
+    }
+
+    // the id of an entry is the index of its action
+    def delete(indices: immutable.Seq[Int]) = {
+      val entries = indices.map { index =>
+        new DeleteMessageBatchRequestEntry(index.toString, actions(index)._1.getReceiptHandle)
+      }
+      val promise = Promise[DeleteMessageBatchResult]
+      sqsClient.deleteMessageBatchAsync(new DeleteMessageBatchRequest(queueUrl, entries.asJava),
+                                        handler[DeleteMessageBatchRequest, DeleteMessageBatchResult](promise))
+      promise.future.map { result =>
+        result.getSuccessful.asScala.foreach { entry =>
+          val index = entry.getId.toInt
+          results(index) = AckResult(Some(result), actions(index)._1.getBody)
+        }
+        result.getFailed.asScala.toList
+      }
+    }
+
+    def changeVisibility(indices: immutable.Seq[Int]) = {
+      val entries = indices.map { index =>
+        val (message, ChangeMessageVisibility(visibilityTimeout)) = actions(index)
+        new ChangeMessageVisibilityBatchRequestEntry(index.toString, message.getReceiptHandle)
+          .withVisibilityTimeout(visibilityTimeout)
+      }
+      val promise = Promise[ChangeMessageVisibilityBatchResult]
+      sqsClient.changeMessageVisibilityBatchAsync(
+        new ChangeMessageVisibilityBatchRequest(queueUrl, entries.asJava),
+        handler[ChangeMessageVisibilityBatchRequest, ChangeMessageVisibilityBatchResult](promise)
+      )
+      promise.future.map { result =>
+        result.getSuccessful.asScala.foreach { entry =>
+          val index = entry.getId.toInt
+          results(index) = AckResult(Some(result), actions(index)._1.getBody)
+        }
+        result.getFailed.asScala.toList
+      }
+    }
+
+    def send(indices: immutable.Seq[Int])(request: immutable.Seq[Int] => Future[List[BatchResultErrorEntry]]) =
+      if (indices.isEmpty) Future.successful(Nil) else sendWithRetries(indices, materializer)(request)
+
+    for {
+      failedChanges <- send(visibilityChanges)(changeVisibility)
+      failedDeletes <- send(deletes)(delete)
+    } yield {
+      val failed = failedChanges ++ failedDeletes
+      if (failed.isEmpty) results.toList
+      else throw batchException(failed, actions, results)
+    }
+  }
+}
@@ -0,0 +1,37 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.sqs
+
+import akka.japi.Pair
+import com.amazonaws.services.sqs.model.BatchResultErrorEntry
+
+import scala.collection.JavaConverters._
+import scala.collection.immutable
+
+/**
+ * Signals that entries of a batch request have failed, and could not be retried or failed again when retried.
+ *
+ * As the stream fails, the elements of the batch are reported here: the elements that have failed, which are the
+ * message bodies of a batch sent with `SqsFlow.batch` and the message action pairs of a batch acknowledged with
+ * `SqsAckFlow.grouped`, and the results of the elements that have been sent or acknowledged nevertheless.
+ *
+ * @param failed the elements that have failed, each with the error of its entry
+ * @param succeeded the results of the other elements, in the order of the batch
+ */
+final class SqsBatchException(message: String,
+                              val failed: immutable.Seq[(AnyRef, BatchResultErrorEntry)],
+                              val succeeded: immutable.Seq[AnyRef])
+    extends Exception(message) {
+
+  /**
+   * Java API: the elements that have failed, each with the error of its entry
+   */
+  def getFailed: java.util.List[Pair[AnyRef, BatchResultErrorEntry]] =
+    failed.map { case (element, entry) => Pair(element, entry) }.asJava
+
+  /**
+   * Java API: the results of the other elements, in the order of the batch
+   */
+  def getSucceeded: java.util.List[AnyRef] = succeeded.asJava
+}
@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.sqs
+
+import java.nio.charset.StandardCharsets
+
+import akka.NotUsed
+import akka.dispatch.ExecutionContexts
+import akka.stream.alpakka.sqs.scaladsl.Result
+import akka.stream.scaladsl.Flow
+import akka.stream.stage.{GraphStage, GraphStageLogic, InHandler, OutHandler}
+import akka.stream.{Attributes, FlowShape, Inlet, Materializer, Outlet}
+import com.amazonaws.AmazonWebServiceRequest
+import com.amazonaws.handlers.AsyncHandler
+import com.amazonaws.services.sqs.AmazonSQSAsync
+import com.amazonaws.services.sqs.model._
+
+import scala.collection.JavaConverters._
+import scala.collection.immutable
+import scala.concurrent.duration._
+import scala.concurrent.{Future, Promise}
+
+/**
+ * Sends messages with `SendMessageBatch`, grouping up to `maxBatchSize` messages arriving within `maxBatchWait` into a
+ * batch of at most 256 KB. Entries failing without being the sender's fault are sent again after
+ * `RetryInitialTimeout`, doubled for every further attempt, up to `MaxRetries` times. Entries that still fail fail
+ * the stream with a [[SqsBatchException]] reporting the failed messages and the results of the others.
+ */
+private[sqs] object SqsBatchFlow {
+
+  // SQS limits the total size of the messages of a batch
+  val MaxBatchBytes = 256 * 1024
+  val MaxRetries = 3
+  val RetryInitialTimeout = 100.millis
+
+  def apply(queueUrl: String, settings: SqsBatchFlowSettings)(
+      implicit sqsClient: AmazonSQSAsync
+  ): Flow[String, Result, NotUsed] =
+    Flow[String]
+      .groupedWithin(settings.maxBatchSize, settings.maxBatchWait)
+      .mapConcat(splitBySize)
+      .via(withMaterializer[immutable.Seq[String]])
+      .mapAsync(settings.concurrentRequests) {
+        case (messages, materializer) => send(queueUrl, messages.toVector, materializer)
+      }
+      .mapConcat(identity)
+
+  private def splitBySize(messages: immutable.Seq[String]): immutable.Seq[immutable.Seq[String]] = {
+    val batches = Vector.newBuilder[immutable.Seq[String]]
+    var batch = Vector.empty[String]
+    var bytes = 0
+    messages.foreach { message =>
+      val size = message.getBytes(StandardCharsets.UTF_8).length
+      if (batch.nonEmpty && bytes + size > MaxBatchBytes) {
+        batches += batch
+        batch = Vector.empty
+        bytes = 0
+      }
+      batch :+= message
+      bytes += size
+    }
+    if (batch.nonEmpty) batches += batch
+    batches.result()
+  }
+
+  private def send(queueUrl: String, messages: Vector[String], materializer: Materializer)(
+      implicit sqsClient: AmazonSQSAsync
+  ): Future[immutable.Seq[Result]] = {
+    val results = new Array[Result](messages.size)
+    // the id of an entry is the index of its message
+    sendWithRetries(messages.indices, materializer) { indices =>
+      val entries = indices.map(index => new SendMessageBatchRequestEntry(index.toString, messages(index)))
+      val promise = Promise[SendMessageBatchResult]
+      sqsClient.sendMessageBatchAsync(new SendMessageBatchRequest(queueUrl, entries.asJava),
+                                      handler[SendMessageBatchRequest, SendMessageBatchResult](promise))
+      promise.future.map { result =>
+        result.getSuccessful.asScala.foreach { entry =>
+          val index = entry.getId.toInt
+          results(index) = Result(toSendMessageResult(entry), messages(index))
+        }
+        result.getFailed.asScala.toList
+      }(ExecutionContexts.sameThreadExecutionContext)
+    }.map { failed =>
+      if (failed.isEmpty) results.toList
+      else throw batchException(failed, messages, results)
+    }(ExecutionContexts.sameThreadExecutionContext)
+  }
+
+  /**
+   * Sends the entries with the given indices with `send`, which returns the entries that have failed, and sends those
+   * that did not fail by the fault of the sender again after `RetryInitialTimeout`, doubled for every further attempt,
+   * up to `MaxRetries` times. Entry ids must be their indices. Returns the entries that have failed in the end.
+   */
+  private[sqs] def sendWithRetries(indices: immutable.Seq[Int], materializer: Materializer)(
+      send: immutable.Seq[Int] => Future[List[BatchResultErrorEntry]]
+  ): Future[List[BatchResultErrorEntry]] = {
+    implicit val ec = ExecutionContexts.sameThreadExecutionContext
+    def attempt(indices: immutable.Seq[Int], retry: Int): Future[List[BatchResultErrorEntry]] =
+      send(indices).flatMap { failed =>
+        if (retry < MaxRetries && failed.nonEmpty && !failed.exists(_.getSenderFault))
+          after(RetryInitialTimeout * (1L << retry), materializer).flatMap { _ =>
+            attempt(failed.map(_.getId.toInt), retry + 1)
+          }
+        else Future.successful(failed)
+      }
+    attempt(indices, 0)
+  }
+
+  private def after(delay: FiniteDuration, materializer: Materializer): Future[Unit] = {
+    val promise = Promise[Unit]
+    materializer.scheduleOnce(delay, new Runnable {
+      override def run(): Unit = promise.success(())
+    })
+    promise.future
+  }
+
+  /**
+   * Passes every element on together with the materializer of the stream, which schedules the retries of its batch.
+   */
+  private[sqs] def withMaterializer[T]: Flow[T, (T, Materializer), NotUsed] =
+    Flow.fromGraph(new GraphStage[FlowShape[T, (T, Materializer)]] {
+      private val in = Inlet[T]("withMaterializer.in")
+      private val out = Outlet[(T, Materializer)]("withMaterializer.out")
+
+      override def shape: FlowShape[T, (T, Materializer)] = FlowShape(in, out)
+
+      override def createLogic(inheritedAttributes: Attributes): GraphStageLogic =
+        new GraphStageLogic(shape) with InHandler with OutHandler {
+          override def onPush(): Unit = push(out, (grab(in), materializer))
+          override def onPull(): Unit = pull(in)
+          setHandlers(in, out, this)
+        }
+    })
+
+  private[sqs] def handler[Request <: AmazonWebServiceRequest, Response](
+      promise: Promise[Response]
+  ): AsyncHandler[Request, Response] =
+    new AsyncHandler[Request, Response] {
+      override def onError(exception: Exception): Unit = promise.failure(exception)
+
+      override def onSuccess(request: Request, result: Response): Unit = promise.success(result)
+    }
+
+  private def toSendMessageResult(entry: SendMessageBatchResultEntry): SendMessageResult =
+    new SendMessageResult()
+      .withMessageId(entry.getMessageId)
+      .withMD5OfMessageBody(entry.getMD5OfMessageBody)
+      .withMD5OfMessageAttributes(entry.getMD5OfMessageAttributes)
+      .withSequenceNumber(entry.getSequenceNumber)
+
+  /**
+   * Reports the failed entries of a batch together with their elements, and the results of all other elements, which
+   * are null in `results`.
+   */
+  private[sqs] def batchException(failed: Seq[BatchResultErrorEntry],
+                                  elements: immutable.IndexedSeq[AnyRef],
+                                  results: Array[_ <: AnyRef]): SqsBatchException =
+    new SqsBatchException(
+      s"${failed.size} entries of the batch failed: " +
+      failed.map(entry => s"${entry.getCode} (${entry.getMessage})").mkString(", "),
+      failed.map(entry => (elements(entry.getId.toInt), entry)).toList,
+      results.filter(_ != null).toList
+    )
+}
@@ -0,0 +1,22 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.sqs
+
+import scala.concurrent.duration._
+
+object SqsBatchFlowSettings {
+  val Defaults = SqsBatchFlowSettings(maxBatchSize = 10, maxBatchWait = 500.millis, concurrentRequests = 1)
+
+  def create(maxBatchSize: Int, maxBatchWait: FiniteDuration, concurrentRequests: Int): SqsBatchFlowSettings =
+    SqsBatchFlowSettings(maxBatchSize, maxBatchWait, concurrentRequests)
+}
+
+//#SqsBatchFlowSettings
+final case class SqsBatchFlowSettings(maxBatchSize: Int, maxBatchWait: FiniteDuration, concurrentRequests: Int) {
+  require(concurrentRequests > 0)
+  // SQS requirements
+  require(1 <= maxBatchSize && maxBatchSize <= 10,
+          s"Invalid value ($maxBatchSize) for maxBatchSize. Requirement: 1 <= maxBatchSize <= 10 ")
+}
+//#SqsBatchFlowSettings
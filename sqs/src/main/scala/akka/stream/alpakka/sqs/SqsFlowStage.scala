@@ -12,7 +12,11 @@ import com.amazonaws.services.sqs.model.{SendMessageRequest, SendMessageResult}
 import scala.concurrent.{Future, Promise}
 import scala.util.{Failure, Success, Try}
 
-private[sqs] final class SqsFlowStage(queueUrl: String, sqsClient: AmazonSQSAsync)
+/**
+ * Sends every message with `sendMessageAsync` and emits the future result right away. Elements are only pulled while
+ * less than `maxInFlight` messages are being sent.
+ */
+private[sqs] final class SqsFlowStage(queueUrl: String, sqsClient: AmazonSQSAsync, maxInFlight: Int)
     extends GraphStage[FlowShape[String, Future[Result]]] {
 
   private val in = Inlet[String]("messages")
@@ -49,8 +53,13 @@ private[sqs] final class SqsFlowStage(queueUrl: String, sqsClient: AmazonSQSAsyn
         inFlight -= 1
         if (inFlight == 0 && inIsClosed)
           checkForCompletion()
+        else if (isAvailable(out))
+          pullIfAllowed()
       }
 
+      private def pullIfAllowed(): Unit =
+        if (inFlight < maxInFlight && !hasBeenPulled(in)) tryPull(in)
+
       def checkForCompletion() =
         if (isClosed(in) && inFlight <= 0) {
           completionState match {
@@ -62,7 +71,7 @@ private[sqs] final class SqsFlowStage(queueUrl: String, sqsClient: AmazonSQSAsyn
 
       setHandler(out, new OutHandler {
         override def onPull() =
-          tryPull(in)
+          pullIfAllowed()
       })
 
       setHandler(
@@ -0,0 +1,30 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.sqs
+
+/**
+ * Live view of the state of a running [[SqsSourceStage]], updated by the stage whenever it changes.
+ */
+final class SqsSourceMetrics private[sqs] () {
+  @volatile private[sqs] var _inFlightRequests = 0
+  @volatile private[sqs] var _bufferedMessages = 0
+  @volatile private[sqs] var _concurrency = 0
+  @volatile private[sqs] var _fillRatio = 0.0
+
+  /** Number of receive requests waiting for a response */
+  def inFlightRequests: Int = _inFlightRequests
+
+  /** Number of received messages waiting for downstream demand */
+  def bufferedMessages: Int = _bufferedMessages
+
+  /** Number of receive requests the stage currently allows to be in flight */
+  def concurrency: Int = _concurrency
+
+  /** Average share of the requested messages recent receive requests have returned, between 0 and 1 */
+  def fillRatio: Double = _fillRatio
+
+  override def toString: String =
+    s"SqsSourceMetrics(inFlightRequests=$inFlightRequests, bufferedMessages=$bufferedMessages, " +
+    s"concurrency=$concurrency, fillRatio=$fillRatio)"
+}
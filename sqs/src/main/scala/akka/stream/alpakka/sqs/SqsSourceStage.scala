@@ -5,7 +5,7 @@ package akka.stream.alpakka.sqs
 
 import java.util
 
-import akka.stream.stage.{GraphStage, GraphStageLogic, OutHandler}
+import akka.stream.stage.{GraphStageLogic, GraphStageWithMaterializedValue, OutHandler}
 import akka.stream.{Attributes, Outlet, SourceShape}
 import com.amazonaws.handlers.AsyncHandler
 import com.amazonaws.services.sqs.AmazonSQSAsync
@@ -13,14 +13,23 @@ import com.amazonaws.services.sqs.model.{Message, ReceiveMessageRequest, Receive
 
 import scala.collection.JavaConverters._
 
+/**
+ * Receives messages with up to `maxBufferSize / maxBatchSize` concurrent long polls.
+ *
+ * The number of concurrent polls adapts to the queue: a poll returning no messages halves it, and it grows by one
+ * whenever recent polls have returned on average at least half of the messages requested, or downstream asks for a
+ * message while none is buffered, as long as at most half of the buffer is in use.
+ */
 final class SqsSourceStage(queueUrl: String, settings: SqsSourceSettings)(implicit sqsClient: AmazonSQSAsync)
-    extends GraphStage[SourceShape[Message]] {
+    extends GraphStageWithMaterializedValue[SourceShape[Message], SqsSourceMetrics] {
+  import SqsSourceStage._
 
   val out: Outlet[Message] = Outlet("SqsSource.out")
   override val shape: SourceShape[Message] = SourceShape(out)
 
-  override def createLogic(inheritedAttributes: Attributes): GraphStageLogic =
-    new GraphStageLogic(shape) {
+  override def createLogicAndMaterializedValue(inheritedAttributes: Attributes): (GraphStageLogic, SqsSourceMetrics) = {
+    val metrics = new SqsSourceMetrics
+    val logic = new GraphStageLogic(shape) {
 
       private val maxConcurrency = settings.maxBufferSize / settings.maxBatchSize
       private val buffer = new util.ArrayDeque[Message]()
@@ -29,12 +38,18 @@ final class SqsSourceStage(queueUrl: String, settings: SqsSourceSettings)(implic
 
       private val failureCallback = getAsyncCallback[Exception](handleFailure)
 
-      private var maxCurrentConcurrency = maxConcurrency
+      private var concurrency = maxConcurrency
+      private var fillRatio = 1.0
       private var currentRequests = 0
 
       private def canReceiveNewMessages = {
         val currentFreeRequests = (settings.maxBufferSize - buffer.size) / settings.maxBatchSize
-        currentFreeRequests > currentRequests && maxCurrentConcurrency > currentRequests
+        currentFreeRequests > currentRequests && concurrency > currentRequests
+      }
+
+      private def receiveAll(): Unit = {
+        while (canReceiveNewMessages) receiveMessages()
+        updateMetrics()
       }
 
       def receiveMessages(): Unit = {
@@ -65,7 +80,11 @@ final class SqsSourceStage(queueUrl: String, settings: SqsSourceSettings)(implic
       def handleSuccess(result: ReceiveMessageResult): Unit = {
 
         currentRequests = currentRequests - 1
-        maxCurrentConcurrency = if (result.getMessages.isEmpty) 1 else maxConcurrency
+
+        val received = result.getMessages.size
+        fillRatio = FillRatioWeight * received / settings.maxBatchSize + (1 - FillRatioWeight) * fillRatio
+        if (received == 0) concurrency = math.max(1, concurrency / 2)
+        else if (fillRatio >= 0.5) increaseConcurrency()
 
         result.getMessages.asScala.reverse.foreach(buffer.offer)
 
@@ -73,24 +92,39 @@ final class SqsSourceStage(queueUrl: String, settings: SqsSourceSettings)(implic
           push(out, buffer.poll())
         }
 
-        if (canReceiveNewMessages) {
-          receiveMessages()
-        }
+        receiveAll()
+      }
+
+      private def increaseConcurrency(): Unit =
+        if (buffer.size <= settings.maxBufferSize / 2) concurrency = math.min(maxConcurrency, concurrency + 1)
+
+      private def updateMetrics(): Unit = {
+        metrics._inFlightRequests = currentRequests
+        metrics._bufferedMessages = buffer.size
+        metrics._concurrency = concurrency
+        metrics._fillRatio = fillRatio
       }
 
       setHandler(
         out,
         new OutHandler {
-          override def onPull(): Unit =
+          override def onPull(): Unit = {
             if (!buffer.isEmpty) {
               push(out, buffer.poll())
-              if (canReceiveNewMessages) {
-                receiveMessages()
-              }
             } else {
-              receiveMessages()
+              // downstream is waiting for messages
+              increaseConcurrency()
             }
+            receiveAll()
+          }
         }
       )
     }
+    (logic, metrics)
+  }
+}
+
+private object SqsSourceStage {
+  // weight of the latest response in the average fill ratio
+  val FillRatioWeight = 0.3
 }
@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.sqs
+
+import java.util
+
+import akka.stream.alpakka.sqs.scaladsl.Result
+import akka.stream.stage._
+import akka.stream.{Attributes, FlowShape, Inlet, Outlet}
+import com.amazonaws.handlers.AsyncHandler
+import com.amazonaws.services.sqs.AmazonSQSAsync
+import com.amazonaws.services.sqs.model.{SendMessageRequest, SendMessageResult}
+
+import scala.util.{Failure, Success, Try}
+
+/**
+ * Sends every message with `sendMessageAsync` and emits the results in the order the sends complete. Elements are
+ * only pulled while less than `maxInFlight` messages are being sent or have been sent but not emitted yet.
+ */
+private[sqs] final class SqsUnorderedFlowStage(queueUrl: String, sqsClient: AmazonSQSAsync, maxInFlight: Int)
+    extends GraphStage[FlowShape[String, Result]] {
+
+  private val in = Inlet[String]("messages")
+  private val out = Outlet[Result]("result")
+  override val shape = FlowShape(in, out)
+
+  override def createLogic(inheritedAttributes: Attributes): GraphStageLogic =
+    new GraphStageLogic(shape) with StageLogging {
+      private var inFlight = 0
+      private val completed = new util.ArrayDeque[Result]()
+      var completionState: Option[Try[Unit]] = None
+
+      override protected def logSource: Class[_] = classOf[SqsUnorderedFlowStage]
+
+      var failureCallback: AsyncCallback[Exception] = _
+      var sendCallback: AsyncCallback[Result] = _
+
+      override def preStart(): Unit = {
+        super.preStart()
+        failureCallback = getAsyncCallback[Exception](handleFailure)
+        sendCallback = getAsyncCallback[Result](handleSend)
+      }
+
+      private def handleFailure(exception: Exception): Unit = {
+        log.error(exception, "Client failure: {}", exception.getMessage)
+        failStage(exception)
+      }
+
+      private def handleSend(result: Result): Unit = {
+        log.debug(s"Sent message {}", result.metadata.getMessageId)
+        inFlight -= 1
+        if (isAvailable(out)) push(out, result)
+        else completed.add(result)
+        pullIfAllowed()
+        checkForCompletion()
+      }
+
+      private def pullIfAllowed(): Unit =
+        if (inFlight + completed.size < maxInFlight && !hasBeenPulled(in)) tryPull(in)
+
+      def checkForCompletion() =
+        if (isClosed(in) && inFlight == 0 && completed.isEmpty) {
+          completionState match {
+            case Some(Success(_)) => completeStage()
+            case Some(Failure(ex)) => failStage(ex)
+            case None => failStage(new IllegalStateException("Stage completed, but there is no info about status"))
+          }
+        }
+
+      setHandler(
+        out,
+        new OutHandler {
+          override def onPull() = {
+            if (!completed.isEmpty) push(out, completed.poll())
+            pullIfAllowed()
+            checkForCompletion()
+          }
+        }
+      )
+
+      setHandler(
+        in,
+        new InHandler {
+
+          override def onUpstreamFinish() = {
+            completionState = Some(Success(()))
+            checkForCompletion()
+          }
+
+          override def onUpstreamFailure(ex: Throwable) = {
+            completionState = Some(Failure(ex))
+            checkForCompletion()
+          }
+
+          override def onPush() = {
+            inFlight += 1
+            val msg = grab(in)
+
+            sqsClient.sendMessageAsync(
+              new SendMessageRequest(queueUrl, msg),
+              new AsyncHandler[SendMessageRequest, SendMessageResult] {
+
+                override def onError(exception: Exception): Unit =
+                  failureCallback.invoke(exception)
+
+                override def onSuccess(request: SendMessageRequest, result: SendMessageResult): Unit =
+                  sendCallback.invoke(Result(result, msg))
+              }
+            )
+            pullIfAllowed()
+          }
+        }
+      )
+    }
+}
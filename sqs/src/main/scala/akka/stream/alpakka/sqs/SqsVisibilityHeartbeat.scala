@@ -0,0 +1,202 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.sqs
+
+import java.util.concurrent.ConcurrentHashMap
+
+import akka.NotUsed
+import akka.actor.{ActorSystem, Cancellable}
+import akka.dispatch.ExecutionContexts
+import akka.stream.alpakka.sqs.SqsBatchFlow.handler
+import akka.stream.scaladsl.Flow
+import com.amazonaws.services.sqs.AmazonSQSAsync
+import com.amazonaws.services.sqs.model._
+
+import scala.collection.JavaConverters._
+import scala.concurrent.Promise
+import scala.concurrent.duration._
+import scala.util.{Failure, Success}
+
+object SqsVisibilityHeartbeatSettings {
+  val Defaults = SqsVisibilityHeartbeatSettings(visibilityTimeout = 30.seconds,
+                                                extendBefore = 10.seconds,
+                                                checkInterval = 5.seconds,
+                                                maxExtension = 1.hour)
+
+  def create(visibilityTimeout: FiniteDuration,
+             extendBefore: FiniteDuration,
+             checkInterval: FiniteDuration,
+             maxExtension: FiniteDuration): SqsVisibilityHeartbeatSettings =
+    SqsVisibilityHeartbeatSettings(visibilityTimeout, extendBefore, checkInterval, maxExtension)
+}
+
+//#SqsVisibilityHeartbeatSettings
+final case class SqsVisibilityHeartbeatSettings(visibilityTimeout: FiniteDuration,
+                                                extendBefore: FiniteDuration,
+                                                checkInterval: FiniteDuration,
+                                                maxExtension: FiniteDuration) {
+  require(extendBefore < visibilityTimeout, "extendBefore must be shorter than visibilityTimeout")
+  require(checkInterval < extendBefore, "checkInterval must be shorter than extendBefore")
+  require(visibilityTimeout <= maxExtension, "visibilityTimeout must not be longer than maxExtension")
+  // SQS requirements
+  require(visibilityTimeout.toSeconds <= 43200,
+          s"Invalid value ($visibilityTimeout) for visibilityTimeout. Requirement: visibilityTimeout <= 12 hours")
+  require(maxExtension.toSeconds <= 43200,
+          s"Invalid value ($maxExtension) for maxExtension. Requirement: maxExtension <= 12 hours")
+}
+//#SqsVisibilityHeartbeatSettings
+
+object SqsVisibilityHeartbeat {
+
+  /**
+   * A tracked message becomes visible again at `deadline`, and its visibility timeout is extended up to
+   * `extendableUntil` at most, both in nanos.
+   */
+  private final case class Tracked(deadline: Long, extendableUntil: Long, extending: Boolean = false)
+
+  /**
+   * Java API: starts a heartbeat extending the visibility timeout of messages of a SQS queue
+   */
+  def create(queueUrl: String,
+             settings: SqsVisibilityHeartbeatSettings,
+             sqsClient: AmazonSQSAsync,
+             system: ActorSystem): SqsVisibilityHeartbeat =
+    new SqsVisibilityHeartbeat(queueUrl, settings)(sqsClient, system)
+}
+
+/**
+ * Keeps messages of a queue invisible to other consumers while they are processed.
+ *
+ * Messages passing [[track]] are expected to become visible again `visibilityTimeout` after that, and every
+ * `checkInterval` the visibility timeout of those that would become visible within `extendBefore` is set to
+ * `visibilityTimeout` again, with `ChangeMessageVisibilityBatch`, until the message passes [[release]] on its way to
+ * being acknowledged. A message is kept invisible for at most `maxExtension` after it has been tracked, so that a
+ * message stuck in processing becomes visible to other consumers eventually. Messages whose visibility cannot be
+ * changed anymore, e.g. because they have been deleted by other means, and the messages of a stream whose [[track]]
+ * flow has terminated are not tracked any longer.
+ *
+ * The heartbeat keeps running until [[shutdown]] is called.
+ */
+final class SqsVisibilityHeartbeat(queueUrl: String, settings: SqsVisibilityHeartbeatSettings)(
+    implicit sqsClient: AmazonSQSAsync,
+    system: ActorSystem
+) {
+  import SqsVisibilityHeartbeat.Tracked
+  import system.dispatcher
+
+  private val tracking = new ConcurrentHashMap[String, Tracked]()
+
+  private val heartbeat: Cancellable =
+    system.scheduler.schedule(settings.checkInterval, settings.checkInterval)(extendExpiring(System.nanoTime()))
+
+  /**
+   * Flow tracking the messages passing it, place it right after the source. The messages it has tracked are not tracked
+   * any longer when its stream terminates.
+   */
+  val track: Flow[Message, Message, NotUsed] =
+    Flow[Message].prefixAndTail(0).flatMapConcat {
+      case (_, messages) =>
+        val handles = ConcurrentHashMap.newKeySet[String]()
+        messages
+          .map { message =>
+            val now = System.nanoTime()
+            handles.add(message.getReceiptHandle)
+            tracking.put(message.getReceiptHandle,
+                         Tracked(now + settings.visibilityTimeout.toNanos, now + settings.maxExtension.toNanos))
+            message
+          }
+          .watchTermination() { (_, terminated) =>
+            terminated.onComplete { _ =>
+              handles.asScala.foreach(handle => tracking.remove(handle))
+            }(ExecutionContexts.sameThreadExecutionContext)
+            NotUsed
+          }
+    }
+
+  /**
+   * Flow that stops tracking the messages passing it, place it right before the acknowledging flow or sink
+   */
+  val release: Flow[MessageActionPair, MessageActionPair, NotUsed] =
+    Flow[MessageActionPair].map { pair =>
+      tracking.remove(pair._1.getReceiptHandle)
+      pair
+    }
+
+  /**
+   * Java API: flow tracking the messages passing it, place it right after the source
+   */
+  def getTrack: akka.stream.javadsl.Flow[Message, Message, NotUsed] = track.asJava
+
+  /**
+   * Java API: flow that stops tracking the messages passing it, place it right before the acknowledging flow or sink
+   */
+  def getRelease: akka.stream.javadsl.Flow[MessageActionPair, MessageActionPair, NotUsed] = release.asJava
+
+  /**
+   * Number of messages currently tracked
+   */
+  def tracked: Int = tracking.size
+
+  /**
+   * Stops extending the visibility timeout of all messages
+   */
+  def shutdown(): Unit = {
+    heartbeat.cancel()
+    tracking.clear()
+  }
+
+  /**
+   * Extends the visibility timeout of the messages becoming visible within `extendBefore` of `now`, in nanos, unless
+   * their visibility timeout is being extended already.
+   */
+  private[sqs] def extendExpiring(now: Long): Unit = {
+    val extendUntil = now + settings.extendBefore.toNanos
+    val expiring = tracking.asScala.toList.flatMap {
+      case (handle, tracked) if !tracked.extending && tracked.deadline < extendUntil =>
+        val visibilityTimeout = math.min(settings.visibilityTimeout.toNanos, tracked.extendableUntil - now).nanos
+        if (visibilityTimeout.toSeconds < 1) {
+          // kept invisible for maxExtension already
+          tracking.remove(handle, tracked)
+          Nil
+        } else {
+          val extending = tracked.copy(extending = true)
+          if (tracking.replace(handle, tracked, extending)) List((handle, extending, visibilityTimeout)) else Nil
+        }
+      case _ => Nil
+    }
+    expiring.grouped(10).foreach(extend(now, _))
+  }
+
+  private def extend(now: Long, messages: List[(String, Tracked, FiniteDuration)]): Unit = {
+    val byId = messages.zipWithIndex.map { case (message, index) => index.toString -> message }.toMap
+    val entries = byId.map {
+      case (id, (handle, _, visibilityTimeout)) =>
+        new ChangeMessageVisibilityBatchRequestEntry(id, handle)
+          .withVisibilityTimeout(visibilityTimeout.toSeconds.toInt)
+    }
+    val promise = Promise[ChangeMessageVisibilityBatchResult]
+    sqsClient.changeMessageVisibilityBatchAsync(
+      new ChangeMessageVisibilityBatchRequest(queueUrl, entries.toList.asJava),
+      handler[ChangeMessageVisibilityBatchRequest, ChangeMessageVisibilityBatchResult](promise)
+    )
+    // messages released in the meantime stay released
+    promise.future.onComplete {
+      case Success(result) =>
+        result.getSuccessful.asScala.foreach { entry =>
+          val (handle, tracked, visibilityTimeout) = byId(entry.getId)
+          tracking.replace(handle, tracked, Tracked(now + visibilityTimeout.toNanos, tracked.extendableUntil))
+        }
+        result.getFailed.asScala.foreach { entry =>
+          val (handle, tracked, _) = byId(entry.getId)
+          if (entry.getSenderFault) tracking.remove(handle, tracked)
+          else tracking.replace(handle, tracked, tracked.copy(extending = false))
+        }
+      case Failure(_) =>
+        // retried on the next check, if the messages are still tracked then
+        messages.foreach {
+          case (handle, tracked, _) => tracking.replace(handle, tracked, tracked.copy(extending = false))
+        }
+    }(ExecutionContexts.sameThreadExecutionContext)
+  }
+}
@@ -25,4 +25,11 @@ object SqsAckFlow {
   def create(queueUrl: String, sqsClient: AmazonSQSAsync): Flow[MessageActionPair, AckResult, NotUsed] =
     create(queueUrl, SqsAckSinkSettings.Defaults, sqsClient)
 
+  /**
+   * Java API: creates a flow acknowledging messages of a SQS queue in batches using an [[AmazonSQSAsync]]
+   */
+  def createGrouped(queueUrl: String,
+                    settings: SqsBatchFlowSettings,
+                    sqsClient: AmazonSQSAsync): Flow[MessageActionPair, AckResult, NotUsed] =
+    scaladsl.SqsAckFlow.grouped(queueUrl, settings)(sqsClient).asJava
 }
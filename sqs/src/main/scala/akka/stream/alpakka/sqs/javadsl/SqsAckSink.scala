@@ -5,7 +5,7 @@ package akka.stream.alpakka.sqs.javadsl
 
 import java.util.concurrent.CompletionStage
 import akka.Done
-import akka.stream.alpakka.sqs.{scaladsl, MessageActionPair, SqsAckFlowStage, SqsAckSinkSettings}
+import akka.stream.alpakka.sqs.{scaladsl, MessageActionPair, SqsAckFlowStage, SqsAckSinkSettings, SqsBatchFlowSettings}
 import akka.stream.javadsl.Sink
 import com.amazonaws.services.sqs.AmazonSQSAsync
 import scala.compat.java8.FutureConverters.FutureOps
@@ -25,4 +25,12 @@ object SqsAckSink {
    */
   def create(queueUrl: String, sqsClient: AmazonSQSAsync): Sink[MessageActionPair, CompletionStage[Done]] =
     create(queueUrl, SqsAckSinkSettings.Defaults, sqsClient)
+
+  /**
+   * Java API: creates a sink acknowledging messages of a SQS queue in batches using an [[AmazonSQSAsync]]
+   */
+  def createGrouped(queueUrl: String,
+                    settings: SqsBatchFlowSettings,
+                    sqsClient: AmazonSQSAsync): Sink[MessageActionPair, CompletionStage[Done]] =
+    scaladsl.SqsAckSink.grouped(queueUrl, settings)(sqsClient).mapMaterializedValue(_.toJava).asJava
 }
@@ -22,4 +22,21 @@ object SqsFlow {
    */
   def create(queueUrl: String, sqsClient: AmazonSQSAsync): Flow[String, Result, NotUsed] =
     create(queueUrl, SqsSinkSettings.Defaults, sqsClient)
+
+  /**
+   * Java API: creates a flow for a SQS queue using an [[AmazonSQSAsync]], which emits the results in the order the
+   * messages have been sent instead of in the order of the messages
+   */
+  def createUnordered(queueUrl: String,
+                      settings: SqsSinkSettings,
+                      sqsClient: AmazonSQSAsync): Flow[String, Result, NotUsed] =
+    scaladsl.SqsFlow.unordered(queueUrl, settings)(sqsClient).asJava
+
+  /**
+   * Java API: creates a flow sending messages to a SQS queue in batches using an [[AmazonSQSAsync]]
+   */
+  def createBatch(queueUrl: String,
+                  settings: SqsBatchFlowSettings,
+                  sqsClient: AmazonSQSAsync): Flow[String, Result, NotUsed] =
+    scaladsl.SqsFlow.batch(queueUrl, settings)(sqsClient).asJava
 }
@@ -4,7 +4,7 @@
 package akka.stream.alpakka.sqs.javadsl
 
 import akka.NotUsed
-import akka.stream.alpakka.sqs.{SqsSourceSettings, SqsSourceStage}
+import akka.stream.alpakka.sqs.{SqsSourceMetrics, SqsSourceSettings, SqsSourceStage}
 import akka.stream.javadsl.Source
 import com.amazonaws.services.sqs.AmazonSQSAsync
 import com.amazonaws.services.sqs.model.Message
@@ -15,11 +15,27 @@ object SqsSource {
    * Java API: creates a [[SqsSourceStage]] for a SQS queue.
    */
   def create(queueUrl: String, settings: SqsSourceSettings, sqs: AmazonSQSAsync): Source[Message, NotUsed] =
-    Source.fromGraph(new SqsSourceStage(queueUrl, settings)(sqs))
+    akka.stream.alpakka.sqs.scaladsl.SqsSource(queueUrl, settings)(sqs).asJava
 
   /**
    * Java API: creates a [[SqsSourceStage]] for a SQS queue with default settings.
    */
   def create(queueUrl: String, sqs: AmazonSQSAsync): Source[Message, NotUsed] =
-    Source.fromGraph(new SqsSourceStage(queueUrl, SqsSourceSettings.Defaults)(sqs))
+    create(queueUrl, SqsSourceSettings.Defaults, sqs)
+
+  /**
+   * Java API: creates a [[SqsSourceStage]] for a SQS queue, materializing a live view of its in-flight receive
+   * requests, buffered messages and current concurrency.
+   */
+  def createWithMetrics(queueUrl: String,
+                        settings: SqsSourceSettings,
+                        sqs: AmazonSQSAsync): Source[Message, SqsSourceMetrics] =
+    Source.fromGraph(new SqsSourceStage(queueUrl, settings)(sqs))
+
+  /**
+   * Java API: creates a [[SqsSourceStage]] for a SQS queue with default settings, materializing a live view of its
+   * in-flight receive requests, buffered messages and current concurrency.
+   */
+  def createWithMetrics(queueUrl: String, sqs: AmazonSQSAsync): Source[Message, SqsSourceMetrics] =
+    createWithMetrics(queueUrl, SqsSourceSettings.Defaults, sqs)
 }
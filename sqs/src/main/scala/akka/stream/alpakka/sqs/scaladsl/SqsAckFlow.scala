@@ -18,6 +18,16 @@ object SqsAckFlow {
       implicit sqsClient: AmazonSQSAsync
   ): Flow[MessageActionPair, AckResult, NotUsed] =
     Flow.fromGraph(new SqsAckFlowStage(queueUrl, sqsClient)).mapAsync(settings.maxInFlight)(identity)
+
+  /**
+   * Scala API: creates a flow acknowledging messages of a SQS queue in batches with `DeleteMessageBatch` and
+   * `ChangeMessageVisibilityBatch`. Up to `maxBatchSize` actions arriving within `maxBatchWait` are grouped, and
+   * entries of a batch that failed are retried on their own. Results are emitted in the order of the actions.
+   */
+  def grouped(queueUrl: String, settings: SqsBatchFlowSettings = SqsBatchFlowSettings.Defaults)(
+      implicit sqsClient: AmazonSQSAsync
+  ): Flow[MessageActionPair, AckResult, NotUsed] =
+    SqsAckBatchFlow(queueUrl, settings)
 }
 
 /**
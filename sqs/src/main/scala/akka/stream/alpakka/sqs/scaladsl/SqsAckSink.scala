@@ -4,7 +4,7 @@
 package akka.stream.alpakka.sqs.scaladsl
 
 import akka.Done
-import akka.stream.alpakka.sqs.{MessageActionPair, SqsAckFlowStage, SqsAckSinkSettings}
+import akka.stream.alpakka.sqs.{MessageActionPair, SqsAckFlowStage, SqsAckSinkSettings, SqsBatchFlowSettings}
 import akka.stream.scaladsl.{Keep, Sink}
 import com.amazonaws.services.sqs.AmazonSQSAsync
 import scala.concurrent.Future
@@ -18,4 +18,12 @@ object SqsAckSink {
       implicit sqsClient: AmazonSQSAsync
   ): Sink[MessageActionPair, Future[Done]] =
     SqsAckFlow.apply(queueUrl, settings).toMat(Sink.ignore)(Keep.right)
+
+  /**
+   * Scala API: creates a sink acknowledging messages of a SQS queue in batches, see [[SqsAckFlow.grouped]]
+   */
+  def grouped(queueUrl: String, settings: SqsBatchFlowSettings = SqsBatchFlowSettings.Defaults)(
+      implicit sqsClient: AmazonSQSAsync
+  ): Sink[MessageActionPair, Future[Done]] =
+    SqsAckFlow.grouped(queueUrl, settings).toMat(Sink.ignore)(Keep.right)
 }
@@ -4,7 +4,7 @@
 package akka.stream.alpakka.sqs.scaladsl
 
 import akka.NotUsed
-import akka.stream.alpakka.sqs.{SqsFlowStage, SqsSinkSettings}
+import akka.stream.alpakka.sqs._
 import akka.stream.scaladsl.Flow
 import com.amazonaws.services.sqs.AmazonSQSAsync
 import com.amazonaws.services.sqs.model.SendMessageResult
@@ -17,7 +17,26 @@ object SqsFlow {
   def apply(queueUrl: String, settings: SqsSinkSettings = SqsSinkSettings.Defaults)(
       implicit sqsClient: AmazonSQSAsync
   ): Flow[String, Result, NotUsed] =
-    Flow.fromGraph(new SqsFlowStage(queueUrl, sqsClient)).mapAsync(settings.maxInFlight)(identity)
+    Flow.fromGraph(new SqsFlowStage(queueUrl, sqsClient, settings.maxInFlight)).mapAsync(settings.maxInFlight)(identity)
+
+  /**
+   * Scala API: creates a flow for a SQS queue using an [[AmazonSQSAsync]], which emits the results in the order the
+   * messages have been sent instead of in the order of the messages. At most `maxInFlight` messages are sent at a time.
+   */
+  def unordered(queueUrl: String, settings: SqsSinkSettings = SqsSinkSettings.Defaults)(
+      implicit sqsClient: AmazonSQSAsync
+  ): Flow[String, Result, NotUsed] =
+    Flow.fromGraph(new SqsUnorderedFlowStage(queueUrl, sqsClient, settings.maxInFlight))
+
+  /**
+   * Scala API: creates a flow sending messages to a SQS queue in batches with `SendMessageBatch`. Up to
+   * `maxBatchSize` messages arriving within `maxBatchWait` are sent together, as long as they do not exceed 256 KB,
+   * and entries of a batch that failed are retried on their own. Results are emitted in the order of the messages.
+   */
+  def batch(queueUrl: String, settings: SqsBatchFlowSettings = SqsBatchFlowSettings.Defaults)(
+      implicit sqsClient: AmazonSQSAsync
+  ): Flow[String, Result, NotUsed] =
+    SqsBatchFlow(queueUrl, settings)
 }
 
 /**
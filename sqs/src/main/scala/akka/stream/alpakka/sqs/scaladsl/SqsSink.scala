@@ -4,7 +4,7 @@
 package akka.stream.alpakka.sqs.scaladsl
 
 import akka.Done
-import akka.stream.alpakka.sqs.{SqsFlowStage, SqsSinkSettings}
+import akka.stream.alpakka.sqs.SqsSinkSettings
 import akka.stream.scaladsl.{Keep, Sink}
 import com.amazonaws.services.sqs.AmazonSQSAsync
 
@@ -13,10 +13,11 @@ import scala.concurrent.Future
 object SqsSink {
 
   /**
-   * Scala API: creates a sink based on [[SqsFlowStage]] for a SQS queue using an [[AmazonSQSAsync]]
+   * Scala API: creates a sink for a SQS queue using an [[AmazonSQSAsync]], sending up to `maxInFlight` messages at a
+   * time
    */
   def apply(queueUrl: String, settings: SqsSinkSettings = SqsSinkSettings.Defaults)(
       implicit sqsClient: AmazonSQSAsync
   ): Sink[String, Future[Done]] =
-    SqsFlow.apply(queueUrl, settings).toMat(Sink.ignore)(Keep.right)
+    SqsFlow.unordered(queueUrl, settings).toMat(Sink.ignore)(Keep.right)
 }
@@ -4,7 +4,7 @@
 package akka.stream.alpakka.sqs.scaladsl
 
 import akka.NotUsed
-import akka.stream.alpakka.sqs.{SqsSourceSettings, SqsSourceStage}
+import akka.stream.alpakka.sqs.{SqsSourceMetrics, SqsSourceSettings, SqsSourceStage}
 import akka.stream.scaladsl.Source
 import com.amazonaws.services.sqs.AmazonSQSAsync
 import com.amazonaws.services.sqs.model.Message
@@ -17,6 +17,15 @@ object SqsSource {
   def apply(queueUrl: String, settings: SqsSourceSettings = SqsSourceSettings.Defaults)(
       implicit sqs: AmazonSQSAsync
   ): Source[Message, NotUsed] =
+    Source.fromGraph(new SqsSourceStage(queueUrl, settings)).mapMaterializedValue(_ => NotUsed)
+
+  /**
+   * Scala API: creates a [[SqsSourceStage]] for a SQS queue, materializing a live view of its in-flight receive
+   * requests, buffered messages and current concurrency.
+   */
+  def withMetrics(queueUrl: String, settings: SqsSourceSettings = SqsSourceSettings.Defaults)(
+      implicit sqs: AmazonSQSAsync
+  ): Source[Message, SqsSourceMetrics] =
     Source.fromGraph(new SqsSourceStage(queueUrl, settings))
 
 }
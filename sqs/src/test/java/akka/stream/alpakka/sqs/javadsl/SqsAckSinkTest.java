@@ -10,6 +10,9 @@ import akka.stream.alpakka.sqs.Delete;
 import akka.stream.alpakka.sqs.Ignore;
 import akka.stream.alpakka.sqs.MessageAction;
 import akka.stream.alpakka.sqs.ChangeMessageVisibility;
+import akka.stream.alpakka.sqs.SqsBatchFlowSettings;
+import akka.stream.alpakka.sqs.SqsVisibilityHeartbeat;
+import akka.stream.alpakka.sqs.SqsVisibilityHeartbeatSettings;
 import akka.stream.alpakka.sqs.scaladsl.AckResult;
 import akka.stream.javadsl.Source;
 import akka.stream.javadsl.Sink;
@@ -22,6 +25,8 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 import scala.Option;
 import scala.Tuple2;
+import java.util.List;
+import java.util.Random;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
 import java.util.concurrent.TimeUnit;
@@ -50,6 +55,10 @@ public class SqsAckSinkTest extends BaseSqsTest {
         JavaTestKit.shutdownActorSystem(system);
     }
 
+    private String randomQueueUrl() {
+        return sqsClient.createQueue(String.format("queue-%s", new Random().nextInt())).getQueueUrl();
+    }
+
     @Test
     public void testAcknowledge() throws Exception {
         final String queueUrl = "none";
@@ -159,4 +168,57 @@ public class SqsAckSinkTest extends BaseSqsTest {
         assertEquals(Option.empty(), result.metadata());
         assertEquals("test", result.message());
     }
+
+    @Test
+    public void testAcknowledgeInBatches() throws Exception {
+        final String queueUrl = randomQueueUrl();
+        sqsClient.sendMessage(queueUrl, "alpakka-1");
+        sqsClient.sendMessage(queueUrl, "alpakka-2");
+
+        //#flow-ack-grouped
+        CompletionStage<List<AckResult>> results = SqsSource.create(queueUrl, sqsClient)
+                .take(2)
+                .map(m -> new Tuple2<Message, MessageAction>(m, new Delete()))
+                .via(SqsAckFlow.createGrouped(queueUrl, SqsBatchFlowSettings.Defaults(), sqsClient))
+                .runWith(Sink.seq(), materializer);
+        //#flow-ack-grouped
+
+        assertEquals(2, results.toCompletableFuture().get(1, TimeUnit.SECONDS).size());
+        assertEquals(0, sqsClient.receiveMessage(queueUrl).getMessages().size());
+    }
+
+    @Test
+    public void testVisibilityHeartbeat() throws Exception {
+        final String queueUrl = randomQueueUrl();
+        sqsClient.sendMessage(queueUrl, "alpakka-heartbeat");
+
+        //#visibility-heartbeat
+        SqsVisibilityHeartbeat heartbeat = SqsVisibilityHeartbeat.create(
+                queueUrl,
+                SqsVisibilityHeartbeatSettings.Defaults(),
+                sqsClient,
+                system
+        );
+        CompletionStage<Done> done = SqsSource.create(queueUrl, sqsClient)
+                .take(1)
+                .via(heartbeat.getTrack())
+                .map(m -> {
+                    // long running processing
+                    return new Tuple2<Message, MessageAction>(m, new Delete());
+                })
+                .via(heartbeat.getRelease())
+                .runWith(SqsAckSink.create(queueUrl, sqsClient), materializer);
+        // ...
+        // when no more messages are processed
+        //#visibility-heartbeat
+
+        try {
+            done.toCompletableFuture().get(1, TimeUnit.SECONDS);
+            assertEquals(0, heartbeat.tracked());
+        } finally {
+            //#visibility-heartbeat
+            heartbeat.shutdown();
+            //#visibility-heartbeat
+        }
+    }
 }
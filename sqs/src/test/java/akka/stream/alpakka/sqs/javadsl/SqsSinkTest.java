@@ -6,6 +6,9 @@ package akka.stream.alpakka.sqs.javadsl;
 import akka.Done;
 import akka.actor.ActorSystem;
 import akka.stream.ActorMaterializer;
+import akka.stream.alpakka.sqs.SqsBatchFlowSettings;
+import akka.stream.alpakka.sqs.SqsSinkSettings;
+import akka.stream.alpakka.sqs.scaladsl.Result;
 import akka.stream.javadsl.Sink;
 import akka.stream.javadsl.Source;
 import akka.testkit.JavaTestKit;
@@ -13,6 +16,7 @@ import com.amazonaws.auth.AWSCredentials;
 import com.amazonaws.auth.BasicAWSCredentials;
 import com.amazonaws.services.sqs.AmazonSQSAsyncClient;
 import com.amazonaws.services.sqs.model.Message;
+import com.amazonaws.services.sqs.model.ReceiveMessageRequest;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -20,6 +24,7 @@ import scala.concurrent.Await;
 import scala.concurrent.Future;
 import scala.concurrent.duration.FiniteDuration;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 import java.util.concurrent.CompletionStage;
@@ -104,4 +109,40 @@ public class SqsSinkTest extends BaseSqsTest {
         assertEquals(1, messages.size());
         assertEquals("alpakka-flow", messages.get(0).getBody());
     }
+
+    @Test
+    public void sendViaUnorderedFlow() throws Exception {
+        final String queueUrl = randomQueueUrl();
+
+        //#flow-unordered
+        CompletionStage<List<Result>> results = Source
+                .from(Arrays.asList("alpakka-1", "alpakka-2"))
+                .via(SqsFlow.createUnordered(queueUrl, SqsSinkSettings.Defaults(), sqsClient))
+                .runWith(Sink.seq(), materializer);
+        //#flow-unordered
+
+        assertEquals(2, results.toCompletableFuture().get(1, TimeUnit.SECONDS).size());
+        List<Message> messages =
+                sqsClient.receiveMessage(new ReceiveMessageRequest(queueUrl).withMaxNumberOfMessages(10)).getMessages();
+
+        assertEquals(2, messages.size());
+    }
+
+    @Test
+    public void sendViaBatchFlow() throws Exception {
+        final String queueUrl = randomQueueUrl();
+
+        //#flow-batch
+        CompletionStage<Done> done = Source
+                .from(Arrays.asList("alpakka-1", "alpakka-2", "alpakka-3"))
+                .via(SqsFlow.createBatch(queueUrl, SqsBatchFlowSettings.Defaults(), sqsClient))
+                .runWith(Sink.ignore(), materializer);
+
+        done.toCompletableFuture().get(1, TimeUnit.SECONDS);
+        //#flow-batch
+        List<Message> messages =
+                sqsClient.receiveMessage(new ReceiveMessageRequest(queueUrl).withMaxNumberOfMessages(10)).getMessages();
+
+        assertEquals(3, messages.size());
+    }
 }
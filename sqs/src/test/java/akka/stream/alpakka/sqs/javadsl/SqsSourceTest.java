@@ -5,12 +5,15 @@ package akka.stream.alpakka.sqs.javadsl;
 
 import akka.actor.ActorSystem;
 import akka.stream.ActorMaterializer;
+import akka.stream.alpakka.sqs.SqsSourceMetrics;
 import akka.stream.alpakka.sqs.SqsSourceSettings;
+import akka.stream.javadsl.Keep;
 import akka.stream.javadsl.Sink;
 import akka.testkit.JavaTestKit;
 import com.amazonaws.client.builder.AwsClientBuilder;
 import com.amazonaws.services.sqs.AmazonSQSAsync;
 import com.amazonaws.services.sqs.AmazonSQSAsyncClientBuilder;
+import com.amazonaws.services.sqs.model.Message;
 import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
@@ -21,6 +24,7 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 public class SqsSourceTest extends BaseSqsTest {
 
@@ -92,4 +96,23 @@ public class SqsSourceTest extends BaseSqsTest {
         assertEquals("alpakka", cs.toCompletableFuture().get(10, TimeUnit.SECONDS));
 
     }
+
+    @Test
+    public void streamFromQueueWithMetrics() throws Exception {
+
+        final String queueUrl = randomQueueUrl();
+        sqsClient.sendMessage(queueUrl, "alpakka-metrics");
+
+        //#metrics
+        final akka.japi.Pair<SqsSourceMetrics, CompletionStage<Message>> running =
+            SqsSource.createWithMetrics(queueUrl, sqsSourceSettings, sqsClient)
+                .toMat(Sink.head(), Keep.both())
+                .run(materializer);
+        final SqsSourceMetrics metrics = running.first();
+        // e.g. report metrics.concurrency() and metrics.bufferedMessages() periodically
+        //#metrics
+
+        assertEquals("alpakka-metrics", running.second().toCompletableFuture().get(10, TimeUnit.SECONDS).getBody());
+        assertTrue(metrics.concurrency() > 0);
+    }
 }
@@ -3,12 +3,18 @@
  */
 package akka.stream.alpakka.sqs.scaladsl
 
+import java.util.concurrent.CompletableFuture
+
 import akka.actor.ActorSystem
 import akka.stream.ActorMaterializer
+import com.amazonaws.AmazonWebServiceRequest
+import com.amazonaws.handlers.AsyncHandler
 import com.amazonaws.auth.{AWSCredentialsProvider, AWSStaticCredentialsProvider, BasicAWSCredentials}
 import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration
 import com.amazonaws.services.sqs.{AmazonSQSAsync, AmazonSQSAsyncClientBuilder}
 import org.elasticmq.rest.sqs.{SQSRestServer, SQSRestServerBuilder}
+import org.mockito.invocation.InvocationOnMock
+import org.mockito.stubbing.Answer
 import org.scalatest.{BeforeAndAfterAll, Suite, Tag}
 
 import scala.concurrent.Await
@@ -37,6 +43,25 @@ trait DefaultTestContext extends BeforeAndAfterAll { this: Suite =>
 
   def randomQueueUrl(): String = sqsClient.createQueue(s"queue-${Random.nextInt}").getQueueUrl
 
+  /**
+   * Answers calls of an asynchronous operation of a mocked client by passing the request and its handler to `f`.
+   */
+  def answer[Request <: AmazonWebServiceRequest, Response](
+      f: (Request, AsyncHandler[Request, Response]) => Unit
+  ): Answer[AnyRef] =
+    new Answer[AnyRef] {
+      override def answer(invocation: InvocationOnMock): AnyRef = {
+        f(invocation.getArgument[Request](0), invocation.getArgument[AsyncHandler[Request, Response]](1))
+        new CompletableFuture[Response]()
+      }
+    }
+
+  /**
+   * Answers calls of an asynchronous operation of a mocked client successfully with the result `f` returns.
+   */
+  def respondWith[Request <: AmazonWebServiceRequest, Response](f: Request => Response): Answer[AnyRef] =
+    answer[Request, Response]((request, handler) => handler.onSuccess(request, f(request)))
+
   override protected def afterAll(): Unit = {
     super.afterAll()
     sqsServer.stopAndWait()
@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.sqs.scaladsl
+
+import akka.stream.alpakka.sqs._
+import akka.stream.scaladsl.{Sink, Source}
+import com.amazonaws.services.sqs.AmazonSQSAsync
+import com.amazonaws.services.sqs.model._
+import org.mockito.ArgumentCaptor
+import org.mockito.ArgumentMatchers._
+import org.mockito.Mockito._
+import org.scalatest.mockito.MockitoSugar.mock
+import org.scalatest.{FlatSpec, Matchers}
+
+import scala.collection.JavaConverters._
+import scala.concurrent.Await
+import scala.concurrent.duration._
+
+class SqsAckBatchFlowSpec extends FlatSpec with Matchers with DefaultTestContext {
+
+  private val settings = SqsBatchFlowSettings(maxBatchSize = 10, maxBatchWait = 100.millis, concurrentRequests = 1)
+
+  private def message(body: String) = new Message().withBody(body).withReceiptHandle(s"handle-$body")
+
+  // answers delete requests failing the entries with the given ids once, and succeeding all others
+  private def deleteAnswer(failOnce: Set[String], senderFault: Boolean = false) = {
+    var failed = Set.empty[String]
+    respondWith[DeleteMessageBatchRequest, DeleteMessageBatchResult] { request =>
+      val (failing, succeeding) = request.getEntries.asScala.partition { entry =>
+        failOnce(entry.getId) && !failed(entry.getId)
+      }
+      failed ++= failing.map(_.getId)
+      new DeleteMessageBatchResult()
+        .withSuccessful(succeeding.map(entry => new DeleteMessageBatchResultEntry().withId(entry.getId)).asJava)
+        .withFailed(failing.map { entry =>
+          new BatchResultErrorEntry().withId(entry.getId).withCode("InternalError").withSenderFault(senderFault)
+        }.asJava)
+    }
+  }
+
+  it should "delete and change the visibility of messages in batches" in {
+    implicit val sqsClient: AmazonSQSAsync = mock[AmazonSQSAsync]
+    when(sqsClient.deleteMessageBatchAsync(any[DeleteMessageBatchRequest](), any())).thenAnswer(
+      respondWith[DeleteMessageBatchRequest, DeleteMessageBatchResult] { request =>
+        new DeleteMessageBatchResult()
+          .withSuccessful(request.getEntries.asScala.map { entry =>
+            new DeleteMessageBatchResultEntry().withId(entry.getId)
+          }.asJava)
+      }
+    )
+    when(sqsClient.changeMessageVisibilityBatchAsync(any[ChangeMessageVisibilityBatchRequest](), any())).thenAnswer(
+      respondWith[ChangeMessageVisibilityBatchRequest, ChangeMessageVisibilityBatchResult] { request =>
+        new ChangeMessageVisibilityBatchResult()
+          .withSuccessful(request.getEntries.asScala.map { entry =>
+            new ChangeMessageVisibilityBatchResultEntry().withId(entry.getId)
+          }.asJava)
+      }
+    )
+
+    val actions = List[MessageActionPair](
+      message("a") -> Delete(),
+      message("b") -> ChangeMessageVisibility(5),
+      message("c") -> Ignore(),
+      message("d") -> Delete()
+    )
+    val results = Await.result(Source(actions).via(SqsAckFlow.grouped("notused", settings)).runWith(Sink.seq), 1.second)
+
+    results.map(_.message) shouldBe List("a", "b", "c", "d")
+    results.map(_.metadata.isDefined) shouldBe List(true, true, false, true)
+    // the deletes are only sent once the visibility changes have been answered
+    val order = inOrder(sqsClient)
+    order.verify(sqsClient).changeMessageVisibilityBatchAsync(any[ChangeMessageVisibilityBatchRequest](), any())
+    order.verify(sqsClient).deleteMessageBatchAsync(any[DeleteMessageBatchRequest](), any())
+  }
+
+  it should "retry only the failed entries of a batch" in {
+    implicit val sqsClient: AmazonSQSAsync = mock[AmazonSQSAsync]
+    when(sqsClient.deleteMessageBatchAsync(any[DeleteMessageBatchRequest](), any())).thenAnswer(deleteAnswer(Set("1")))
+
+    val actions = List[MessageActionPair](message("a") -> Delete(), message("b") -> Delete(), message("c") -> Delete())
+    val results = Await.result(Source(actions).via(SqsAckFlow.grouped("notused", settings)).runWith(Sink.seq), 1.second)
+
+    results.map(_.message) shouldBe List("a", "b", "c")
+    results.map(_.metadata.isDefined) shouldBe List(true, true, true)
+    val requests = ArgumentCaptor.forClass(classOf[DeleteMessageBatchRequest])
+    verify(sqsClient, times(2)).deleteMessageBatchAsync(requests.capture(), any())
+    requests.getAllValues.get(1).getEntries.asScala.map(_.getReceiptHandle) shouldBe List("handle-b")
+  }
+
+  it should "fail on entries failing by the fault of the sender" in {
+    implicit val sqsClient: AmazonSQSAsync = mock[AmazonSQSAsync]
+    when(sqsClient.deleteMessageBatchAsync(any[DeleteMessageBatchRequest](), any()))
+      .thenAnswer(deleteAnswer(Set("0"), senderFault = true))
+
+    val actions = List[MessageActionPair](message("a") -> Delete(), message("b") -> Delete())
+    val future = Source(actions).via(SqsAckFlow.grouped("notused", settings)).runWith(Sink.seq)
+
+    val exception = the[SqsBatchException] thrownBy {
+      Await.result(future, 1.second)
+    }
+    exception.failed.map(_._1) shouldBe List(actions.head)
+    exception.succeeded.map(_.asInstanceOf[AckResult].message) shouldBe List("b")
+    verify(sqsClient, times(1)).deleteMessageBatchAsync(any[DeleteMessageBatchRequest](), any())
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.sqs.scaladsl
+
+import akka.stream.alpakka.sqs.{SqsBatchException, SqsBatchFlowSettings}
+import akka.stream.scaladsl.{Sink, Source}
+import com.amazonaws.services.sqs.AmazonSQSAsync
+import com.amazonaws.services.sqs.model._
+import org.mockito.ArgumentCaptor
+import org.mockito.ArgumentMatchers._
+import org.mockito.Mockito._
+import org.scalatest.mockito.MockitoSugar.mock
+import org.scalatest.{FlatSpec, Matchers}
+
+import scala.collection.JavaConverters._
+import scala.concurrent.Await
+import scala.concurrent.duration._
+
+class SqsBatchFlowSpec extends FlatSpec with Matchers with DefaultTestContext {
+
+  private val settings = SqsBatchFlowSettings(maxBatchSize = 10, maxBatchWait = 100.millis, concurrentRequests = 1)
+
+  // answers batch requests failing the entries with the given ids once, and succeeding all others
+  private def batchAnswer(failOnce: Set[String], senderFault: Boolean = false) = {
+    var failed = Set.empty[String]
+    respondWith[SendMessageBatchRequest, SendMessageBatchResult] { request =>
+      val (failing, succeeding) = request.getEntries.asScala.partition { entry =>
+        failOnce(entry.getId) && !failed(entry.getId)
+      }
+      failed ++= failing.map(_.getId)
+      new SendMessageBatchResult()
+        .withSuccessful(succeeding.map { entry =>
+          new SendMessageBatchResultEntry().withId(entry.getId).withMessageId(entry.getMessageBody)
+        }.asJava)
+        .withFailed(failing.map { entry =>
+          new BatchResultErrorEntry().withId(entry.getId).withCode("Throttled").withSenderFault(senderFault)
+        }.asJava)
+    }
+  }
+
+  it should "send messages in batches" in {
+    implicit val sqsClient: AmazonSQSAsync = mock[AmazonSQSAsync]
+    when(sqsClient.sendMessageBatchAsync(any[SendMessageBatchRequest](), any())).thenAnswer(batchAnswer(Set.empty))
+
+    val messages = (1 to 25).map(n => s"message-$n")
+    val results = Await.result(Source(messages).via(SqsFlow.batch("notused", settings)).runWith(Sink.seq), 1.second)
+
+    results.map(_.message) shouldBe messages
+    results.map(_.metadata.getMessageId) shouldBe messages
+    verify(sqsClient, times(3)).sendMessageBatchAsync(any[SendMessageBatchRequest](), any())
+  }
+
+  it should "retry only the failed entries of a batch" in {
+    implicit val sqsClient: AmazonSQSAsync = mock[AmazonSQSAsync]
+    when(sqsClient.sendMessageBatchAsync(any[SendMessageBatchRequest](), any())).thenAnswer(batchAnswer(Set("1")))
+
+    val messages = List("a", "b", "c")
+    val results = Await.result(Source(messages).via(SqsFlow.batch("notused", settings)).runWith(Sink.seq), 1.second)
+
+    results.map(_.message) shouldBe messages
+    val requests = ArgumentCaptor.forClass(classOf[SendMessageBatchRequest])
+    verify(sqsClient, times(2)).sendMessageBatchAsync(requests.capture(), any())
+    requests.getAllValues.get(1).getEntries.asScala.map(_.getMessageBody) shouldBe List("b")
+  }
+
+  it should "fail on entries failing by the fault of the sender" in {
+    implicit val sqsClient: AmazonSQSAsync = mock[AmazonSQSAsync]
+    when(sqsClient.sendMessageBatchAsync(any[SendMessageBatchRequest](), any()))
+      .thenAnswer(batchAnswer(Set("0"), senderFault = true))
+
+    val future = Source(List("a", "b")).via(SqsFlow.batch("notused", settings)).runWith(Sink.seq)
+
+    val exception = the[SqsBatchException] thrownBy {
+      Await.result(future, 1.second)
+    }
+    exception.failed.map(_._1) shouldBe List("a")
+    exception.succeeded.map(_.asInstanceOf[Result].message) shouldBe List("b")
+  }
+}
@@ -3,10 +3,12 @@
  */
 package akka.stream.alpakka.sqs.scaladsl
 
-import java.util.concurrent.{CompletableFuture, Future}
+import java.util.concurrent.{CompletableFuture, ConcurrentHashMap, Future}
 
 import akka.Done
-import akka.stream.scaladsl.Keep
+import akka.stream.alpakka.sqs.SqsSinkSettings
+import akka.stream.scaladsl.{Keep, Sink, Source}
+import akka.stream.testkit.TestPublisher
 import akka.stream.testkit.scaladsl.TestSource
 import com.amazonaws.handlers.AsyncHandler
 import com.amazonaws.services.sqs.AmazonSQSAsync
@@ -109,4 +111,73 @@ class SqsSinkSpec extends FlatSpec with Matchers with DefaultTestContext {
 
     verify(sqsClient, times(5)).sendMessageAsync(any[SendMessageRequest](), any())
   }
+
+  it should "not send more than maxInFlight messages at a time" in {
+    implicit val sqsClient: AmazonSQSAsync = mock[AmazonSQSAsync]
+    // sends never complete
+    when(sqsClient.sendMessageAsync(any[SendMessageRequest](), any()))
+      .thenReturn(new CompletableFuture[SendMessageResult]())
+
+    Source(1 to 5).map(_.toString).runWith(SqsSink("notused", SqsSinkSettings(maxInFlight = 2)))
+
+    Thread.sleep(200)
+    verify(sqsClient, times(2)).sendMessageAsync(any[SendMessageRequest](), any())
+  }
+
+  it should "emit results in the order the messages have been sent with the unordered flow" in {
+    implicit val sqsClient: AmazonSQSAsync = mock[AmazonSQSAsync]
+    val handlers = new ConcurrentHashMap[String, AsyncHandler[SendMessageRequest, SendMessageResult]]()
+    when(sqsClient.sendMessageAsync(any[SendMessageRequest](), any())).thenAnswer(
+      answer[SendMessageRequest, SendMessageResult]((request, handler) => handlers.put(request.getMessageBody, handler))
+    )
+
+    val future = Source(List("first", "second")).via(SqsFlow.unordered("notused")).runWith(Sink.seq)
+    Thread.sleep(200)
+    for (message <- List("second", "first")) {
+      handlers.get(message).onSuccess(new SendMessageRequest("notused", message), new SendMessageResult())
+      Thread.sleep(100)
+    }
+
+    Await.result(future, 1.second).map(_.message) shouldBe List("second", "first")
+  }
+
+  private type Handler = AsyncHandler[SendMessageRequest, SendMessageResult]
+
+  // sends a message, completes its send and only then sends the next one, the stage pulls again when the send
+  // completes while it has already pulled the next message
+  private def sendOneAfterTheOther(probe: TestPublisher.Probe[String], handlers: ConcurrentHashMap[String, Handler]) =
+    for (message <- List("first", "second")) {
+      probe.sendNext(message)
+      Thread.sleep(100)
+      handlers.get(message).onSuccess(new SendMessageRequest("notused", message), new SendMessageResult())
+    }
+
+  it should "keep pulling while sends complete" in {
+    implicit val sqsClient: AmazonSQSAsync = mock[AmazonSQSAsync]
+    val handlers = new ConcurrentHashMap[String, Handler]()
+    when(sqsClient.sendMessageAsync(any[SendMessageRequest](), any())).thenAnswer(
+      answer[SendMessageRequest, SendMessageResult]((request, handler) => handlers.put(request.getMessageBody, handler))
+    )
+
+    val (probe, future) = TestSource.probe[String].toMat(SqsSink("notused"))(Keep.both).run()
+    sendOneAfterTheOther(probe, handlers)
+    probe.sendComplete()
+
+    Await.result(future, 1.second) shouldBe Done
+    verify(sqsClient, times(2)).sendMessageAsync(any[SendMessageRequest](), any())
+  }
+
+  it should "keep pulling while sends complete with the flow" in {
+    implicit val sqsClient: AmazonSQSAsync = mock[AmazonSQSAsync]
+    val handlers = new ConcurrentHashMap[String, Handler]()
+    when(sqsClient.sendMessageAsync(any[SendMessageRequest](), any())).thenAnswer(
+      answer[SendMessageRequest, SendMessageResult]((request, handler) => handlers.put(request.getMessageBody, handler))
+    )
+
+    val (probe, future) = TestSource.probe[String].via(SqsFlow("notused")).toMat(Sink.seq)(Keep.both).run()
+    sendOneAfterTheOther(probe, handlers)
+    probe.sendComplete()
+
+    Await.result(future, 1.second).map(_.message) shouldBe List("first", "second")
+  }
 }
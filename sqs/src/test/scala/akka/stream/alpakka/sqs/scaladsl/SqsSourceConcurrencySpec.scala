@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.sqs.scaladsl
+
+import java.util.concurrent.{LinkedBlockingQueue, TimeUnit}
+
+import akka.stream.alpakka.sqs.SqsSourceSettings
+import akka.stream.scaladsl.Keep
+import akka.stream.testkit.scaladsl.TestSink
+import com.amazonaws.handlers.AsyncHandler
+import com.amazonaws.services.sqs.AmazonSQSAsync
+import com.amazonaws.services.sqs.model.{Message, ReceiveMessageRequest, ReceiveMessageResult}
+import org.mockito.ArgumentMatchers._
+import org.mockito.Mockito._
+import org.scalatest.concurrent.Eventually
+import org.scalatest.mockito.MockitoSugar.mock
+import org.scalatest.{FlatSpec, Matchers}
+
+import scala.collection.JavaConverters._
+
+class SqsSourceConcurrencySpec extends FlatSpec with Matchers with Eventually with DefaultTestContext {
+
+  private type Handler = AsyncHandler[ReceiveMessageRequest, ReceiveMessageResult]
+
+  // runs a source against a client whose receive requests are answered by the test, one at a time
+  private class ReceiveContext(maxBufferSize: Int) {
+    private val pending = new LinkedBlockingQueue[(ReceiveMessageRequest, Handler)]()
+
+    implicit val sqsClient: AmazonSQSAsync = mock[AmazonSQSAsync]
+    when(sqsClient.receiveMessageAsync(any[ReceiveMessageRequest](), any())).thenAnswer(
+      answer[ReceiveMessageRequest, ReceiveMessageResult]((request, handler) => pending.add((request, handler)))
+    )
+
+    val (metrics, probe) =
+      SqsSource.withMetrics("queue", SqsSourceSettings(0, maxBufferSize, 10)).toMat(TestSink.probe)(Keep.both).run()
+
+    // answers the oldest receive request with the given number of messages
+    def respond(messages: Int): Unit = {
+      val (request, handler) = pending.poll(1, TimeUnit.SECONDS)
+      val result = new ReceiveMessageResult().withMessages(List.fill(messages)(new Message().withBody("m")).asJava)
+      handler.onSuccess(request, result)
+    }
+
+    def expect(concurrency: Int, inFlightRequests: Int): Unit =
+      eventually {
+        (metrics.concurrency, metrics.inFlightRequests) shouldBe ((concurrency, inFlightRequests))
+      }
+  }
+
+  "SqsSource" should "halve the concurrency on empty responses" in new ReceiveContext(100) {
+    probe.request(1)
+    expect(concurrency = 10, inFlightRequests = 10)
+
+    respond(0)
+    expect(concurrency = 5, inFlightRequests = 9)
+    respond(0)
+    expect(concurrency = 2, inFlightRequests = 8)
+    respond(0)
+    expect(concurrency = 1, inFlightRequests = 7)
+    respond(0)
+    expect(concurrency = 1, inFlightRequests = 6)
+  }
+
+  it should "increase the concurrency when responses fill at least half of the requested messages" in
+  new ReceiveContext(100) {
+    probe.request(1)
+    respond(0)
+    expect(concurrency = 5, inFlightRequests = 9)
+
+    // the average fill ratio is 0.3 * 1.0 + 0.7 * 0.7
+    respond(10)
+    expect(concurrency = 6, inFlightRequests = 8)
+    metrics.bufferedMessages shouldBe 9
+  }
+
+  it should "increase the concurrency when downstream asks for a message while none is buffered" in
+  new ReceiveContext(100) {
+    probe.request(1)
+    respond(0)
+    respond(0)
+    expect(concurrency = 2, inFlightRequests = 8)
+
+    // the average fill ratio of 0.3 * 0.1 + 0.7 * 0.49 stays below 0.5
+    respond(1)
+    probe.expectNext()
+    expect(concurrency = 2, inFlightRequests = 7)
+
+    probe.request(1)
+    expect(concurrency = 3, inFlightRequests = 7)
+  }
+
+  it should "not increase the concurrency while more than half of the buffer is in use" in new ReceiveContext(100) {
+    probe.request(1)
+    (1 to 4).foreach(_ => respond(0))
+    expect(concurrency = 1, inFlightRequests = 6)
+
+    // the average fill ratio of 0.3 + 0.7 * 0.2401 stays below 0.5
+    respond(10)
+    expect(concurrency = 1, inFlightRequests = 5)
+    respond(10)
+    expect(concurrency = 2, inFlightRequests = 4)
+    respond(10)
+    expect(concurrency = 3, inFlightRequests = 3)
+    respond(10)
+    expect(concurrency = 4, inFlightRequests = 4)
+    respond(10)
+    expect(concurrency = 5, inFlightRequests = 5)
+    respond(10)
+    expect(concurrency = 6, inFlightRequests = 4)
+    metrics.bufferedMessages shouldBe 59
+
+    // 59 buffered messages are more than half of the buffer
+    respond(10)
+    expect(concurrency = 6, inFlightRequests = 3)
+    metrics.bufferedMessages shouldBe 69
+  }
+}
@@ -6,7 +6,7 @@ package akka.stream.alpakka.sqs.scaladsl
 import java.util.concurrent.Executors
 
 import akka.stream.alpakka.sqs.SqsSourceSettings
-import akka.stream.scaladsl.Sink
+import akka.stream.scaladsl.{Keep, Sink}
 import com.amazonaws.client.builder.AwsClientBuilder.EndpointConfiguration
 import com.amazonaws.client.builder.ExecutorFactory
 import com.amazonaws.services.sqs.model.QueueDoesNotExistException
@@ -66,6 +66,19 @@ class SqsSourceSpec extends AsyncWordSpec with ScalaFutures with Matchers with D
 
     }
 
+    "materialize metrics of the running source" taggedAs Integration in {
+
+      val queue = randomQueueUrl()
+      sqsClient.sendMessage(queue, "alpakka")
+
+      val (metrics, message) = SqsSource.withMetrics(queue, sqsSourceSettings).toMat(Sink.head)(Keep.both).run()
+
+      message.map { m =>
+        m.getBody shouldBe "alpakka"
+        metrics.bufferedMessages should be <= sqsSourceSettings.maxBufferSize
+      }
+    }
+
     "continue streaming if receives an empty response" taggedAs Integration in {
 
       val queue = randomQueueUrl()
@@ -4,8 +4,8 @@
 package akka.stream.alpakka.sqs.scaladsl
 
 import akka.Done
-import akka.stream.alpakka.sqs.{ChangeMessageVisibility, Delete, Ignore, SqsSourceSettings}
-import akka.stream.scaladsl.{Sink, Source}
+import akka.stream.alpakka.sqs._
+import akka.stream.scaladsl.{Keep, Sink, Source}
 import akka.stream.testkit.scaladsl.TestSink
 import com.amazonaws.handlers.AsyncHandler
 import com.amazonaws.services.sqs.model._
@@ -13,6 +13,7 @@ import org.mockito.ArgumentMatchers.any
 import org.mockito.Mockito.{spy, verify}
 import org.scalatest.{FlatSpec, Matchers}
 
+import scala.collection.JavaConverters._
 import scala.concurrent.Await
 import scala.concurrent.duration._
 
@@ -146,4 +147,85 @@ class SqsSpec extends FlatSpec with Matchers with DefaultTestContext {
     result.metadata shouldBe empty
     result.message shouldBe "alpakka-4"
   }
+
+  it should "pull messages while exposing the state of the source" taggedAs Integration in {
+    val queue = randomQueueUrl()
+    sqsClient.sendMessage(queue, "alpakka-metrics")
+
+    //#metrics
+    val (metrics, message) = SqsSource.withMetrics(queue).take(1).toMat(Sink.head)(Keep.both).run()
+    // e.g. report metrics.concurrency and metrics.bufferedMessages periodically
+    //#metrics
+
+    Await.result(message, 1.second).getBody shouldBe "alpakka-metrics"
+    metrics.concurrency should be > 0
+  }
+
+  it should "put messages in a flow emitting the results as they arrive" taggedAs Integration in {
+    val queue = randomQueueUrl()
+
+    //#flow-unordered
+    val future = Source(List("alpakka-1", "alpakka-2")).via(SqsFlow.unordered(queue)).runWith(Sink.seq)
+    //#flow-unordered
+
+    Await.result(future, 1.second).map(_.message).toSet shouldBe Set("alpakka-1", "alpakka-2")
+  }
+
+  it should "put messages in batches" taggedAs Integration in {
+    val queue = randomQueueUrl()
+
+    //#flow-batch
+    val messages = (1 to 20).map(i => s"alpakka-$i")
+    val future = Source(messages).via(SqsFlow.batch(queue, SqsBatchFlowSettings.Defaults)).runWith(Sink.seq)
+    //#flow-batch
+
+    Await.result(future, 1.second).map(_.message) shouldBe messages
+  }
+
+  it should "pull and delete messages in batches" taggedAs Integration in {
+    val queue = randomQueueUrl()
+    (1 to 10).foreach(i => sqsClient.sendMessage(queue, s"alpakka-$i"))
+
+    //#flow-ack-grouped
+    val future = SqsSource(queue)
+      .take(10)
+      .map { m: Message =>
+        (m, Delete())
+      }
+      .via(SqsAckFlow.grouped(queue, SqsBatchFlowSettings.Defaults))
+      .runWith(Sink.seq)
+    //#flow-ack-grouped
+
+    Await.result(future, 1.second).flatMap(_.metadata) should have size 10
+    sqsClient.receiveMessage(queue).getMessages.asScala shouldBe empty
+  }
+
+  it should "keep messages invisible while they are processed" taggedAs Integration in {
+    val queue = randomQueueUrl()
+    sqsClient.sendMessage(queue, "alpakka-heartbeat")
+
+    //#visibility-heartbeat
+    val heartbeat = new SqsVisibilityHeartbeat(queue, SqsVisibilityHeartbeatSettings.Defaults)
+    val future = SqsSource(queue)
+      .take(1)
+      .via(heartbeat.track)
+      .map { m: Message =>
+        // long running processing
+        (m, Delete())
+      }
+      .via(heartbeat.release)
+      .runWith(SqsAckSink(queue))
+    // ...
+    // when no more messages are processed
+    //#visibility-heartbeat
+
+    try {
+      Await.result(future, 1.second) shouldBe Done
+      heartbeat.tracked shouldBe 0
+    } finally {
+      //#visibility-heartbeat
+      heartbeat.shutdown()
+      //#visibility-heartbeat
+    }
+  }
 }
@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2016-2017 Lightbend Inc. <http://www.lightbend.com>
+ */
+package akka.stream.alpakka.sqs.scaladsl
+
+import java.util.concurrent.LinkedBlockingQueue
+
+import akka.stream.alpakka.sqs._
+import akka.stream.scaladsl.{Keep, Sink, Source}
+import akka.stream.testkit.scaladsl.{TestSink, TestSource}
+import com.amazonaws.handlers.AsyncHandler
+import com.amazonaws.services.sqs.AmazonSQSAsync
+import com.amazonaws.services.sqs.model._
+import org.mockito.ArgumentMatchers._
+import org.mockito.Mockito._
+import org.scalatest.concurrent.Eventually
+import org.scalatest.mockito.MockitoSugar.mock
+import org.scalatest.{FlatSpec, Matchers}
+
+import scala.collection.JavaConverters._
+import scala.concurrent.Await
+import scala.concurrent.duration._
+
+class SqsVisibilityHeartbeatSpec extends FlatSpec with Matchers with Eventually with DefaultTestContext {
+
+  // the checks are run by the tests, the scheduled ones never happen during a test
+  private val settings = SqsVisibilityHeartbeatSettings(visibilityTimeout = 3.hours,
+                                                        extendBefore = 2.hours,
+                                                        checkInterval = 1.hour,
+                                                        maxExtension = 5.hours)
+
+  private type Handler = AsyncHandler[ChangeMessageVisibilityBatchRequest, ChangeMessageVisibilityBatchResult]
+
+  private val message = new Message().withBody("alpakka").withReceiptHandle("handle")
+
+  // runs a heartbeat against a client whose requests are answered by the test
+  private class HeartbeatContext {
+    private val requests = new LinkedBlockingQueue[(ChangeMessageVisibilityBatchRequest, Handler)]()
+
+    implicit val sqsClient: AmazonSQSAsync = mock[AmazonSQSAsync]
+    when(sqsClient.changeMessageVisibilityBatchAsync(any[ChangeMessageVisibilityBatchRequest](), any())).thenAnswer(
+      answer[ChangeMessageVisibilityBatchRequest, ChangeMessageVisibilityBatchResult](
+        (request, handler) => requests.add((request, handler))
+      )
+    )
+
+    val heartbeat = new SqsVisibilityHeartbeat("notused", settings)
+    val (source, sink) = TestSource.probe[Message].via(heartbeat.track).toMat(TestSink.probe)(Keep.both).run()
+    val trackedAt = System.nanoTime()
+    sink.request(1)
+    source.sendNext(message)
+    sink.expectNext(message)
+
+    def check(after: FiniteDuration): Unit = heartbeat.extendExpiring(trackedAt + after.toNanos)
+
+    // requests not answered yet
+    def requested: Int = requests.size
+
+    // answers the oldest request successfully, returning the visibility timeouts it has requested
+    def respond(): List[Int] = {
+      val (request, handler) = requests.poll()
+      val entries = request.getEntries.asScala.toList
+      val result = new ChangeMessageVisibilityBatchResult()
+        .withSuccessful(entries.map(entry => new ChangeMessageVisibilityBatchResultEntry().withId(entry.getId)).asJava)
+      handler.onSuccess(request, result)
+      entries.map(_.getVisibilityTimeout.intValue)
+    }
+  }
+
+  "SqsVisibilityHeartbeat" should "extend the visibility timeout of tracked messages until they are released" in
+  new HeartbeatContext {
+    try {
+      heartbeat.tracked shouldBe 1
+
+      check(after = 30.minutes)
+      requested shouldBe 0
+
+      check(after = 90.minutes)
+      requested shouldBe 1
+      respond() shouldBe List(3.hours.toSeconds.toInt)
+
+      // visible again 4.5 hours after being tracked
+      check(after = 2.hours)
+      requested shouldBe 0
+
+      Await.result(Source.single(message -> Delete()).via(heartbeat.release).runWith(Sink.ignore), 1.second)
+      heartbeat.tracked shouldBe 0
+      check(after = 3.hours)
+      requested shouldBe 0
+    } finally heartbeat.shutdown()
+  }
+
+  it should "not extend the visibility timeout of a message while it is being extended" in new HeartbeatContext {
+    try {
+      check(after = 90.minutes)
+      check(after = 100.minutes)
+      requested shouldBe 1
+
+      respond()
+      check(after = 2.hours)
+      requested shouldBe 0
+      verify(sqsClient, times(1)).changeMessageVisibilityBatchAsync(any[ChangeMessageVisibilityBatchRequest](), any())
+    } finally heartbeat.shutdown()
+  }
+
+  it should "stop tracking messages after maxExtension" in new HeartbeatContext {
+    try {
+      check(after = 90.minutes)
+      respond() shouldBe List(3.hours.toSeconds.toInt)
+
+      // only an hour is left until maxExtension
+      check(after = 4.hours)
+      respond() shouldBe List(1.hour.toSeconds.toInt)
+
+      check(after = 5.hours)
+      requested shouldBe 0
+      heartbeat.tracked shouldBe 0
+    } finally heartbeat.shutdown()
+  }
+
+  it should "stop tracking the messages of a stream that has terminated" in new HeartbeatContext {
+    try {
+      heartbeat.tracked shouldBe 1
+      sink.cancel()
+      eventually {
+        heartbeat.tracked shouldBe 0
+      }
+    } finally heartbeat.shutdown()
+  }
+}